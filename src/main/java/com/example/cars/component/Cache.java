@@ -1,29 +1,227 @@
 package com.example.cars.component;
 
+import com.example.cars.component.CacheSettings.AdmissionPolicy;
+import com.example.cars.dto.CacheStatsDto;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.time.Duration;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
-import org.springframework.stereotype.Component;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.function.LongSupplier;
+import java.util.function.ToLongFunction;
 
 /**
- * A simple caching component based on a LinkedHashMap with a maximum number of entries.
+ * A thread-safe cache split into independently locked segments.
+ * Each key is routed to one segment by its hash, so concurrent readers and writers only
+ * contend when they touch the same segment and no operation takes a cache-wide lock.
+ * Lists too heavy for the budget of their own segment are handed to a shared overflow segment
+ * holding a quarter of the total budget, so a single list can still take a large share of the
+ * cache; only keys spilled there ever take the overflow segment's lock.
+ * The cache is bounded by total weight, where a single value weighs 1 unless a weigher says
+ * otherwise and a list weighs the sum of its values, and entries can optionally expire after
+ * write or after access.
+ * Hits, misses, loads and evictions are counted with striped counters, so statistics can stay
+ * enabled on the hot path. Concurrent misses for the same key share a single load, and loads
+ * that find nothing can be remembered for a short time so repeated lookups of missing keys do
+ * not reach the loader.
+ * Given a {@link ValueCodec} and an off-heap capacity, entries are also written through to an
+ * off-heap second tier. Entries evicted from the heap stay there and are promoted back to the
+ * heap on their next lookup, so far more entries can be kept without growing the heap.
+ * Given a refresh executor and a refresh interval, entries read through {@link #getListOrLoad}
+ * after that interval are reloaded on the executor while the current value keeps being served,
+ * so hot keys are replaced before they expire and their readers never wait for the loader.
  *
  * @param <K> the type of keys maintained by this cache
  * @param <V> the type of mapped values
  */
-@Component
 public class Cache<K, V> {
 
-  private static final int MAX_ENTRIES = 10;
+  private static final int MAX_SEGMENTS = 16;
+  private static final long MIN_SEGMENT_WEIGHT = 64;
+  private static final int WINDOW_PERCENT = 1;
+  private static final int OVERFLOW_PERCENT = 25;
+  private static final long ENTRY_OVERHEAD_BYTES = 96;
+  private static final List<Object> ABSENT = Collections.unmodifiableList(new ArrayList<>());
 
-  private final Map<K, List<V>> carCache = new LinkedHashMap<>(MAX_ENTRIES, 0.75f, true) {
-    @Override
-      protected boolean removeEldestEntry(Map.Entry<K, List<V>> eldest) {
-        return size() > MAX_ENTRIES;
-    }
-  };
+  private final Segment<K, V>[] segments;
+  private final Segment<K, V> overflow;
+  private final int segmentMask;
+  private final long expireAfterWriteNanos;
+  private final long expireAfterAccessNanos;
+  private final long negativeTtlNanos;
+  private final long refreshAfterWriteNanos;
+  private final Executor refreshExecutor;
+  private final LongSupplier ticker;
+  private final ToLongFunction<? super V> sizeEstimator;
+  private final ToLongFunction<? super V> weigher;
+  private final ValueCodec<V> codec;
+  private final OffHeapStore<Object> secondTier;
+  private final LongAdder secondTierHits = new LongAdder();
+  private final LongAdder secondTierDroppedWrites = new LongAdder();
+  private final LongAdder hits = new LongAdder();
+  private final LongAdder misses = new LongAdder();
+  private final LongAdder loadSuccesses = new LongAdder();
+  private final LongAdder loadFailures = new LongAdder();
+  private final LongAdder totalLoadNanos = new LongAdder();
+  private final LongAdder evictions = new LongAdder();
+  private final LongAdder refreshes = new LongAdder();
+  private final Map<Object, CompletableFuture<List<V>>> inFlight = new ConcurrentHashMap<>();
+  private volatile Consumer<? super K> invalidationListener;
 
+  /**
+   * Loads a value that is missing from the cache.
+   *
+   * @param <T> the type of the loaded value
+   * @param <E> the type of exception thrown when the value cannot be loaded
+   */
+  @FunctionalInterface
+  public interface Loader<T, E extends Exception> {
+    T load() throws E;
+  }
+
+  /**
+   * Creates a cache with the default settings.
+   */
+  public Cache() {
+    this(new CacheSettings());
+  }
+
+  /**
+   * Creates a cache with the given settings.
+   *
+   * @param settings size, expiry and admission settings of the cache
+   */
+  public Cache(CacheSettings settings) {
+    this(settings, value -> 0, System::nanoTime);
+  }
+
+  /**
+   * Creates a cache that estimates its memory footprint with the given estimator.
+   *
+   * @param settings      size, expiry and admission settings of the cache
+   * @param sizeEstimator estimates the retained size of a single value in bytes
+   */
+  public Cache(CacheSettings settings, ToLongFunction<? super V> sizeEstimator) {
+    this(settings, sizeEstimator, null, null, System::nanoTime);
+  }
+
+  /**
+   * Creates a cache that weighs its values with the given weigher, for values that embed
+   * collections of varying size.
+   *
+   * @param settings      size, expiry and admission settings of the cache
+   * @param sizeEstimator estimates the retained size of a single value in bytes
+   * @param weigher       the weight of a single value counted against the maximum weight
+   */
+  public Cache(CacheSettings settings, ToLongFunction<? super V> sizeEstimator,
+               ToLongFunction<? super V> weigher) {
+    this(settings, sizeEstimator, weigher, null, null, System::nanoTime);
+  }
+
+  /**
+   * Creates a cache with an off-heap second tier if the settings give it a capacity.
+   *
+   * @param settings      size, expiry, admission and off-heap settings of the cache
+   * @param sizeEstimator estimates the retained size of a single value in bytes
+   * @param codec         converts values to and from bytes for the off-heap tier
+   */
+  public Cache(CacheSettings settings, ToLongFunction<? super V> sizeEstimator,
+               ValueCodec<V> codec) {
+    this(settings, sizeEstimator, codec, null, System::nanoTime);
+  }
+
+  /**
+   * Creates a cache with an off-heap second tier and refresh-ahead if the settings enable them.
+   *
+   * @param settings         size, expiry, admission, off-heap and refresh settings of the cache
+   * @param sizeEstimator    estimates the retained size of a single value in bytes
+   * @param codec            converts values to and from bytes for the off-heap tier, or null
+   * @param refreshExecutor  runs background reloads of entries due for refresh
+   */
+  public Cache(CacheSettings settings, ToLongFunction<? super V> sizeEstimator,
+               ValueCodec<V> codec, Executor refreshExecutor) {
+    this(settings, sizeEstimator, codec, refreshExecutor, System::nanoTime);
+  }
+
+  /**
+   * Creates a cache without an off-heap tier reading time from the given ticker.
+   */
+  Cache(CacheSettings settings, ToLongFunction<? super V> sizeEstimator, LongSupplier ticker) {
+    this(settings, sizeEstimator, null, null, ticker);
+  }
+
+  /**
+   * Creates a cache weighing every value as 1 and reading time from the given ticker.
+   */
+  Cache(CacheSettings settings, ToLongFunction<? super V> sizeEstimator, ValueCodec<V> codec,
+        Executor refreshExecutor, LongSupplier ticker) {
+    this(settings, sizeEstimator, value -> 1, codec, refreshExecutor, ticker);
+  }
+
+  /**
+   * Creates a cache reading time from the given ticker.
+   * The weight budget is spread over the segments so that the total never exceeds it; small
+   * caches use fewer segments so that every segment can still hold a list of reasonable size.
+   * When there is more than one segment, part of the budget goes to the overflow segment.
+   */
+  @SuppressWarnings("unchecked")
+  Cache(CacheSettings settings, ToLongFunction<? super V> sizeEstimator,
+        ToLongFunction<? super V> weigher, ValueCodec<V> codec, Executor refreshExecutor,
+        LongSupplier ticker) {
+    long maxWeight = settings.getMaxWeight();
+    if (maxWeight < 1) {
+      throw new IllegalArgumentException("maxWeight must be positive");
+    }
+    this.ticker = ticker;
+    this.sizeEstimator = sizeEstimator;
+    this.weigher = weigher;
+    this.codec = codec;
+    long offHeapBytes = settings.getOffHeapCapacity().toBytes();
+    this.secondTier = codec != null && offHeapBytes > 0
+        ? new OffHeapStore<>(offHeapBytes, (int) settings.getOffHeapSlabSize().toBytes())
+        : null;
+    this.expireAfterWriteNanos = nanosOf(settings.getExpireAfterWrite());
+    this.expireAfterAccessNanos = nanosOf(settings.getExpireAfterAccess());
+    this.negativeTtlNanos = nanosOf(settings.getNegativeTtl());
+    this.refreshAfterWriteNanos = refreshExecutor != null
+        ? nanosOf(settings.getRefreshAfterWrite()) : 0;
+    this.refreshExecutor = refreshExecutor;
+    long overflowBudget = maxWeight * OVERFLOW_PERCENT / 100;
+    int segmentCount = (int) Long.highestOneBit(Math.max(1,
+        Math.min((maxWeight - overflowBudget) / MIN_SEGMENT_WEIGHT, MAX_SEGMENTS)));
+    if (segmentCount == 1) {
+      overflowBudget = 0;
+    }
+    boolean tinyLfu = settings.getAdmission() == AdmissionPolicy.TINY_LFU;
+    overflow = overflowBudget > 0 ? new Segment<>(this, overflowBudget, tinyLfu, null) : null;
+    long segmentsBudget = maxWeight - overflowBudget;
+    segments = new Segment[segmentCount];
+    for (int i = 0; i < segmentCount; i++) {
+      long budget = segmentsBudget / segmentCount
+          + (i < segmentsBudget % segmentCount ? 1 : 0);
+      segments[i] = new Segment<>(this, budget, tinyLfu, overflow);
+    }
+    segmentMask = segmentCount - 1;
+  }
 
   /**
   * Retrieve the value associated with the specified key from the cache.
@@ -33,7 +231,7 @@ public class Cache<K, V> {
   *     mapping for the key
   */
   public V get(K key) {
-    List<V> valueList = carCache.get(key);
+    List<V> valueList = getList(key);
     if (valueList != null && !valueList.isEmpty()) {
       return valueList.get(0);
     }
@@ -47,25 +245,839 @@ public class Cache<K, V> {
   * @param value the value to be associated with the specified key
   */
   public void put(K key, V value) {
-    List<V> valueList = new ArrayList<>();
-    valueList.add(value);
-    carCache.put(key, valueList);
+    List<V> valueList = Collections.singletonList(value);
+    segmentFor(key).put(key, valueList, weightOf(valueList), bytesOf(valueList),
+        ticker.getAsLong(), 0);
   }
 
   public boolean containsKey(K key) {
-    return carCache.containsKey(key);
+    return segmentFor(key).containsKey(key, ticker.getAsLong());
+  }
+
+  /**
+   * Removes the entry for the given key, if present, and reports the key to the invalidation
+   * listener.
+   *
+   * @param key the key whose entry is to be removed
+   */
+  public void remove(K key) {
+    segmentFor(key).remove(key);
+    Consumer<? super K> listener = invalidationListener;
+    if (listener != null) {
+      listener.accept(key);
+    }
   }
 
+  /**
+   * Sets the listener notified of every key passed to {@link #remove}, typically to propagate
+   * the invalidation to other nodes. Evictions, expiries and {@link #clear} are not reported.
+   *
+   * @param listener the listener to notify, or null to stop notifying
+   */
+  public void setInvalidationListener(Consumer<? super K> listener) {
+    this.invalidationListener = listener;
+  }
+
+  /**
+   * Removes the entry for the given key without notifying the invalidation listener.
+   */
+  void invalidateLocally(Object key) {
+    segmentFor(key).remove(key);
+  }
+
+  /**
+   * Removes all entries from the cache, including its off-heap tier.
+   * Segments are cleared one at a time, so concurrent writers may repopulate a segment that
+   * has already been cleared.
+   */
   public void clear() {
-    carCache.clear();
+    if (secondTier != null) {
+      secondTier.clear();
+    }
+    for (Segment<K, V> segment : segments) {
+      segment.clear();
+    }
+    if (overflow != null) {
+      overflow.clear();
+    }
   }
 
+  /**
+   * Put a list of values into the cache under a single key.
+   * The list is copied, so later changes to the caller's list are not visible in the cache.
+   * A list heavier than the weight budget of its segment is kept in the overflow segment; a list
+   * heavier than that is not cached on the heap.
+   *
+   * @param key       the key with which the list is to be associated
+   * @param valueList the values to be associated with the specified key
+   */
   public void putList(K key, List<V> valueList) {
-    carCache.put(key, valueList);
+    List<V> copy = Collections.unmodifiableList(new ArrayList<>(valueList));
+    segmentFor(key).put(key, copy, weightOf(copy), bytesOf(copy), ticker.getAsLong(), 0);
   }
 
+  /**
+   * Retrieve the list of values associated with the specified key from the cache.
+   *
+   * @param key the key whose list is to be returned
+   * @return the cached list, or null if the cache contains no mapping for the key
+   */
   public List<V> getList(K key) {
-    return carCache.get(key);
+    Entry<V> entry = lookup(key);
+    return entry == null || entry.values == ABSENT ? null : entry.values;
+  }
+
+  /**
+   * Returns the value cached under the key, loading and caching it on a miss.
+   * Concurrent callers missing the same key wait for a single load and receive its value or
+   * its exception; failed loads are not cached. A load that races with {@link #remove} or
+   * {@link #clear} for its key is returned to its callers but not cached.
+   *
+   * @param key    the key whose value is to be returned
+   * @param loader loads the value if it is not cached
+   * @param <E>    the type of exception thrown by the loader
+   * @return the cached or loaded value, or null if the loader returned null now or recently
+   * @throws E if the value is not cached and could not be loaded
+   */
+  public <E extends Exception> V getOrLoad(K key, Loader<? extends V, E> loader) throws E {
+    List<V> valueList = getListOrLoad(key, () -> {
+      V value = loader.load();
+      return value == null ? null : Collections.singletonList(value);
+    });
+    return valueList == null || valueList.isEmpty() ? null : valueList.get(0);
+  }
+
+  /**
+   * Returns the list cached under the key, loading and caching it on a miss.
+   * Behaves like {@link #getOrLoad} for lists of values. If the loader returns null and a
+   * negative TTL is configured, the absence is cached for that long and later calls return null
+   * without loading until the TTL passes or the key is removed. If refresh-ahead is enabled, a
+   * hit on an entry older than the refresh interval starts a background reload and returns the
+   * current list without waiting for it.
+   *
+   * @param key    the key whose list is to be returned
+   * @param loader loads the list if it is not cached
+   * @param <E>    the type of exception thrown by the loader
+   * @return the cached or loaded list, or null if the loader returned null now or recently
+   * @throws E if the list is not cached and could not be loaded
+   */
+  public <E extends Exception> List<V> getListOrLoad(K key,
+      Loader<? extends List<V>, E> loader) throws E {
+    Entry<V> cached = lookup(key);
+    if (cached != null) {
+      if (cached.values == ABSENT) {
+        return null;
+      }
+      if (refreshAfterWriteNanos > 0 && ticker.getAsLong() - cached.writeTime
+          >= refreshAfterWriteNanos) {
+        refresh(key, cached.values, loader);
+      }
+      return cached.values;
+    }
+    CompletableFuture<List<V>> load = new CompletableFuture<>();
+    CompletableFuture<List<V>> running = inFlight.putIfAbsent(key, load);
+    if (running != null) {
+      return await(running);
+    }
+    return load(key, loader, load);
+  }
+
+  /**
+   * Records a successful load of a value missing from the cache.
+   *
+   * @param loadNanos time spent loading the value, in nanoseconds
+   */
+  public void recordLoadSuccess(long loadNanos) {
+    loadSuccesses.increment();
+    totalLoadNanos.add(loadNanos);
+  }
+
+  /**
+   * Records a failed load of a value missing from the cache.
+   *
+   * @param loadNanos time spent before the load failed, in nanoseconds
+   */
+  public void recordLoadFailure(long loadNanos) {
+    loadFailures.increment();
+    totalLoadNanos.add(loadNanos);
+  }
+
+  /**
+   * Returns a snapshot of the cache statistics and its current footprint.
+   *
+   * @return the statistics of this cache
+   */
+  public CacheStatsDto stats() {
+    long bytes = 0;
+    for (Segment<K, V> segment : allSegments()) {
+      bytes += segment.bytes();
+    }
+    return new CacheStatsDto(hits.sum(), misses.sum(), loadSuccesses.sum(), loadFailures.sum(),
+        totalLoadNanos.sum(), evictions.sum(), refreshes.sum(), size(), weight(), bytes,
+        secondTierHits.sum(), secondTier != null ? secondTier.size() : 0,
+        secondTier != null ? secondTier.allocatedBytes() : 0, secondTierDroppedWrites.sum());
+  }
+
+  /**
+   * Returns the number of entries currently held by the cache.
+   *
+   * @return the number of cached entries
+   */
+  public int size() {
+    int size = 0;
+    for (Segment<K, V> segment : allSegments()) {
+      size += segment.size();
+    }
+    return size;
+  }
+
+  /**
+   * Returns the total weight of the entries currently held by the cache.
+   *
+   * @return the weight of all cached entries
+   */
+  public long weight() {
+    long weight = 0;
+    for (Segment<K, V> segment : allSegments()) {
+      weight += segment.weight();
+    }
+    return weight;
+  }
+
+  /**
+   * Returns the keys of the most popular entries held on the heap, most popular first.
+   * Keys are ranked by their estimated access frequency when TinyLFU admission is used and by
+   * the time of their last access otherwise. Cached absences are not included.
+   *
+   * @param limit the maximum number of keys to return
+   * @return up to {@code limit} keys ordered from the most to the least popular
+   */
+  public List<K> hottestKeys(int limit) {
+    List<Candidate<K>> candidates = new ArrayList<>();
+    for (Segment<K, V> segment : allSegments()) {
+      segment.collectCandidates(candidates);
+    }
+    candidates.sort(Comparator.<Candidate<K>>comparingInt(Candidate::frequency).reversed()
+        .thenComparing((a, b) -> Long.signum(b.accessTime() - a.accessTime())));
+    List<K> keys = new ArrayList<>(Math.min(limit, candidates.size()));
+    for (int i = 0; i < candidates.size() && i < limit; i++) {
+      keys.add(candidates.get(i).key());
+    }
+    return keys;
+  }
+
+  private List<Segment<K, V>> allSegments() {
+    List<Segment<K, V>> all = new ArrayList<>(Arrays.asList(segments));
+    if (overflow != null) {
+      all.add(overflow);
+    }
+    return all;
+  }
+
+  private Segment<K, V> segmentFor(Object key) {
+    int h = key == null ? 0 : key.hashCode();
+    h ^= h >>> 16;
+    return segments[h & segmentMask];
+  }
+
+  /**
+   * Returns the cached entry for the key, holding {@link #ABSENT} for a cached absence, or null
+   * on a miss.
+   */
+  private Entry<V> lookup(K key) {
+    Entry<V> entry = segmentFor(key).get(key, ticker.getAsLong());
+    if (entry != null) {
+      hits.increment();
+    } else {
+      misses.increment();
+    }
+    return entry;
+  }
+
+  /**
+   * Runs a load registered in {@link #inFlight} and caches its result, or the absence it found.
+   * A load that finds nothing also drops the entry it was meant to replace.
+   */
+  private <E extends Exception> List<V> load(K key, Loader<? extends List<V>, E> loader,
+      CompletableFuture<List<V>> load) throws E {
+    long start = ticker.getAsLong();
+    try {
+      List<V> loaded = loader.load();
+      List<V> copy = loaded == null ? null : Collections.unmodifiableList(new ArrayList<>(loaded));
+      recordLoadSuccess(ticker.getAsLong() - start);
+      long now = ticker.getAsLong();
+      if (copy != null) {
+        segmentFor(key).putLoaded(key, copy, weightOf(copy), bytesOf(copy), now, 0, load);
+      } else if (negativeTtlNanos > 0) {
+        segmentFor(key).putLoaded(key, absent(), 1, ENTRY_OVERHEAD_BYTES, now,
+            now + negativeTtlNanos, load);
+      } else {
+        segmentFor(key).removeLoaded(key, load);
+      }
+      load.complete(copy);
+      return copy;
+    } catch (Exception | Error e) {
+      recordLoadFailure(ticker.getAsLong() - start);
+      load.completeExceptionally(e);
+      throw e;
+    } finally {
+      inFlight.remove(key, load);
+    }
+  }
+
+  /**
+   * Reloads an entry on the refresh executor unless a load for its key is already running.
+   * Callers missing the key meanwhile join the refresh instead of starting their own load.
+   * A failed refresh keeps the current entry, which is then reloaded on a later hit or on
+   * expiry; a refresh the executor rejects is dropped and hands the current list to anyone
+   * already waiting for it.
+   */
+  private <E extends Exception> void refresh(K key, List<V> current,
+      Loader<? extends List<V>, E> loader) {
+    CompletableFuture<List<V>> load = new CompletableFuture<>();
+    if (inFlight.putIfAbsent(key, load) != null) {
+      return;
+    }
+    refreshes.increment();
+    try {
+      refreshExecutor.execute(() -> {
+        try {
+          load(key, loader, load);
+        } catch (Exception e) {
+          // Already recorded as a load failure; the current entry stays until it expires.
+        }
+      });
+    } catch (RejectedExecutionException e) {
+      inFlight.remove(key, load);
+      load.complete(current);
+    }
   }
 
-}
\ No newline at end of file
+  @SuppressWarnings("unchecked")
+  private List<V> absent() {
+    return (List<V>) ABSENT;
+  }
+
+  /**
+   * Waits for a load started by another caller and rethrows its failure unchanged. The failure
+   * has the exception type of the loader passed for the same key, so it is thrown unchecked here.
+   */
+  private static <T> T await(CompletableFuture<T> load) {
+    try {
+      return load.join();
+    } catch (CompletionException e) {
+      throw Cache.<RuntimeException>sneakyThrow(e.getCause());
+    }
+  }
+
+  @SuppressWarnings("unchecked")
+  private static <X extends Throwable> X sneakyThrow(Throwable t) throws X {
+    throw (X) t;
+  }
+
+  /**
+   * Returns the weight of a list of values; even an empty list weighs 1.
+   */
+  private long weightOf(List<V> valueList) {
+    long weight = 0;
+    for (V value : valueList) {
+      weight += Math.max(0, weigher.applyAsLong(value));
+    }
+    return Math.max(1, weight);
+  }
+
+  private long bytesOf(List<V> valueList) {
+    long bytes = ENTRY_OVERHEAD_BYTES;
+    for (V value : valueList) {
+      bytes += sizeEstimator.applyAsLong(value);
+    }
+    return bytes;
+  }
+
+  /**
+   * Writes an entry through to the off-heap tier, or drops the key from it if the entry cannot
+   * be stored there. Cached absences are never kept off-heap.
+   */
+  /**
+   * Serializes an entry for the off-heap tier, or returns null if the off-heap tier should drop
+   * the key instead. Called before the segment lock is taken, so encoding a long list does not
+   * hold up the other keys of the segment.
+   */
+  private byte[] encodeSecondTier(Entry<V> entry) {
+    if (secondTier == null || entry.values == ABSENT) {
+      return null;
+    }
+    try {
+      ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+      DataOutputStream out = new DataOutputStream(buffer);
+      out.writeLong(entry.writeTime);
+      out.writeInt(entry.values.size());
+      for (V value : entry.values) {
+        codec.write(value, out);
+      }
+      out.flush();
+      return buffer.toByteArray();
+    } catch (IOException e) {
+      secondTierDroppedWrites.increment();
+      return null;
+    }
+  }
+
+  private void writeSecondTier(Object key, byte[] record) {
+    if (secondTier == null) {
+      return;
+    }
+    if (record == null) {
+      secondTier.remove(key);
+    } else if (!secondTier.put(key, record)) {
+      secondTierDroppedWrites.increment();
+    }
+  }
+
+  /**
+   * Reads an entry back from the off-heap tier, or returns null if it is not stored there.
+   */
+  private Entry<V> readSecondTier(Object key) {
+    if (secondTier == null) {
+      return null;
+    }
+    byte[] record = secondTier.get(key);
+    if (record == null) {
+      return null;
+    }
+    try {
+      DataInputStream in = new DataInputStream(new ByteArrayInputStream(record));
+      long writeTime = in.readLong();
+      int count = in.readInt();
+      List<V> values = new ArrayList<>(count);
+      for (int i = 0; i < count; i++) {
+        values.add(codec.read(in));
+      }
+      secondTierHits.increment();
+      List<V> copy = Collections.unmodifiableList(values);
+      return new Entry<>(copy, weightOf(copy), bytesOf(copy), writeTime, 0);
+    } catch (IOException e) {
+      secondTier.remove(key);
+      return null;
+    }
+  }
+
+  private void removeSecondTier(Object key) {
+    if (secondTier != null) {
+      secondTier.remove(key);
+    }
+  }
+
+  private boolean isExpired(Entry<?> entry, long now) {
+    return (entry.expiresAt != 0 && now - entry.expiresAt >= 0)
+        || (expireAfterWriteNanos > 0 && now - entry.writeTime >= expireAfterWriteNanos)
+        || (expireAfterAccessNanos > 0 && now - entry.accessTime >= expireAfterAccessNanos);
+  }
+
+  private static long nanosOf(Duration duration) {
+    return duration == null || duration.isNegative() ? 0 : duration.toNanos();
+  }
+
+  /**
+   * A cached list of values with its weight, estimated size and timestamps.
+   */
+  private static final class Entry<V> {
+    final List<V> values;
+    final long weight;
+    final long bytes;
+    final long writeTime;
+    final long expiresAt;
+    long accessTime;
+
+    Entry(List<V> values, long weight, long bytes, long writeTime, long expiresAt) {
+      this.values = values;
+      this.weight = weight;
+      this.bytes = bytes;
+      this.expiresAt = expiresAt;
+      this.writeTime = writeTime;
+      this.accessTime = writeTime;
+    }
+  }
+
+  /**
+   * A cached key with the popularity it is ranked by in {@link #hottestKeys}.
+   */
+  private record Candidate<K>(K key, int frequency, long accessTime) {
+  }
+
+  /**
+   * A part of the cache guarded by its own lock.
+   * With LRU admission all entries live in the access-ordered main map. With TinyLFU admission
+   * new entries first enter a small window map; entries leaving the window only move to the
+   * main map if the frequency sketch rates them higher than the main map's eviction victims.
+   * Entries too heavy for the main map go to the overflow segment, whose lock is only taken
+   * while the segment's own lock is held, never the other way round. The spilled keys are
+   * remembered so that other keys never touch the overflow segment; a key the overflow segment
+   * has since evicted is forgotten on its next lookup or once the spilled keys outgrow it.
+   */
+  private static final class Segment<K, V> {
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Cache<K, V> cache;
+    private final Map<K, Entry<V>> window = new LinkedHashMap<>(16, 0.75f, true);
+    private final Map<K, Entry<V>> main = new LinkedHashMap<>(16, 0.75f, true);
+    private final FrequencySketch sketch;
+    private final Segment<K, V> overflow;
+    private final Set<Object> spilled = new HashSet<>();
+    private final long windowBudget;
+    private final long mainBudget;
+    private long windowWeight;
+    private long mainWeight;
+    private long bytes;
+
+    Segment(Cache<K, V> cache, long budget, boolean tinyLfu, Segment<K, V> overflow) {
+      this.cache = cache;
+      this.overflow = overflow;
+      this.windowBudget = tinyLfu ? budget * WINDOW_PERCENT / 100 : 0;
+      this.mainBudget = budget - windowBudget;
+      this.sketch = tinyLfu ? new FrequencySketch(budget) : null;
+    }
+
+    Entry<V> get(K key, long now) {
+      lock.lock();
+      try {
+        recordAccess(key);
+        return find(key, now, true);
+      } finally {
+        lock.unlock();
+      }
+    }
+
+    void put(K key, List<V> values, long weight, long entryBytes, long now, long expiresAt) {
+      Entry<V> entry = new Entry<>(values, weight, entryBytes, now, expiresAt);
+      byte[] record = cache.encodeSecondTier(entry);
+      lock.lock();
+      try {
+        cache.inFlight.remove(key);
+        insert(key, entry, true, record);
+      } finally {
+        lock.unlock();
+      }
+    }
+
+    /**
+     * Caches a loaded list unless the load was invalidated while it was running.
+     */
+    void putLoaded(K key, List<V> values, long weight, long entryBytes, long now, long expiresAt,
+                   CompletableFuture<List<V>> load) {
+      Entry<V> entry = new Entry<>(values, weight, entryBytes, now, expiresAt);
+      byte[] record = cache.encodeSecondTier(entry);
+      lock.lock();
+      try {
+        if (cache.inFlight.get(key) == load) {
+          insert(key, entry, true, record);
+        }
+      } finally {
+        lock.unlock();
+      }
+    }
+
+    /**
+     * Drops the entry a load found nothing for unless the load was invalidated meanwhile.
+     */
+    void removeLoaded(K key, CompletableFuture<List<V>> load) {
+      lock.lock();
+      try {
+        if (cache.inFlight.get(key) == load) {
+          removeEntry(key);
+          cache.removeSecondTier(key);
+        }
+      } finally {
+        lock.unlock();
+      }
+    }
+
+    boolean containsKey(K key, long now) {
+      lock.lock();
+      try {
+        Entry<V> entry = find(key, now, false);
+        return entry != null && entry.values != ABSENT;
+      } finally {
+        lock.unlock();
+      }
+    }
+
+    void remove(Object key) {
+      lock.lock();
+      try {
+        cache.inFlight.remove(key);
+        removeEntry(key);
+        cache.removeSecondTier(key);
+      } finally {
+        lock.unlock();
+      }
+    }
+
+    void clear() {
+      lock.lock();
+      try {
+        cache.inFlight.keySet().removeIf(key -> cache.segmentFor(key) == this);
+        spilled.clear();
+        window.clear();
+        main.clear();
+        windowWeight = 0;
+        mainWeight = 0;
+        bytes = 0;
+      } finally {
+        lock.unlock();
+      }
+    }
+
+    void collectCandidates(List<Candidate<K>> candidates) {
+      lock.lock();
+      try {
+        for (Map<K, Entry<V>> map : List.of(window, main)) {
+          for (Map.Entry<K, Entry<V>> entry : map.entrySet()) {
+            if (entry.getValue().values != ABSENT) {
+              int frequency = sketch != null ? sketch.frequency(entry.getKey()) : 0;
+              candidates.add(new Candidate<>(entry.getKey(), frequency,
+                  entry.getValue().accessTime));
+            }
+          }
+        }
+      } finally {
+        lock.unlock();
+      }
+    }
+
+    int size() {
+      lock.lock();
+      try {
+        return window.size() + main.size();
+      } finally {
+        lock.unlock();
+      }
+    }
+
+    long weight() {
+      lock.lock();
+      try {
+        return windowWeight + mainWeight;
+      } finally {
+        lock.unlock();
+      }
+    }
+
+    long bytes() {
+      lock.lock();
+      try {
+        return bytes;
+      } finally {
+        lock.unlock();
+      }
+    }
+
+    /**
+     * Takes over an entry too heavy for the segment its key belongs to.
+     */
+    void adopt(K key, Entry<V> entry, boolean counted) {
+      lock.lock();
+      try {
+        recordAccess(key);
+        store(key, entry, counted);
+      } finally {
+        lock.unlock();
+      }
+    }
+
+    /**
+     * Returns the live entry held for a spilled key, or null once it is gone.
+     */
+    Entry<V> lookupSpilled(K key, long now, boolean touch) {
+      lock.lock();
+      try {
+        if (touch) {
+          recordAccess(key);
+        }
+        return find(key, now, touch);
+      } finally {
+        lock.unlock();
+      }
+    }
+
+    void discard(Object key) {
+      lock.lock();
+      try {
+        removeEntry(key);
+      } finally {
+        lock.unlock();
+      }
+    }
+
+    /**
+     * Drops the given spilled keys this segment no longer holds.
+     */
+    void forgetEvicted(Set<Object> keys) {
+      lock.lock();
+      try {
+        keys.removeIf(key -> !window.containsKey(key) && !main.containsKey(key));
+      } finally {
+        lock.unlock();
+      }
+    }
+
+    /**
+     * Adds an entry to the heap tier, optionally writing its already encoded record through to
+     * the off-heap tier first.
+     */
+    private void insert(K key, Entry<V> entry, boolean writeThrough, byte[] record) {
+      recordAccess(key);
+      removeEntry(key);
+      if (writeThrough) {
+        cache.writeSecondTier(key, record);
+      }
+      store(key, entry, writeThrough);
+    }
+
+    /**
+     * Adds an entry to this segment, or to the overflow segment if it is heavier than the main
+     * map's budget. An entry too heavy for both is only kept off-heap, and counts as an eviction
+     * if it is a new write.
+     */
+    private void store(K key, Entry<V> entry, boolean counted) {
+      if (entry.weight > mainBudget) {
+        if (overflow != null) {
+          spilled.add(key);
+          overflow.adopt(key, entry, counted);
+          if (spilled.size() > 2 * overflow.size()) {
+            overflow.forgetEvicted(spilled);
+          }
+        } else if (counted) {
+          cache.evictions.increment();
+        }
+        return;
+      }
+      bytes += entry.bytes;
+      if (sketch == null) {
+        main.put(key, entry);
+        mainWeight += entry.weight;
+        evictFromMain();
+      } else {
+        window.put(key, entry);
+        windowWeight += entry.weight;
+        drainWindow();
+      }
+    }
+
+    /**
+     * Finds a live entry on the heap, or promotes it from the off-heap tier; only segments with
+     * their own keys read the off-heap tier, the overflow segment is reached through them.
+     */
+    private Entry<V> find(K key, long now, boolean touch) {
+      Entry<V> entry = window.get(key);
+      if (entry == null) {
+        entry = main.get(key);
+      }
+      if (entry == null && spilled.contains(key)) {
+        entry = overflow.lookupSpilled(key, now, touch);
+        if (entry != null) {
+          return entry;
+        }
+        spilled.remove(key);
+      }
+      boolean promoted = false;
+      if (entry == null) {
+        if (cache.overflow == this) {
+          return null;
+        }
+        entry = cache.readSecondTier(key);
+        if (entry == null) {
+          return null;
+        }
+        entry.accessTime = now;
+        promoted = true;
+      }
+      if (cache.isExpired(entry, now)) {
+        removeEntry(key);
+        cache.removeSecondTier(key);
+        cache.evictions.increment();
+        return null;
+      }
+      if (promoted) {
+        insert(key, entry, false, null);
+      } else if (touch) {
+        entry.accessTime = now;
+      }
+      return entry;
+    }
+
+    private void removeEntry(Object key) {
+      if (spilled.remove(key)) {
+        overflow.discard(key);
+      }
+      Entry<V> removed = window.remove(key);
+      if (removed != null) {
+        windowWeight -= removed.weight;
+        bytes -= removed.bytes;
+      }
+      removed = main.remove(key);
+      if (removed != null) {
+        mainWeight -= removed.weight;
+        bytes -= removed.bytes;
+      }
+    }
+
+    private void recordAccess(Object key) {
+      if (sketch != null) {
+        sketch.increment(key);
+      }
+    }
+
+    private void evictFromMain() {
+      Iterator<Entry<V>> eldest = main.values().iterator();
+      while (mainWeight > mainBudget && eldest.hasNext()) {
+        Entry<V> evicted = eldest.next();
+        eldest.remove();
+        mainWeight -= evicted.weight;
+        bytes -= evicted.bytes;
+        cache.evictions.increment();
+      }
+    }
+
+    /**
+     * Moves entries overflowing the window into the main map, admitting each candidate only if
+     * it is more popular than every main entry it would displace.
+     */
+    private void drainWindow() {
+      Iterator<Map.Entry<K, Entry<V>>> windowEldest = window.entrySet().iterator();
+      while (windowWeight > windowBudget && windowEldest.hasNext()) {
+        Map.Entry<K, Entry<V>> candidate = windowEldest.next();
+        windowEldest.remove();
+        windowWeight -= candidate.getValue().weight;
+        if (admit(candidate.getKey(), candidate.getValue().weight)) {
+          main.put(candidate.getKey(), candidate.getValue());
+          mainWeight += candidate.getValue().weight;
+        } else {
+          bytes -= candidate.getValue().bytes;
+          cache.evictions.increment();
+        }
+      }
+    }
+
+    private boolean admit(K candidateKey, long candidateWeight) {
+      int candidateFrequency = sketch.frequency(candidateKey);
+      Iterator<Map.Entry<K, Entry<V>>> mainEldest = main.entrySet().iterator();
+      List<K> victims = new ArrayList<>();
+      long freed = 0;
+      while (mainWeight - freed + candidateWeight > mainBudget && mainEldest.hasNext()) {
+        Map.Entry<K, Entry<V>> victim = mainEldest.next();
+        if (sketch.frequency(victim.getKey()) >= candidateFrequency) {
+          return false;
+        }
+        victims.add(victim.getKey());
+        freed += victim.getValue().weight;
+      }
+      for (K victim : victims) {
+        bytes -= main.remove(victim).bytes;
+        cache.evictions.increment();
+      }
+      mainWeight -= freed;
+      return true;
+    }
+  }
+}
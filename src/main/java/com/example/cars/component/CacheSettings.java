@@ -0,0 +1,127 @@
+package com.example.cars.component;
+
+import java.time.Duration;
+import org.springframework.util.unit.DataSize;
+
+/**
+ * Size, expiry and admission settings for a {@link Cache}.
+ * Bound from {@code application.properties} so every deployment can tune its own limits.
+ */
+public class CacheSettings {
+
+  /**
+   * How new entries are admitted once the cache is full.
+   */
+  public enum AdmissionPolicy {
+    /** Every new entry is admitted and the least recently used entry is evicted. */
+    LRU,
+    /**
+     * New entries pass through a small LRU window and only displace the least recently used
+     * entry of the main area if they have been seen more often recently (W-TinyLFU).
+     */
+    TINY_LFU
+  }
+
+  private long maxWeight = 10;
+  private Duration expireAfterWrite = Duration.ZERO;
+  private Duration expireAfterAccess = Duration.ZERO;
+  private Duration negativeTtl = Duration.ZERO;
+  private Duration refreshAfterWrite = Duration.ZERO;
+  private AdmissionPolicy admission = AdmissionPolicy.LRU;
+  private DataSize offHeapCapacity = DataSize.ofBytes(0);
+  private DataSize offHeapSlabSize = DataSize.ofMegabytes(4);
+
+  public CacheSettings() {
+    //Default constructor that doesn't require any specific actions when creating an object.
+  }
+
+  /**
+   * Returns the maximum total weight of the cache.
+   * A single value weighs 1 and a list weighs the number of values it holds.
+   */
+  public long getMaxWeight() {
+    return maxWeight;
+  }
+
+  public void setMaxWeight(long maxWeight) {
+    this.maxWeight = maxWeight;
+  }
+
+  /**
+   * Returns how long an entry lives after it was written, or zero if it never expires.
+   */
+  public Duration getExpireAfterWrite() {
+    return expireAfterWrite;
+  }
+
+  public void setExpireAfterWrite(Duration expireAfterWrite) {
+    this.expireAfterWrite = expireAfterWrite;
+  }
+
+  /**
+   * Returns how long an entry lives after it was last read or written, or zero if it never
+   * expires.
+   */
+  public Duration getExpireAfterAccess() {
+    return expireAfterAccess;
+  }
+
+  public void setExpireAfterAccess(Duration expireAfterAccess) {
+    this.expireAfterAccess = expireAfterAccess;
+  }
+
+  /**
+   * Returns how long a load that found nothing is remembered, or zero if absences are not cached.
+   */
+  public Duration getNegativeTtl() {
+    return negativeTtl;
+  }
+
+  public void setNegativeTtl(Duration negativeTtl) {
+    this.negativeTtl = negativeTtl;
+  }
+
+  /**
+   * Returns the age after which a read entry is reloaded in the background, or zero if entries
+   * are never refreshed ahead of expiry. Only takes effect for caches created with a refresh
+   * executor and should be shorter than the write expiry.
+   */
+  public Duration getRefreshAfterWrite() {
+    return refreshAfterWrite;
+  }
+
+  public void setRefreshAfterWrite(Duration refreshAfterWrite) {
+    this.refreshAfterWrite = refreshAfterWrite;
+  }
+
+  public AdmissionPolicy getAdmission() {
+    return admission;
+  }
+
+  public void setAdmission(AdmissionPolicy admission) {
+    this.admission = admission;
+  }
+
+  /**
+   * Returns the size of the off-heap second tier, or zero if the cache has none.
+   * The tier only exists for caches created with a value codec.
+   */
+  public DataSize getOffHeapCapacity() {
+    return offHeapCapacity;
+  }
+
+  public void setOffHeapCapacity(DataSize offHeapCapacity) {
+    this.offHeapCapacity = offHeapCapacity;
+  }
+
+  /**
+   * Returns the size of a single off-heap slab, which also bounds the size of one entry.
+   */
+  public DataSize getOffHeapSlabSize() {
+    return offHeapSlabSize;
+  }
+
+  public void setOffHeapSlabSize(DataSize offHeapSlabSize) {
+    this.offHeapSlabSize = offHeapSlabSize;
+  }
+}
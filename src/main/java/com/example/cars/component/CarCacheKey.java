@@ -0,0 +1,153 @@
+package com.example.cars.component;
+
+import java.io.Serializable;
+import java.util.Objects;
+
+/**
+ * Key of an entry in the car cache.
+ * Each lookup kind has its own key type, so a car id, a make and a dealer/year list can never
+ * collide even when their raw values happen to be equal. Every key computes its hash once, when
+ * it is created, since the cache hashes a key several times per lookup. Keys of recently looked
+ * up car ids are reused, so repeated lookups of a hot car do not allocate a key. Keys are
+ * serializable so that their invalidation can be sent to other nodes.
+ */
+public sealed interface CarCacheKey extends Serializable {
+
+  static CarCacheKey byId(Long id) {
+    return ById.of(id);
+  }
+
+  static CarCacheKey byMake(String make) {
+    return new ByMake(make);
+  }
+
+  static CarCacheKey byDealerAndYear(Long dealerId, Long year) {
+    return new ByDealerAndYear(dealerId, year);
+  }
+
+  /**
+   * Key of a single car looked up by its id.
+   */
+  final class ById implements CarCacheKey {
+
+    private static final int RECENT_KEYS = 1024;
+    // the key last created for every slot; keys are immutable, so a key published by a racing
+    // thread is always complete, and a lost update only costs an allocation
+    private static final ById[] recent = new ById[RECENT_KEYS];
+
+    private final Long id;
+    private final int hash;
+
+    private ById(Long id) {
+      this.id = id;
+      this.hash = Objects.hashCode(id);
+    }
+
+    private static ById of(Long id) {
+      if (id == null) {
+        return new ById(null);
+      }
+      int slot = Long.hashCode(id) & (RECENT_KEYS - 1);
+      ById key = recent[slot];
+      if (key == null || !id.equals(key.id)) {
+        key = new ById(id);
+        recent[slot] = key;
+      }
+      return key;
+    }
+
+    public Long id() {
+      return id;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      return this == o
+          || o instanceof ById other && hash == other.hash && Objects.equals(id, other.id);
+    }
+
+    @Override
+    public int hashCode() {
+      return hash;
+    }
+
+    @Override
+    public String toString() {
+      return "ById[id=" + id + "]";
+    }
+  }
+
+  /**
+   * Key of a single car looked up by its make.
+   */
+  final class ByMake implements CarCacheKey {
+
+    private final String make;
+    private final int hash;
+
+    private ByMake(String make) {
+      this.make = make;
+      this.hash = Objects.hashCode(make);
+    }
+
+    public String make() {
+      return make;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      return this == o
+          || o instanceof ByMake other && hash == other.hash && Objects.equals(make, other.make);
+    }
+
+    @Override
+    public int hashCode() {
+      return hash;
+    }
+
+    @Override
+    public String toString() {
+      return "ByMake[make=" + make + "]";
+    }
+  }
+
+  /**
+   * Key of the list of cars a dealer has for a given year.
+   */
+  final class ByDealerAndYear implements CarCacheKey {
+
+    private final Long dealerId;
+    private final Long year;
+    private final int hash;
+
+    private ByDealerAndYear(Long dealerId, Long year) {
+      this.dealerId = dealerId;
+      this.year = year;
+      this.hash = 31 * Objects.hashCode(dealerId) + Objects.hashCode(year);
+    }
+
+    public Long dealerId() {
+      return dealerId;
+    }
+
+    public Long year() {
+      return year;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      return this == o || o instanceof ByDealerAndYear other && hash == other.hash
+          && Objects.equals(dealerId, other.dealerId) && Objects.equals(year, other.year);
+    }
+
+    @Override
+    public int hashCode() {
+      return hash;
+    }
+
+    @Override
+    public String toString() {
+      return "ByDealerAndYear[dealerId=" + dealerId + ", year=" + year + "]";
+    }
+  }
+}
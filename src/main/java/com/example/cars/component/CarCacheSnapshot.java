@@ -0,0 +1,121 @@
+package com.example.cars.component;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reads and writes the keys of the hottest car cache entries in a compact binary file.
+ * Only keys are stored: entries are reloaded from the database on warm-up, so a snapshot can
+ * never bring back a car that was changed or deleted while the application was down.
+ */
+public final class CarCacheSnapshot {
+
+  private static final int MAGIC = 0x43435331;
+  private static final byte BY_ID = 1;
+  private static final byte BY_MAKE = 2;
+  private static final byte BY_DEALER_AND_YEAR = 3;
+
+  private CarCacheSnapshot() {
+  }
+
+  /**
+   * Writes the keys to the file, replacing it atomically so that a crash never leaves a
+   * truncated snapshot behind.
+   *
+   * @param keys the keys to write, most popular first
+   * @param file the snapshot file
+   * @throws IOException if the file cannot be written
+   */
+  public static void write(List<CarCacheKey> keys, Path file) throws IOException {
+    Path parent = file.toAbsolutePath().getParent();
+    Files.createDirectories(parent);
+    Path temp = Files.createTempFile(parent, file.getFileName().toString(), ".tmp");
+    try (DataOutputStream out = new DataOutputStream(
+        new BufferedOutputStream(Files.newOutputStream(temp)))) {
+      out.writeInt(MAGIC);
+      out.writeInt(keys.size());
+      for (CarCacheKey key : keys) {
+        writeKey(key, out);
+      }
+    } catch (IOException e) {
+      Files.deleteIfExists(temp);
+      throw e;
+    }
+    Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+  }
+
+  /**
+   * Reads the keys from the file.
+   *
+   * @param file the snapshot file
+   * @return the keys in the order they were written
+   * @throws IOException if the file cannot be read or is not a car cache snapshot
+   */
+  public static List<CarCacheKey> read(Path file) throws IOException {
+    try (DataInputStream in = new DataInputStream(
+        new BufferedInputStream(Files.newInputStream(file)))) {
+      if (in.readInt() != MAGIC) {
+        throw new IOException("Not a car cache snapshot: " + file);
+      }
+      int count = in.readInt();
+      if (count < 0) {
+        throw new IOException("Corrupted car cache snapshot: " + file);
+      }
+      List<CarCacheKey> keys = new ArrayList<>(Math.min(count, 1 << 16));
+      for (int i = 0; i < count; i++) {
+        keys.add(readKey(in));
+      }
+      return keys;
+    }
+  }
+
+  private static void writeKey(CarCacheKey key, DataOutputStream out) throws IOException {
+    if (key instanceof CarCacheKey.ById byId) {
+      out.writeByte(BY_ID);
+      writeLong(byId.id(), out);
+    } else if (key instanceof CarCacheKey.ByMake byMake) {
+      out.writeByte(BY_MAKE);
+      out.writeBoolean(byMake.make() != null);
+      if (byMake.make() != null) {
+        out.writeUTF(byMake.make());
+      }
+    } else if (key instanceof CarCacheKey.ByDealerAndYear byDealerAndYear) {
+      out.writeByte(BY_DEALER_AND_YEAR);
+      writeLong(byDealerAndYear.dealerId(), out);
+      writeLong(byDealerAndYear.year(), out);
+    }
+  }
+
+  private static CarCacheKey readKey(DataInputStream in) throws IOException {
+    byte kind = in.readByte();
+    switch (kind) {
+      case BY_ID:
+        return CarCacheKey.byId(readLong(in));
+      case BY_MAKE:
+        return CarCacheKey.byMake(in.readBoolean() ? in.readUTF() : null);
+      case BY_DEALER_AND_YEAR:
+        return CarCacheKey.byDealerAndYear(readLong(in), readLong(in));
+      default:
+        throw new IOException("Unknown car cache key kind: " + kind);
+    }
+  }
+
+  private static void writeLong(Long value, DataOutputStream out) throws IOException {
+    out.writeBoolean(value != null);
+    if (value != null) {
+      out.writeLong(value);
+    }
+  }
+
+  private static Long readLong(DataInputStream in) throws IOException {
+    return in.readBoolean() ? in.readLong() : null;
+  }
+}
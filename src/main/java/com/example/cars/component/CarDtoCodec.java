@@ -0,0 +1,62 @@
+package com.example.cars.component;
+
+import com.example.cars.dto.CarDto;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * Compact binary codec for {@link CarDto} used by the off-heap tier of the car cache.
+ * Each field is preceded by a presence flag so that null fields round-trip unchanged.
+ * Given an interner, decoded cars are replaced by their canonical instances.
+ */
+public class CarDtoCodec implements ValueCodec<CarDto> {
+
+  private final WeakInterner<Long, CarDto> interner;
+
+  public CarDtoCodec() {
+    this(null);
+  }
+
+  public CarDtoCodec(WeakInterner<Long, CarDto> interner) {
+    this.interner = interner;
+  }
+
+  @Override
+  public void write(CarDto car, DataOutput out) throws IOException {
+    writeLong(car.getId(), out);
+    writeLong(car.getYear(), out);
+    writeString(car.getMake(), out);
+    writeString(car.getModel(), out);
+    writeString(car.getVin(), out);
+  }
+
+  @Override
+  public CarDto read(DataInput in) throws IOException {
+    CarDto car = new CarDto(readLong(in), readLong(in), readString(in), readString(in),
+        readString(in));
+    return interner != null ? interner.intern(car.getId(), car) : car;
+  }
+
+  private static void writeLong(Long value, DataOutput out) throws IOException {
+    out.writeBoolean(value != null);
+    if (value != null) {
+      out.writeLong(value);
+    }
+  }
+
+  private static void writeString(String value, DataOutput out) throws IOException {
+    out.writeBoolean(value != null);
+    if (value != null) {
+      out.writeUTF(value);
+    }
+  }
+
+  private static Long readLong(DataInput in) throws IOException {
+    return in.readBoolean() ? in.readLong() : null;
+  }
+
+  private static String readString(DataInput in) throws IOException {
+    return in.readBoolean() ? in.readUTF() : null;
+  }
+}
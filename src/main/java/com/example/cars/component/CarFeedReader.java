@@ -0,0 +1,180 @@
+package com.example.cars.component;
+
+import com.example.cars.entity.Car;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Reads cars one record at a time from an NDJSON or CSV feed.
+ * Only the current line is held in memory, so feeds of any size can be imported while they
+ * are still being received. A malformed record does not stop the feed: it is returned with the
+ * reason it was rejected and reading continues with the next line.
+ */
+public class CarFeedReader implements Closeable {
+
+  /**
+   * Format of a car feed.
+   */
+  public enum Format {
+    /** One JSON car object per line. */
+    NDJSON,
+    /** A header line naming the columns {@code year}, {@code make}, {@code model} and
+     *  {@code vin} in any order, followed by one car per line. */
+    CSV
+  }
+
+  /**
+   * A record of the feed: either a car or the reason the line was rejected.
+   *
+   * @param line  the number of the line the record was read from, starting at 1
+   * @param car   the car, or {@code null} if the line was rejected
+   * @param error the reason the line was rejected, or {@code null}
+   */
+  public record Entry(long line, Car car, String error) {
+  }
+
+  private static final List<String> CSV_COLUMNS = List.of("year", "make", "model", "vin");
+
+  private final BufferedReader reader;
+  private final Format format;
+  private final ObjectMapper objectMapper;
+  private Map<String, Integer> csvColumns;
+  private long lineNumber;
+
+  /**
+   * Creates a reader over a feed.
+   *
+   * @param reader       the feed
+   * @param format       the format of the feed
+   * @param objectMapper binds NDJSON lines to cars
+   */
+  public CarFeedReader(Reader reader, Format format, ObjectMapper objectMapper) {
+    this.reader = reader instanceof BufferedReader buffered ? buffered : new BufferedReader(reader);
+    this.format = format;
+    this.objectMapper = objectMapper;
+  }
+
+  /**
+   * Returns the next record of the feed, skipping blank lines.
+   *
+   * @return the next record, or {@code null} at the end of the feed
+   * @throws IOException if the feed cannot be read or a CSV feed has no valid header
+   */
+  public Entry next() throws IOException {
+    String line;
+    do {
+      line = reader.readLine();
+      if (line == null) {
+        return null;
+      }
+      lineNumber++;
+    } while (line.isBlank() || (format == Format.CSV && csvColumns == null && readHeader(line)));
+    return format == Format.CSV ? parseCsv(line) : parseJson(line);
+  }
+
+  @Override
+  public void close() throws IOException {
+    reader.close();
+  }
+
+  private Entry parseJson(String line) {
+    try {
+      Car car = objectMapper.readValue(line, Car.class);
+      if (car == null) {
+        return new Entry(lineNumber, null, "Некорректный JSON: ожидается объект автомобиля");
+      }
+      return new Entry(lineNumber, car, null);
+    } catch (JsonProcessingException e) {
+      return new Entry(lineNumber, null, "Некорректный JSON: " + e.getOriginalMessage());
+    }
+  }
+
+  private boolean readHeader(String line) throws IOException {
+    List<String> names = splitCsv(line);
+    if (names == null) {
+      throw new IOException("Некорректный заголовок CSV в строке " + lineNumber);
+    }
+    Map<String, Integer> columns = new HashMap<>();
+    for (int i = 0; i < names.size(); i++) {
+      columns.put(names.get(i).trim().toLowerCase(Locale.ROOT), i);
+    }
+    if (!columns.containsKey("vin")) {
+      throw new IOException("В заголовке CSV нет столбца vin");
+    }
+    columns.keySet().retainAll(CSV_COLUMNS);
+    csvColumns = columns;
+    return true;
+  }
+
+  private Entry parseCsv(String line) {
+    List<String> values = splitCsv(line);
+    if (values == null) {
+      return new Entry(lineNumber, null, "Незакрытые кавычки в строке CSV");
+    }
+    Car car = new Car();
+    car.setMake(column(values, "make"));
+    car.setModel(column(values, "model"));
+    car.setVin(column(values, "vin"));
+    String year = column(values, "year");
+    if (year != null) {
+      try {
+        car.setYear(Long.parseLong(year.trim()));
+      } catch (NumberFormatException e) {
+        return new Entry(lineNumber, null, "Некорректный год: " + year);
+      }
+    }
+    return new Entry(lineNumber, car, null);
+  }
+
+  private String column(List<String> values, String name) {
+    Integer index = csvColumns.get(name);
+    if (index == null || index >= values.size() || values.get(index).isEmpty()) {
+      return null;
+    }
+    return values.get(index);
+  }
+
+  /**
+   * Splits a CSV line into its fields, honouring double-quoted fields with {@code ""} escapes.
+   * Returns {@code null} if a quoted field is not closed on the same line.
+   */
+  private static List<String> splitCsv(String line) {
+    List<String> fields = new ArrayList<>();
+    StringBuilder field = new StringBuilder();
+    boolean quoted = false;
+    for (int i = 0; i < line.length(); i++) {
+      char c = line.charAt(i);
+      if (quoted) {
+        if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+          field.append('"');
+          i++;
+        } else if (c == '"') {
+          quoted = false;
+        } else {
+          field.append(c);
+        }
+      } else if (c == '"') {
+        quoted = true;
+      } else if (c == ',') {
+        fields.add(field.toString());
+        field.setLength(0);
+      } else {
+        field.append(c);
+      }
+    }
+    if (quoted) {
+      return null;
+    }
+    fields.add(field.toString());
+    return fields;
+  }
+}
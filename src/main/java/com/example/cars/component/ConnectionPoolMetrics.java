@@ -0,0 +1,171 @@
+package com.example.cars.component;
+
+import com.example.cars.dto.PoolStatsDto;
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.metrics.IMetricsTracker;
+import com.zaxxer.hikari.metrics.MetricsTrackerFactory;
+import com.zaxxer.hikari.metrics.PoolStats;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Collects the metrics of the application's HikariCP connection pools.
+ * For every pool it records how long threads wait for a connection, as a histogram with fixed
+ * buckets, and how many waits timed out; the pool itself reports its active, idle and pending
+ * counts. When the pool has a leak detection threshold, the time of every borrow is kept until
+ * the pool reports the connection's return, so connections held longer than the threshold are
+ * reported while they are still held. The pool reports borrows and returns without saying
+ * which connection they belong to; a return is matched to the borrow it was timed from, which
+ * is exact to the millisecond the pool reports.
+ */
+public class ConnectionPoolMetrics {
+
+  private static final long[] BUCKET_BOUNDS_MILLIS = {1, 5, 10, 50, 100, 500, 1000, 5000};
+
+  private final Map<String, PoolTracker> trackers = new ConcurrentHashMap<>();
+  private final LongSupplier ticker;
+
+  /**
+   * Creates a collector without any pool.
+   */
+  public ConnectionPoolMetrics() {
+    this(System::nanoTime);
+  }
+
+  ConnectionPoolMetrics(LongSupplier ticker) {
+    this.ticker = ticker;
+  }
+
+  /**
+   * Returns the factory to install on a pool so that its metrics are collected here.
+   *
+   * @param config the configuration of the pool, read when the pool starts
+   * @return the metrics tracker factory of the pool
+   */
+  public MetricsTrackerFactory trackerFactory(HikariConfig config) {
+    return (poolName, poolStats) -> {
+      PoolTracker tracker = new PoolTracker(poolName, poolStats,
+          config.getLeakDetectionThreshold());
+      trackers.put(poolName, tracker);
+      return tracker;
+    };
+  }
+
+  /**
+   * Returns a snapshot of every started pool, ordered by pool name.
+   *
+   * @return the statistics of the pools
+   */
+  public List<PoolStatsDto> snapshot() {
+    return trackers.values().stream()
+        .sorted(Comparator.comparing(tracker -> tracker.poolName))
+        .map(PoolTracker::snapshot)
+        .toList();
+  }
+
+  private static String bucketLabel(int bucket) {
+    return bucket < BUCKET_BOUNDS_MILLIS.length
+        ? "le_" + BUCKET_BOUNDS_MILLIS[bucket] + "ms"
+        : "gt_" + BUCKET_BOUNDS_MILLIS[BUCKET_BOUNDS_MILLIS.length - 1] + "ms";
+  }
+
+  private final class PoolTracker implements IMetricsTracker {
+
+    private final String poolName;
+    private final PoolStats poolStats;
+    private final long leakThresholdMillis;
+    private final LongAdder[] buckets = new LongAdder[BUCKET_BOUNDS_MILLIS.length + 1];
+    private final LongAdder acquisitions = new LongAdder();
+    private final LongAdder acquisitionNanos = new LongAdder();
+    private final LongAccumulator maxAcquisitionNanos = new LongAccumulator(Math::max, 0);
+    private final LongAdder timeouts = new LongAdder();
+    // time of the borrow -> number of connections borrowed then and not yet returned
+    private final ConcurrentSkipListMap<Long, Integer> borrowedSince =
+        new ConcurrentSkipListMap<>();
+
+    PoolTracker(String poolName, PoolStats poolStats, long leakThresholdMillis) {
+      this.poolName = poolName;
+      this.poolStats = poolStats;
+      this.leakThresholdMillis = leakThresholdMillis;
+      for (int i = 0; i < buckets.length; i++) {
+        buckets[i] = new LongAdder();
+      }
+    }
+
+    @Override
+    public void recordConnectionAcquiredNanos(long elapsedAcquiredNanos) {
+      acquisitions.increment();
+      acquisitionNanos.add(elapsedAcquiredNanos);
+      maxAcquisitionNanos.accumulate(elapsedAcquiredNanos);
+      long millis = TimeUnit.NANOSECONDS.toMillis(elapsedAcquiredNanos);
+      int bucket = 0;
+      while (bucket < BUCKET_BOUNDS_MILLIS.length && millis > BUCKET_BOUNDS_MILLIS[bucket]) {
+        bucket++;
+      }
+      buckets[bucket].increment();
+      if (leakThresholdMillis > 0) {
+        borrowedSince.merge(ticker.getAsLong(), 1, Integer::sum);
+      }
+    }
+
+    @Override
+    public void recordConnectionUsageMillis(long elapsedBorrowedMillis) {
+      if (leakThresholdMillis <= 0) {
+        return;
+      }
+      // the pool truncates the usage to whole milliseconds, so the borrow happened within the
+      // millisecond before the computed time; the borrow recorded here follows it closely
+      long borrowedAt = ticker.getAsLong()
+          - TimeUnit.MILLISECONDS.toNanos(elapsedBorrowedMillis + 1);
+      Long since = borrowedSince.ceilingKey(borrowedAt);
+      if (since == null) {
+        since = borrowedSince.isEmpty() ? null : borrowedSince.lastKey();
+      }
+      if (since != null) {
+        borrowedSince.computeIfPresent(since, (key, count) -> count > 1 ? count - 1 : null);
+      }
+    }
+
+    @Override
+    public void recordConnectionTimeout() {
+      timeouts.increment();
+    }
+
+    @Override
+    public void close() {
+      trackers.remove(poolName, this);
+    }
+
+    /**
+     * Counts the borrowed connections held longer than the leak detection threshold.
+     */
+    long countLeaks() {
+      if (leakThresholdMillis <= 0) {
+        return 0;
+      }
+      long heldSince = ticker.getAsLong() - TimeUnit.MILLISECONDS.toNanos(leakThresholdMillis);
+      return borrowedSince.headMap(heldSince, true).values().stream()
+          .mapToLong(Integer::longValue)
+          .sum();
+    }
+
+    PoolStatsDto snapshot() {
+      Map<String, Long> histogram = new LinkedHashMap<>();
+      for (int i = 0; i < buckets.length; i++) {
+        histogram.put(bucketLabel(i), buckets[i].sum());
+      }
+      return new PoolStatsDto(poolName, poolStats.getActiveConnections(),
+          poolStats.getIdleConnections(), poolStats.getPendingThreads(),
+          poolStats.getMaxConnections(), acquisitions.sum(), acquisitionNanos.sum(),
+          maxAcquisitionNanos.get(), timeouts.sum(), histogram, countLeaks());
+    }
+  }
+}
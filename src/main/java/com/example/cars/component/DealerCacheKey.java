@@ -0,0 +1,31 @@
+package com.example.cars.component;
+
+import java.io.Serializable;
+
+/**
+ * Key of an entry in the dealer cache.
+ * Dealers looked up by id and by name are kept under separate key types, so an id and a name
+ * can never collide. Keys are serializable so that their invalidation can be sent to other nodes.
+ */
+public sealed interface DealerCacheKey extends Serializable {
+
+  static DealerCacheKey byId(Long id) {
+    return new ById(id);
+  }
+
+  static DealerCacheKey byName(String name) {
+    return new ByName(name);
+  }
+
+  /**
+   * Key of a dealer looked up by its id.
+   */
+  record ById(Long id) implements DealerCacheKey {
+  }
+
+  /**
+   * Key of a dealer looked up by its name.
+   */
+  record ByName(String name) implements DealerCacheKey {
+  }
+}
@@ -0,0 +1,93 @@
+package com.example.cars.component;
+
+import java.util.Objects;
+
+/**
+ * A count-min sketch of 4-bit counters estimating how often keys were seen recently.
+ * All counters are halved once the number of increments reaches ten times the sketched
+ * capacity, so the estimate follows the current popularity of keys rather than all-time totals.
+ * Instances are not thread-safe; callers guard them with their own lock.
+ */
+final class FrequencySketch {
+
+  private static final long[] SEEDS = {
+    0xc3a5c85c97cb3127L, 0xb492b66fbe98f273L, 0x9ae16a3b2f90404fL, 0xcbf29ce484222325L};
+  private static final long RESET_MASK = 0x7777777777777777L;
+  private static final int MAX_COUNTERS = 1 << 24;
+
+  private final long[] table;
+  private final int counterMask;
+  private final long sampleSize;
+  private long additions;
+
+  /**
+   * Creates a sketch sized for the given number of distinct keys.
+   *
+   * @param capacity the expected number of keys tracked at once
+   */
+  FrequencySketch(long capacity) {
+    long wanted = Math.max(64, Math.min(MAX_COUNTERS, capacity * 16));
+    int counters = Integer.highestOneBit((int) wanted - 1) << 1;
+    table = new long[counters >>> 4];
+    counterMask = counters - 1;
+    sampleSize = Math.max(10, capacity * 10);
+  }
+
+  /**
+   * Returns the estimated number of recent occurrences of the key, capped at 15.
+   */
+  int frequency(Object key) {
+    int hash = spread(Objects.hashCode(key));
+    int min = 15;
+    for (int i = 0; i < SEEDS.length; i++) {
+      min = Math.min(min, counterAt(indexOf(hash, i)));
+    }
+    return min;
+  }
+
+  /**
+   * Records one occurrence of the key.
+   */
+  void increment(Object key) {
+    int hash = spread(Objects.hashCode(key));
+    boolean added = false;
+    for (int i = 0; i < SEEDS.length; i++) {
+      added |= incrementAt(indexOf(hash, i));
+    }
+    if (added && ++additions >= sampleSize) {
+      reset();
+    }
+  }
+
+  private int indexOf(int hash, int depth) {
+    long h = (hash + SEEDS[depth]) * SEEDS[depth];
+    h += h >>> 32;
+    return (int) h & counterMask;
+  }
+
+  private int counterAt(int index) {
+    return (int) ((table[index >>> 4] >>> ((index & 15) << 2)) & 0xFL);
+  }
+
+  private boolean incrementAt(int index) {
+    int shift = (index & 15) << 2;
+    long word = table[index >>> 4];
+    if (((word >>> shift) & 0xFL) == 0xFL) {
+      return false;
+    }
+    table[index >>> 4] = word + (1L << shift);
+    return true;
+  }
+
+  private void reset() {
+    for (int i = 0; i < table.length; i++) {
+      table[i] = (table[i] >>> 1) & RESET_MASK;
+    }
+    additions /= 2;
+  }
+
+  private static int spread(int hash) {
+    int h = hash * 0x9e3779b9;
+    return h ^ (h >>> 16);
+  }
+}
@@ -0,0 +1,35 @@
+package com.example.cars.component;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A batch of cache invalidations published by one node to its peers.
+ * Keys are grouped by the name of the cache they belong to; a key invalidated several times
+ * before the batch was sent appears only once.
+ *
+ * @param origin      the id of the node that published the batch
+ * @param keysByCache the invalidated keys of every cache, by cache name
+ */
+public record InvalidationBatch(String origin, Map<String, Set<Object>> keysByCache) {
+
+  /**
+   * Creates a batch holding an immutable copy of the given keys.
+   */
+  public InvalidationBatch {
+    Map<String, Set<Object>> copy = new LinkedHashMap<>();
+    keysByCache.forEach((cache, keys) ->
+        copy.put(cache, Collections.unmodifiableSet(new LinkedHashSet<>(keys))));
+    keysByCache = Collections.unmodifiableMap(copy);
+  }
+
+  /**
+   * Returns the number of keys in the batch across all caches.
+   */
+  public int size() {
+    return keysByCache.values().stream().mapToInt(Set::size).sum();
+  }
+}
@@ -0,0 +1,177 @@
+package com.example.cars.component;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Propagates explicit cache invalidations to the other nodes of a deployment.
+ * Every key removed from a registered cache is queued for the peers; queued keys are coalesced
+ * and sent as one batch once the batch is full or the flush interval has passed. Batches
+ * received from peers remove the keys from the local caches without publishing them again.
+ * Evictions and expiries stay local, since every node sizes its own caches.
+ * A peer batch means that the peer has written data, so an optional listener is notified of
+ * every peer batch before its keys are removed.
+ */
+public class InvalidationBus implements AutoCloseable {
+
+  private final String nodeId = UUID.randomUUID().toString();
+  private final InvalidationTransport transport;
+  private final int maxBatchSize;
+  private final Map<String, Cache<?, ?>> caches = new ConcurrentHashMap<>();
+  private final ReentrantLock lock = new ReentrantLock();
+  private final ScheduledExecutorService flusher;
+  private final LongAdder published = new LongAdder();
+  private final LongAdder received = new LongAdder();
+  private Map<String, Set<Object>> pending = new LinkedHashMap<>();
+  private int pendingSize;
+  private volatile Runnable peerWriteListener;
+
+  /**
+   * Creates a bus publishing through the given transport.
+   *
+   * @param transport     carries batches between the nodes
+   * @param maxBatchSize  the number of queued keys that triggers an immediate flush
+   * @param flushInterval how often queued keys are flushed, or zero to flush only on demand
+   */
+  public InvalidationBus(InvalidationTransport transport, int maxBatchSize,
+                         Duration flushInterval) {
+    if (maxBatchSize < 1) {
+      throw new IllegalArgumentException("maxBatchSize must be positive");
+    }
+    this.transport = transport;
+    this.maxBatchSize = maxBatchSize;
+    long intervalMillis = flushInterval == null ? 0 : flushInterval.toMillis();
+    if (intervalMillis > 0) {
+      flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "cache-invalidation-flusher");
+        thread.setDaemon(true);
+        return thread;
+      });
+      flusher.scheduleWithFixedDelay(this::flush, intervalMillis, intervalMillis,
+          TimeUnit.MILLISECONDS);
+    } else {
+      flusher = null;
+    }
+    transport.subscribe(this::receive);
+  }
+
+  /**
+   * Connects a cache to the bus under a name shared by all nodes.
+   * Keys removed from the cache are published to the peers from now on, and keys the peers
+   * publish under this name are removed from it.
+   *
+   * @param name  the name of the cache, identical on every node
+   * @param cache the cache to connect
+   */
+  public <K> void register(String name, Cache<K, ?> cache) {
+    if (caches.putIfAbsent(name, cache) != null) {
+      throw new IllegalStateException("Cache " + name + " is already registered");
+    }
+    cache.setInvalidationListener(key -> publish(name, key));
+  }
+
+  /**
+   * Sets the listener notified of every batch received from a peer, before its keys are
+   * removed from the local caches, typically to keep reads off lagging replicas.
+   *
+   * @param listener the listener to notify, or null to stop notifying
+   */
+  public void setPeerWriteListener(Runnable listener) {
+    this.peerWriteListener = listener;
+  }
+
+  /**
+   * Queues the invalidation of a key for the peers.
+   *
+   * @param name the name of the cache the key belongs to
+   * @param key  the invalidated key
+   */
+  public void publish(String name, Object key) {
+    boolean full;
+    lock.lock();
+    try {
+      if (pending.computeIfAbsent(name, cache -> new LinkedHashSet<>()).add(key)) {
+        pendingSize++;
+      }
+      full = pendingSize >= maxBatchSize;
+    } finally {
+      lock.unlock();
+    }
+    if (full) {
+      flush();
+    }
+  }
+
+  /**
+   * Sends the queued invalidations to the peers as one batch.
+   */
+  public void flush() {
+    Map<String, Set<Object>> batch;
+    lock.lock();
+    try {
+      if (pendingSize == 0) {
+        return;
+      }
+      batch = pending;
+      pending = new LinkedHashMap<>();
+      pendingSize = 0;
+    } finally {
+      lock.unlock();
+    }
+    InvalidationBatch message = new InvalidationBatch(nodeId, batch);
+    published.add(message.size());
+    transport.publish(message);
+  }
+
+  /**
+   * Returns the number of keys sent to the peers.
+   */
+  public long publishedCount() {
+    return published.sum();
+  }
+
+  /**
+   * Returns the number of keys received from the peers.
+   */
+  public long receivedCount() {
+    return received.sum();
+  }
+
+  /**
+   * Flushes the queued invalidations and stops the periodic flush.
+   */
+  @Override
+  public void close() {
+    if (flusher != null) {
+      flusher.shutdown();
+    }
+    flush();
+  }
+
+  private void receive(InvalidationBatch batch) {
+    if (nodeId.equals(batch.origin())) {
+      return;
+    }
+    Runnable listener = peerWriteListener;
+    if (listener != null) {
+      listener.run();
+    }
+    batch.keysByCache().forEach((name, keys) -> {
+      Cache<?, ?> cache = caches.get(name);
+      if (cache != null) {
+        keys.forEach(cache::invalidateLocally);
+        received.add(keys.size());
+      }
+    });
+  }
+}
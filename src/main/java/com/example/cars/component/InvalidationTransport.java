@@ -0,0 +1,25 @@
+package com.example.cars.component;
+
+import java.util.function.Consumer;
+
+/**
+ * Carries cache invalidation batches between the nodes of a deployment.
+ * Implementations deliver every published batch to the subscribers of all nodes, including the
+ * publishing node itself; the {@link InvalidationBus} ignores its own batches.
+ */
+public interface InvalidationTransport {
+
+  /**
+   * Sends the batch to every subscribed node.
+   *
+   * @param batch the batch to send
+   */
+  void publish(InvalidationBatch batch);
+
+  /**
+   * Registers a subscriber receiving the batches published by any node.
+   *
+   * @param subscriber the subscriber to register
+   */
+  void subscribe(Consumer<InvalidationBatch> subscriber);
+}
@@ -0,0 +1,222 @@
+package com.example.cars.component;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputFilter;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+
+/**
+ * A transport exchanging batches through a table of the database shared by all nodes.
+ * Every published batch is inserted as one row; every node polls the rows added since its
+ * last poll and delivers them to its subscribers, its own rows included. Row ids are assigned
+ * on insert but become visible on commit, so an id skipped by a poll is looked up again by
+ * later polls until it shows up or the gap timeout has passed. Rows older than the retention
+ * are deleted periodically. Only keys of the application's caches and the JDK types they are
+ * built from are accepted when a row is read back.
+ */
+public class JdbcInvalidationTransport implements InvalidationTransport, AutoCloseable {
+
+  private static final Logger log = LoggerFactory.getLogger(JdbcInvalidationTransport.class);
+  private static final String CREATE_TABLE = "CREATE TABLE IF NOT EXISTS cache_invalidation ("
+      + "id BIGINT AUTO_INCREMENT PRIMARY KEY, "
+      + "published_at TIMESTAMP(3) NOT NULL DEFAULT CURRENT_TIMESTAMP(3), "
+      + "batch MEDIUMBLOB NOT NULL)";
+  private static final String INSERT_BATCH =
+      "INSERT INTO cache_invalidation (batch) VALUES (?)";
+  private static final String SELECT_LAST_ID =
+      "SELECT COALESCE(MAX(id), 0) FROM cache_invalidation";
+  private static final String SELECT_AFTER =
+      "SELECT id, batch FROM cache_invalidation WHERE id > ? ORDER BY id LIMIT ?";
+  private static final String SELECT_BY_IDS =
+      "SELECT id, batch FROM cache_invalidation WHERE id IN (%s)";
+  private static final String DELETE_OLDER_THAN = "DELETE FROM cache_invalidation "
+      + "WHERE published_at < CURRENT_TIMESTAMP(3) - INTERVAL ? SECOND";
+  private static final int POLL_LIMIT = 500;
+  private static final int MAX_GAPS = 256;
+  private static final long GAP_TIMEOUT_NANOS = TimeUnit.SECONDS.toNanos(30);
+  private static final ObjectInputFilter KEY_FILTER = ObjectInputFilter.Config.createFilter(
+      "java.lang.*;java.util.*;com.example.cars.component.*;!*");
+  private static final RowMapper<Row> ROW_MAPPER =
+      (rs, rowNum) -> new Row(rs.getLong("id"), rs.getBytes("batch"));
+
+  private final JdbcTemplate jdbcTemplate;
+  private final List<Consumer<InvalidationBatch>> subscribers = new CopyOnWriteArrayList<>();
+  private final ReentrantLock lock = new ReentrantLock();
+  private final ScheduledExecutorService poller;
+  // ids skipped by a poll -> time the poller stops looking for them
+  private final Map<Long, Long> gaps = new LinkedHashMap<>();
+  private long lastId;
+
+  /**
+   * Creates the table if needed and starts polling from the rows published from now on.
+   *
+   * @param jdbcTemplate  template on the primary database, outside any replica routing
+   * @param pollInterval  how often new rows are polled, or zero to poll only on demand
+   * @param retention     how long rows are kept before they are deleted
+   */
+  public JdbcInvalidationTransport(JdbcTemplate jdbcTemplate, Duration pollInterval,
+                                   Duration retention) {
+    this.jdbcTemplate = jdbcTemplate;
+    jdbcTemplate.execute(CREATE_TABLE);
+    Long last = jdbcTemplate.queryForObject(SELECT_LAST_ID, Long.class);
+    this.lastId = last != null ? last : 0;
+    long intervalMillis = pollInterval == null ? 0 : pollInterval.toMillis();
+    if (intervalMillis > 0) {
+      poller = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "cache-invalidation-poller");
+        thread.setDaemon(true);
+        return thread;
+      });
+      poller.scheduleWithFixedDelay(this::poll, intervalMillis, intervalMillis,
+          TimeUnit.MILLISECONDS);
+      long retentionSeconds = Math.max(1, retention.toSeconds());
+      poller.scheduleWithFixedDelay(() -> purge(retentionSeconds), retentionSeconds,
+          retentionSeconds, TimeUnit.SECONDS);
+    } else {
+      poller = null;
+    }
+  }
+
+  @Override
+  public void publish(InvalidationBatch batch) {
+    try {
+      jdbcTemplate.update(INSERT_BATCH, (Object) encode(batch));
+    } catch (IOException | DataAccessException e) {
+      log.error("Не удалось опубликовать инвалидацию {} ключей кэша: {}", batch.size(),
+          e.getMessage());
+    }
+  }
+
+  @Override
+  public void subscribe(Consumer<InvalidationBatch> subscriber) {
+    subscribers.add(subscriber);
+  }
+
+  /**
+   * Delivers the rows committed since the last poll to the subscribers.
+   */
+  public void poll() {
+    lock.lock();
+    try {
+      if (!gaps.isEmpty()) {
+        pollGaps();
+      }
+      List<Row> rows;
+      do {
+        rows = jdbcTemplate.query(SELECT_AFTER, ROW_MAPPER, lastId, POLL_LIMIT);
+        for (Row row : rows) {
+          rememberGaps(row.id());
+          lastId = row.id();
+          deliver(row);
+        }
+      } while (rows.size() == POLL_LIMIT);
+    } catch (RuntimeException e) {
+      log.error("Не удалось получить инвалидации кэша: {}", e.getMessage());
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Stops polling.
+   */
+  @Override
+  public void close() {
+    if (poller != null) {
+      poller.shutdown();
+    }
+  }
+
+  static byte[] encode(InvalidationBatch batch) throws IOException {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+      out.writeUTF(batch.origin());
+      out.writeObject(new LinkedHashMap<>(batch.keysByCache()));
+    }
+    return bytes.toByteArray();
+  }
+
+  @SuppressWarnings("unchecked")
+  static InvalidationBatch decode(byte[] bytes) throws IOException, ClassNotFoundException {
+    try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes))) {
+      in.setObjectInputFilter(KEY_FILTER);
+      String origin = in.readUTF();
+      return new InvalidationBatch(origin, (Map<String, Set<Object>>) in.readObject());
+    }
+  }
+
+  private void pollGaps() {
+    String placeholders = String.join(", ", Collections.nCopies(gaps.size(), "?"));
+    List<Row> rows = jdbcTemplate.query(String.format(SELECT_BY_IDS, placeholders), ROW_MAPPER,
+        gaps.keySet().toArray());
+    for (Row row : rows) {
+      gaps.remove(row.id());
+      deliver(row);
+    }
+    long now = System.nanoTime();
+    gaps.values().removeIf(deadline -> now - deadline >= 0);
+  }
+
+  /**
+   * Remembers the ids between the last delivered row and the given one. Jumps larger than
+   * the gap limit come from the database skipping ids, not from uncommitted rows.
+   */
+  private void rememberGaps(long id) {
+    if (id - lastId > MAX_GAPS) {
+      return;
+    }
+    long deadline = System.nanoTime() + GAP_TIMEOUT_NANOS;
+    for (long gap = lastId + 1; gap < id; gap++) {
+      gaps.put(gap, deadline);
+    }
+    Iterator<Long> oldest = gaps.keySet().iterator();
+    while (gaps.size() > MAX_GAPS) {
+      oldest.next();
+      oldest.remove();
+    }
+  }
+
+  private void deliver(Row row) {
+    InvalidationBatch batch;
+    try {
+      batch = decode(row.batch());
+    } catch (IOException | ClassNotFoundException e) {
+      log.error("Не удалось прочитать инвалидацию кэша {}: {}", row.id(), e.getMessage());
+      return;
+    }
+    for (Consumer<InvalidationBatch> subscriber : subscribers) {
+      subscriber.accept(batch);
+    }
+  }
+
+  private void purge(long retentionSeconds) {
+    try {
+      jdbcTemplate.update(DELETE_OLDER_THAN, retentionSeconds);
+    } catch (DataAccessException e) {
+      log.error("Не удалось удалить устаревшие инвалидации кэша: {}", e.getMessage());
+    }
+  }
+
+  private record Row(long id, byte[] batch) {
+  }
+}
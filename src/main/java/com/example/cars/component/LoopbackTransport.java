@@ -0,0 +1,27 @@
+package com.example.cars.component;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * An in-process transport delivering batches synchronously to every subscriber.
+ * Several buses sharing one instance behave like the nodes of a deployment, which makes it
+ * suitable for tests and for single-node deployments.
+ */
+public class LoopbackTransport implements InvalidationTransport {
+
+  private final List<Consumer<InvalidationBatch>> subscribers = new CopyOnWriteArrayList<>();
+
+  @Override
+  public void publish(InvalidationBatch batch) {
+    for (Consumer<InvalidationBatch> subscriber : subscribers) {
+      subscriber.accept(batch);
+    }
+  }
+
+  @Override
+  public void subscribe(Consumer<InvalidationBatch> subscriber) {
+    subscribers.add(subscriber);
+  }
+}
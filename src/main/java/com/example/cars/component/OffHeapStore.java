@@ -0,0 +1,184 @@
+package com.example.cars.component;
+
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A byte store kept outside the Java heap in a ring of direct buffer slabs.
+ * Records are appended to the current slab; when it is full the writer moves on to the next
+ * slab and recycles it, dropping every record it held, so the oldest records are evicted first.
+ * Only the key index lives on the heap. Reads take no lock: every slab carries a generation that
+ * is bumped on recycling, and a read whose slab changed generation is reported as a miss.
+ * Writes take a single lock, but only for copying an already encoded record into a slab, so
+ * concurrent writes wait for each other briefly rather than losing their records. Every slab
+ * remembers the keys written to it, so recycling a slab only visits its own keys rather than the
+ * whole index.
+ *
+ * @param <K> the type of keys maintained by this store
+ */
+final class OffHeapStore<K> {
+
+  private static final int HEADER_BYTES = Integer.BYTES;
+  private static final int GENERATION_MASK = 0xFFFF;
+
+  private final ByteBuffer[] slabs;
+  private final List<List<K>> slabKeys;
+  private final AtomicIntegerArray generations;
+  private final AtomicLong allocatedBytes = new AtomicLong();
+  private final int slabBytes;
+  private final Map<K, Long> index = new ConcurrentHashMap<>();
+  private final ReentrantLock writeLock = new ReentrantLock();
+  private int currentSlab;
+  private int writeOffset;
+
+  /**
+   * Creates a store that holds up to the given number of bytes.
+   *
+   * @param capacityBytes the total size of all slabs
+   * @param slabBytes     the size of a single slab, which also bounds the size of a record
+   */
+  OffHeapStore(long capacityBytes, int slabBytes) {
+    if (slabBytes <= HEADER_BYTES || capacityBytes < 2L * slabBytes) {
+      throw new IllegalArgumentException("off-heap capacity must hold at least two slabs");
+    }
+    int slabCount = (int) Math.min(Short.MAX_VALUE, capacityBytes / slabBytes);
+    this.slabs = new ByteBuffer[slabCount];
+    this.slabKeys = new ArrayList<>(slabCount);
+    for (int i = 0; i < slabCount; i++) {
+      slabKeys.add(new ArrayList<>());
+    }
+    this.generations = new AtomicIntegerArray(slabCount);
+    this.slabBytes = slabBytes;
+  }
+
+  /**
+   * Stores a record under the key, replacing any previous record.
+   *
+   * @return false if the record is larger than a slab, in which case the key is no longer stored
+   */
+  boolean put(K key, byte[] record) {
+    if (record.length > slabBytes - HEADER_BYTES) {
+      index.remove(key);
+      return false;
+    }
+    int recordBytes = HEADER_BYTES + record.length;
+    writeLock.lock();
+    try {
+      if (slabs[currentSlab] == null) {
+        allocate(currentSlab);
+      } else if (writeOffset + recordBytes > slabBytes) {
+        currentSlab = (currentSlab + 1) % slabs.length;
+        recycle(currentSlab);
+      }
+      ByteBuffer slab = slabs[currentSlab];
+      slab.putInt(writeOffset, record.length);
+      slab.put(writeOffset + HEADER_BYTES, record);
+      index.put(key, location(currentSlab, generations.get(currentSlab), writeOffset));
+      slabKeys.get(currentSlab).add(key);
+      writeOffset += recordBytes;
+      return true;
+    } finally {
+      writeLock.unlock();
+    }
+  }
+
+  /**
+   * Returns a copy of the record stored under the key, or null if there is none.
+   */
+  byte[] get(Object key) {
+    Long location = index.get(key);
+    if (location == null) {
+      return null;
+    }
+    int slabIndex = (int) (location >>> 48);
+    int generation = (int) (location >>> 32) & GENERATION_MASK;
+    int offset = (int) location.longValue();
+    if (!isCurrent(slabIndex, generation)) {
+      index.remove(key, location);
+      return null;
+    }
+    ByteBuffer slab = slabs[slabIndex];
+    int length = slab.getInt(offset);
+    if (length < 0 || length > slabBytes - offset - HEADER_BYTES) {
+      return null;
+    }
+    byte[] record = new byte[length];
+    slab.get(offset + HEADER_BYTES, record);
+    // The copy above is plain reads; keep them from moving past the generation check below.
+    VarHandle.acquireFence();
+    return isCurrent(slabIndex, generation) ? record : null;
+  }
+
+  void remove(Object key) {
+    index.remove(key);
+  }
+
+  /**
+   * Drops every record. Slabs stay allocated and are reused by later writes.
+   */
+  void clear() {
+    writeLock.lock();
+    try {
+      index.clear();
+      for (int i = 0; i < slabs.length; i++) {
+        generations.incrementAndGet(i);
+        slabKeys.get(i).clear();
+      }
+      currentSlab = 0;
+      writeOffset = 0;
+    } finally {
+      writeLock.unlock();
+    }
+  }
+
+  int size() {
+    return index.size();
+  }
+
+  /**
+   * Returns the number of bytes currently allocated outside the heap.
+   */
+  long allocatedBytes() {
+    return allocatedBytes.get();
+  }
+
+  /**
+   * Starts writing a slab again. Its generation is bumped first, so concurrent reads of its old
+   * records miss, and then only the keys written to it are dropped from the index, unless they
+   * have been written again elsewhere since.
+   */
+  private void recycle(int slabIndex) {
+    generations.incrementAndGet(slabIndex);
+    List<K> keys = slabKeys.get(slabIndex);
+    for (K key : keys) {
+      index.computeIfPresent(key,
+          (k, location) -> (int) (location >>> 48) == slabIndex ? null : location);
+    }
+    keys.clear();
+    if (slabs[slabIndex] == null) {
+      allocate(slabIndex);
+    }
+    writeOffset = 0;
+  }
+
+  private void allocate(int slabIndex) {
+    slabs[slabIndex] = ByteBuffer.allocateDirect(slabBytes);
+    allocatedBytes.addAndGet(slabBytes);
+  }
+
+  private boolean isCurrent(int slabIndex, int generation) {
+    return (generations.get(slabIndex) & GENERATION_MASK) == generation;
+  }
+
+  private static long location(int slabIndex, int generation, int offset) {
+    return ((long) slabIndex << 48) | ((long) (generation & GENERATION_MASK) << 32)
+        | (offset & 0xFFFFFFFFL);
+  }
+}
@@ -0,0 +1,88 @@
+package com.example.cars.component;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import org.springframework.dao.OptimisticLockingFailureException;
+
+/**
+ * Runs read-modify-write operations on versioned entities and repeats them when a concurrent
+ * update wins the race. Every attempt has to read the entity again and re-apply its change;
+ * attempts are spaced by an exponential backoff with full jitter so that competing updaters
+ * do not collide again, and the conflict is given up after a fixed number of attempts.
+ */
+public class OptimisticRetryExecutor {
+
+  /**
+   * An operation that may fail because its entity was changed concurrently.
+   *
+   * @param <T> the result of the operation
+   * @param <E> the checked exception the operation may throw
+   */
+  @FunctionalInterface
+  public interface Attempt<T, E extends Exception> {
+    /**
+     * Runs the operation once.
+     *
+     * @param attempt the number of the attempt, starting at 0
+     * @return the result of the operation
+     * @throws E if the operation fails for a reason other than a conflict
+     */
+    T run(int attempt) throws E;
+  }
+
+  private final int maxAttempts;
+  private final long initialBackoffNanos;
+  private final long maxBackoffNanos;
+
+  /**
+   * Creates an executor with the given retry bounds.
+   *
+   * @param maxAttempts    the number of attempts before a conflict is reported
+   * @param initialBackoff the longest pause before the first retry
+   * @param maxBackoff     the longest pause before any retry
+   */
+  public OptimisticRetryExecutor(int maxAttempts, Duration initialBackoff, Duration maxBackoff) {
+    if (maxAttempts < 1) {
+      throw new IllegalArgumentException("maxAttempts must be positive");
+    }
+    this.maxAttempts = maxAttempts;
+    this.initialBackoffNanos = initialBackoff.toNanos();
+    this.maxBackoffNanos = maxBackoff.toNanos();
+  }
+
+  /**
+   * Runs the operation, repeating it while it fails with an optimistic locking conflict.
+   *
+   * @param attempt the operation
+   * @return the result of the first attempt that did not conflict
+   * @throws E                                if an attempt fails for another reason
+   * @throws OptimisticLockingFailureException if every attempt conflicted, or the thread was
+   *                                           interrupted while waiting for a retry
+   */
+  public <T, E extends Exception> T execute(Attempt<T, E> attempt) throws E {
+    for (int i = 0; ; i++) {
+      try {
+        return attempt.run(i);
+      } catch (OptimisticLockingFailureException e) {
+        if (i + 1 >= maxAttempts || !pause(i)) {
+          throw e;
+        }
+      }
+    }
+  }
+
+  private boolean pause(int attempt) {
+    long bound = Math.min(maxBackoffNanos, initialBackoffNanos << Math.min(attempt, 20));
+    if (bound <= 0) {
+      return true;
+    }
+    try {
+      TimeUnit.NANOSECONDS.sleep(ThreadLocalRandom.current().nextLong(bound + 1));
+      return true;
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      return false;
+    }
+  }
+}
@@ -0,0 +1,57 @@
+package com.example.cars.component;
+
+import java.nio.ByteBuffer;
+import java.util.Base64;
+
+/**
+ * Encodes the position of a keyset-paginated listing as an opaque continuation token.
+ * A token carries the id of the last row of the previous page; the next page starts right
+ * after it, so the database seeks the index instead of skipping rows. Clients must not
+ * interpret tokens, which leaves room to change their content later.
+ */
+public final class PageToken {
+
+  private static final byte VERSION = 1;
+  private static final int LENGTH = 1 + Long.BYTES;
+
+  private PageToken() {
+  }
+
+  /**
+   * Returns the token for the page following the row with the given id.
+   *
+   * @param lastId the id of the last row of the current page
+   * @return the continuation token
+   */
+  public static String encode(long lastId) {
+    ByteBuffer buffer = ByteBuffer.allocate(LENGTH).put(VERSION).putLong(lastId);
+    return Base64.getUrlEncoder().withoutPadding().encodeToString(buffer.array());
+  }
+
+  /**
+   * Returns the id after which the page identified by the token starts.
+   *
+   * @param token the continuation token, or {@code null} or blank for the first page
+   * @return the id of the last row of the previous page, or 0 for the first page
+   * @throws IllegalArgumentException if the token was not produced by {@link #encode}
+   */
+  public static long decode(String token) {
+    if (token == null || token.isBlank()) {
+      return 0;
+    }
+    byte[] bytes;
+    try {
+      bytes = Base64.getUrlDecoder().decode(token);
+    } catch (IllegalArgumentException e) {
+      throw new IllegalArgumentException("Invalid page token", e);
+    }
+    if (bytes.length != LENGTH || bytes[0] != VERSION) {
+      throw new IllegalArgumentException("Invalid page token");
+    }
+    long lastId = ByteBuffer.wrap(bytes, 1, Long.BYTES).getLong();
+    if (lastId < 0) {
+      throw new IllegalArgumentException("Invalid page token");
+    }
+    return lastId;
+  }
+}
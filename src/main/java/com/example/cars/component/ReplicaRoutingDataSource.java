@@ -0,0 +1,161 @@
+package com.example.cars.component;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+import javax.sql.DataSource;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Routes read-only transactions to a replica and everything else to the primary database.
+ * Transactions named {@link #BULK_TRANSACTION} write to the primary through a pool of their
+ * own, so that long imports cannot take all connections away from request threads.
+ * Replicas apply the primary's changes with a delay, so for the configured maximum lag after a
+ * write committed through this node, read-only transactions stay on the primary as well and
+ * readers see their own writes. Writes of other nodes are reported through
+ * {@link #recordWrite()}, so that reads following their cache invalidations do not load stale
+ * data from the replica. Lookups validating a write, such as uniqueness and existence checks,
+ * run in read-only repository transactions of their own; they are pinned to the primary with
+ * {@link #readFromPrimary(Supplier)} so that they never see a lagging replica.
+ * The routing key is taken when a connection is opened; wrap this data source in a
+ * {@link org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy} so that the
+ * connection of a transaction is opened after its read-only flag has been set.
+ */
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource {
+
+  /**
+   * The database a connection is taken from.
+   */
+  public enum Role {
+    PRIMARY,
+    REPLICA,
+    BULK
+  }
+
+  /**
+   * The name of transactions writing through the bulk pool.
+   */
+  public static final String BULK_TRANSACTION = "bulk";
+
+  private static final ThreadLocal<Boolean> PRIMARY_READS = new ThreadLocal<>();
+
+  private final long maxLagNanos;
+  private final LongSupplier ticker;
+  private final LongAdder primaryReads = new LongAdder();
+  private final LongAdder replicaReads = new LongAdder();
+  private volatile long lastWriteNanos;
+
+  /**
+   * Creates a data source routing between the primary and the replica.
+   *
+   * @param primary the database receiving writes
+   * @param replica the database serving reads
+   * @param maxLag  how long reads stay on the primary after a write
+   */
+  public ReplicaRoutingDataSource(DataSource primary, DataSource replica, Duration maxLag) {
+    this(primary, replica, primary, maxLag);
+  }
+
+  /**
+   * Creates a data source routing between the primary, the replica and the bulk pool.
+   *
+   * @param primary the database receiving writes
+   * @param replica the database serving reads
+   * @param bulk    the pool of the primary database used by bulk transactions
+   * @param maxLag  how long reads stay on the primary after a write
+   */
+  public ReplicaRoutingDataSource(DataSource primary, DataSource replica, DataSource bulk,
+                                  Duration maxLag) {
+    this(primary, replica, bulk, maxLag, System::nanoTime);
+  }
+
+  ReplicaRoutingDataSource(DataSource primary, DataSource replica, Duration maxLag,
+                           LongSupplier ticker) {
+    this(primary, replica, primary, maxLag, ticker);
+  }
+
+  ReplicaRoutingDataSource(DataSource primary, DataSource replica, DataSource bulk,
+                           Duration maxLag, LongSupplier ticker) {
+    this.maxLagNanos = maxLag.toNanos();
+    this.ticker = ticker;
+    this.lastWriteNanos = ticker.getAsLong() - maxLagNanos;
+    setTargetDataSources(Map.of(Role.PRIMARY, primary, Role.REPLICA, replica, Role.BULK, bulk));
+    setDefaultTargetDataSource(primary);
+    afterPropertiesSet();
+  }
+
+  /**
+   * Runs reads on the primary database even in read-only transactions, which would otherwise
+   * use the replica. Only connections opened by the current thread while the reads run are
+   * affected.
+   *
+   * @param reads the reads to run
+   * @return the result of the reads
+   */
+  public static <T> T readFromPrimary(Supplier<T> reads) {
+    if (PRIMARY_READS.get() != null) {
+      return reads.get();
+    }
+    PRIMARY_READS.set(Boolean.TRUE);
+    try {
+      return reads.get();
+    } finally {
+      PRIMARY_READS.remove();
+    }
+  }
+
+  /**
+   * Returns whether the current thread runs reads pinned to the primary.
+   */
+  public static boolean isReadingFromPrimary() {
+    return PRIMARY_READS.get() != null;
+  }
+
+  /**
+   * Keeps read-only transactions on the primary for the maximum lag, as a write committed
+   * through this node does.
+   */
+  public void recordWrite() {
+    lastWriteNanos = ticker.getAsLong();
+  }
+
+  /**
+   * Returns the number of read-only transactions served by the primary.
+   */
+  public long primaryReadCount() {
+    return primaryReads.sum();
+  }
+
+  /**
+   * Returns the number of read-only transactions served by the replica.
+   */
+  public long replicaReadCount() {
+    return replicaReads.sum();
+  }
+
+  @Override
+  protected Object determineCurrentLookupKey() {
+    if (TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+      if (isReadingFromPrimary() || ticker.getAsLong() - lastWriteNanos < maxLagNanos) {
+        primaryReads.increment();
+        return Role.PRIMARY;
+      }
+      replicaReads.increment();
+      return Role.REPLICA;
+    }
+    if (TransactionSynchronizationManager.isSynchronizationActive()) {
+      TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+        @Override
+        public void afterCommit() {
+          recordWrite();
+        }
+      });
+    }
+    return BULK_TRANSACTION.equals(TransactionSynchronizationManager.getCurrentTransactionName())
+        ? Role.BULK : Role.PRIMARY;
+  }
+}
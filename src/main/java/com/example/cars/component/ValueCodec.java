@@ -0,0 +1,31 @@
+package com.example.cars.component;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * Converts cached values to and from bytes so they can be kept outside the Java heap.
+ *
+ * @param <V> the type of values converted by this codec
+ */
+public interface ValueCodec<V> {
+
+  /**
+   * Writes the value to the output.
+   *
+   * @param value the value to write
+   * @param out   the output to write to
+   * @throws IOException if the output cannot be written
+   */
+  void write(V value, DataOutput out) throws IOException;
+
+  /**
+   * Reads a value previously written by {@link #write}.
+   *
+   * @param in the input to read from
+   * @return the value read
+   * @throws IOException if the input is truncated or malformed
+   */
+  V read(DataInput in) throws IOException;
+}
@@ -0,0 +1,79 @@
+package com.example.cars.component;
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Hands out one canonical instance per key for values that are equal.
+ * Canonical instances are only weakly referenced: once no cache entry or caller holds on to an
+ * instance anymore, the garbage collector reclaims it and its slot is purged on a later call.
+ * Interning a value that differs from the current canonical instance replaces it, so a changed
+ * object becomes canonical as soon as it is loaded.
+ *
+ * @param <K> the type of keys identifying values
+ * @param <V> the type of interned values, which must be immutable
+ */
+public final class WeakInterner<K, V> {
+
+  private final Map<K, ValueReference<K, V>> instances = new ConcurrentHashMap<>();
+  private final ReferenceQueue<V> collected = new ReferenceQueue<>();
+
+  /**
+   * Returns the canonical instance equal to the value, making the value canonical if there is
+   * none yet.
+   *
+   * @param key   the key identifying the value
+   * @param value the value to intern
+   * @return the canonical instance for the key, or the value itself if the key is null
+   */
+  public V intern(K key, V value) {
+    purge();
+    if (key == null || value == null) {
+      return value;
+    }
+    while (true) {
+      ValueReference<K, V> current = instances.get(key);
+      V canonical = current == null ? null : current.get();
+      if (value.equals(canonical)) {
+        return canonical;
+      }
+      ValueReference<K, V> replacement = new ValueReference<>(key, value, collected);
+      boolean installed = current == null
+          ? instances.putIfAbsent(key, replacement) == null
+          : instances.replace(key, current, replacement);
+      if (installed) {
+        return value;
+      }
+    }
+  }
+
+  /**
+   * Returns the number of keys currently tracked, including instances not yet purged.
+   */
+  public int size() {
+    purge();
+    return instances.size();
+  }
+
+  @SuppressWarnings("unchecked")
+  private void purge() {
+    ValueReference<K, V> reference;
+    while ((reference = (ValueReference<K, V>) collected.poll()) != null) {
+      instances.remove(reference.key, reference);
+    }
+  }
+
+  /**
+   * A weak reference remembering the key it is stored under.
+   */
+  private static final class ValueReference<K, V> extends WeakReference<V> {
+    private final K key;
+
+    ValueReference(K key, V value, ReferenceQueue<V> queue) {
+      super(value, queue);
+      this.key = key;
+    }
+  }
+}
@@ -0,0 +1,210 @@
+package com.example.cars.config;
+
+import com.example.cars.component.Cache;
+import com.example.cars.component.CacheSettings;
+import com.example.cars.component.CarCacheKey;
+import com.example.cars.component.CarDtoCodec;
+import com.example.cars.component.DealerCacheKey;
+import com.example.cars.component.InvalidationBus;
+import com.example.cars.component.InvalidationTransport;
+import com.example.cars.component.JdbcInvalidationTransport;
+import com.example.cars.component.LoopbackTransport;
+import com.example.cars.component.ReplicaRoutingDataSource;
+import com.example.cars.component.WeakInterner;
+import com.example.cars.dto.CarDto;
+import com.example.cars.dto.DealerDto;
+import java.time.Duration;
+import java.util.concurrent.Executor;
+import javax.sql.DataSource;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+/**
+ * Configuration class for the application caches.
+ */
+@Configuration
+public class CacheConfiguration {
+
+  /**
+   * Creates the transport carrying cache invalidations between the nodes through a table of
+   * the primary database, which every node shares. This is the default transport.
+   *
+   * @param primaryDataSource pool of the primary database.
+   * @param pollInterval      how often every node polls the invalidations of its peers.
+   * @param retention         how long published invalidations are kept.
+   * @return transport of cache invalidations.
+   */
+  @Bean
+  @ConditionalOnProperty(prefix = "cache.invalidation", name = "transport", havingValue = "jdbc",
+      matchIfMissing = true)
+  public InvalidationTransport invalidationTransport(
+      @Qualifier("primaryDataSource") DataSource primaryDataSource,
+      @Value("${cache.invalidation.poll-interval:100ms}") Duration pollInterval,
+      @Value("${cache.invalidation.retention:10m}") Duration retention) {
+    return new JdbcInvalidationTransport(new JdbcTemplate(primaryDataSource), pollInterval,
+        retention);
+  }
+
+  /**
+   * Creates the transport reaching only the caches of this node, for deployments running a
+   * single node.
+   *
+   * @return transport of cache invalidations.
+   */
+  @Bean
+  @ConditionalOnProperty(prefix = "cache.invalidation", name = "transport",
+      havingValue = "loopback")
+  public InvalidationTransport loopbackInvalidationTransport() {
+    return new LoopbackTransport();
+  }
+
+  /**
+   * Creates the bus propagating cache invalidations to the other nodes. Invalidations
+   * received from a peer keep reads on the primary database for the replica lag, as local
+   * writes do.
+   *
+   * @param invalidationTransport transport of cache invalidations.
+   * @param routingDataSource     data source routing between primary and replica.
+   * @param batchSize             number of queued invalidations sent right away.
+   * @param flushInterval         longest time an invalidation stays queued.
+   * @return bus of cache invalidations.
+   */
+  @Bean
+  public InvalidationBus invalidationBus(
+      InvalidationTransport invalidationTransport,
+      ReplicaRoutingDataSource routingDataSource,
+      @Value("${cache.invalidation.batch-size:256}") int batchSize,
+      @Value("${cache.invalidation.flush-interval:50ms}") Duration flushInterval) {
+    InvalidationBus bus = new InvalidationBus(invalidationTransport, batchSize, flushInterval);
+    bus.setPeerWriteListener(routingDataSource::recordWrite);
+    return bus;
+  }
+
+  /**
+   * Creates the registry of canonical car DTOs shared by all cache entries of the same car.
+   *
+   * @return interner of car DTOs by car id.
+   */
+  @Bean
+  public WeakInterner<Long, CarDto> carDtoInterner() {
+    return new WeakInterner<>();
+  }
+
+  /**
+   * Binds the car cache settings from the {@code cache.cars.*} properties.
+   *
+   * @return settings of the car cache.
+   */
+  @Bean
+  @ConfigurationProperties(prefix = "cache.cars")
+  public CacheSettings carCacheSettings() {
+    return new CacheSettings();
+  }
+
+  /**
+   * Creates the executor reloading car cache entries ahead of their expiry.
+   * Refreshes that do not fit into its queue are skipped; the entry is then reloaded on a later
+   * read or when it expires.
+   *
+   * @return executor of background cache refreshes.
+   */
+  @Bean
+  public ThreadPoolTaskExecutor carCacheRefreshExecutor() {
+    ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+    executor.setCorePoolSize(2);
+    executor.setMaxPoolSize(2);
+    executor.setQueueCapacity(256);
+    executor.setThreadNamePrefix("car-cache-refresh-");
+    return executor;
+  }
+
+  /**
+   * Creates the cache used by the car service.
+   *
+   * @param carCacheSettings         settings of the car cache.
+   * @param carCacheRefreshExecutor  executor of background cache refreshes.
+   * @param invalidationBus          bus propagating invalidations to the other nodes.
+   * @param carDtoInterner           registry of canonical car DTOs.
+   * @return cache of cars keyed by id, make and dealer/year.
+   */
+  @Bean
+  public Cache<CarCacheKey, CarDto> carCache(
+      @Qualifier("carCacheSettings") CacheSettings carCacheSettings,
+      Executor carCacheRefreshExecutor, InvalidationBus invalidationBus,
+      WeakInterner<Long, CarDto> carDtoInterner) {
+    Cache<CarCacheKey, CarDto> cache = new Cache<>(carCacheSettings,
+        CacheConfiguration::estimateCarSize, new CarDtoCodec(carDtoInterner),
+        carCacheRefreshExecutor);
+    invalidationBus.register("cars", cache);
+    return cache;
+  }
+
+  /**
+   * Binds the dealer cache settings from the {@code cache.dealers.*} properties.
+   *
+   * @return settings of the dealer cache.
+   */
+  @Bean
+  @ConfigurationProperties(prefix = "cache.dealers")
+  public CacheSettings dealerCacheSettings() {
+    return new CacheSettings();
+  }
+
+  /**
+   * Creates the cache used by the dealer service.
+   *
+   * @param dealerCacheSettings settings of the dealer cache.
+   * @param invalidationBus     bus propagating invalidations to the other nodes.
+   * @return cache of dealers keyed by id and name, weighing every dealer by its cars.
+   */
+  @Bean
+  public Cache<DealerCacheKey, DealerDto> dealerCache(
+      @Qualifier("dealerCacheSettings") CacheSettings dealerCacheSettings,
+      InvalidationBus invalidationBus) {
+    Cache<DealerCacheKey, DealerDto> cache = new Cache<>(dealerCacheSettings,
+        CacheConfiguration::estimateDealerSize, CacheConfiguration::weighDealer);
+    invalidationBus.register("dealers", cache);
+    return cache;
+  }
+
+  /**
+   * Weighs a dealer DTO as the dealer itself plus every car it embeds, so that the maximum
+   * weight of the dealer cache bounds the number of car DTOs it holds.
+   */
+  private static long weighDealer(DealerDto dealer) {
+    return 1 + (dealer.getCarsList() != null ? dealer.getCarsList().size() : 0);
+  }
+
+  /**
+   * Estimates the heap retained by a dealer DTO together with the DTOs of its cars.
+   */
+  private static long estimateDealerSize(DealerDto dealer) {
+    long size = 32 + 16 + estimateStringSize(dealer.getName())
+        + estimateStringSize(dealer.getAddress());
+    if (dealer.getCarsList() != null) {
+      for (CarDto car : dealer.getCarsList()) {
+        size += 8 + estimateCarSize(car);
+      }
+    }
+    return size;
+  }
+
+  /**
+   * Estimates the heap retained by a car DTO: the object itself, its boxed numbers and its
+   * strings with their backing arrays.
+   */
+  private static long estimateCarSize(CarDto car) {
+    return 32 + 2 * 16 + estimateStringSize(car.getMake()) + estimateStringSize(car.getModel())
+        + estimateStringSize(car.getVin());
+  }
+
+  private static long estimateStringSize(String value) {
+    return value == null ? 0 : 40 + value.length();
+  }
+}
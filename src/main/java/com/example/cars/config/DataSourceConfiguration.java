@@ -0,0 +1,135 @@
+package com.example.cars.config;
+
+import com.example.cars.component.ConnectionPoolMetrics;
+import com.example.cars.component.OptimisticRetryExecutor;
+import com.example.cars.component.ReplicaRoutingDataSource;
+import com.zaxxer.hikari.HikariDataSource;
+import java.time.Duration;
+import javax.sql.DataSource;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+/**
+ * Configuration class for the database connections.
+ * Writes go to the primary database; read-only transactions go to the replica when one is
+ * configured under {@code datasource.replica.*}, and bulk imports write through a pool of
+ * their own. Every pool is sized by its own properties and reports its metrics to
+ * {@link ConnectionPoolMetrics}.
+ */
+@Configuration
+public class DataSourceConfiguration {
+
+  /**
+   * Creates the collector of the connection pool metrics.
+   *
+   * @return metrics of the connection pools.
+   */
+  @Bean
+  public ConnectionPoolMetrics connectionPoolMetrics() {
+    return new ConnectionPoolMetrics();
+  }
+
+  /**
+   * Creates the connection pool of the primary database from the
+   * {@code datasource.primary.*} properties.
+   *
+   * @param connectionPoolMetrics collector of the pool metrics.
+   * @return pool of the primary database.
+   */
+  @Bean
+  @ConfigurationProperties(prefix = "datasource.primary")
+  public HikariDataSource primaryDataSource(ConnectionPoolMetrics connectionPoolMetrics) {
+    return createPool(connectionPoolMetrics);
+  }
+
+  /**
+   * Creates the connection pool of the primary database used by bulk imports from the
+   * {@code datasource.bulk.*} properties.
+   *
+   * @param connectionPoolMetrics collector of the pool metrics.
+   * @return pool of bulk imports.
+   */
+  @Bean
+  @ConfigurationProperties(prefix = "datasource.bulk")
+  public HikariDataSource bulkDataSource(ConnectionPoolMetrics connectionPoolMetrics) {
+    return createPool(connectionPoolMetrics);
+  }
+
+  /**
+   * Creates the connection pool of the read replica from the {@code datasource.replica.*}
+   * properties, if a replica is configured.
+   *
+   * @param connectionPoolMetrics collector of the pool metrics.
+   * @return pool of the read replica.
+   */
+  @Bean
+  @ConfigurationProperties(prefix = "datasource.replica")
+  @ConditionalOnProperty(prefix = "datasource.replica", name = "jdbc-url")
+  public HikariDataSource replicaDataSource(ConnectionPoolMetrics connectionPoolMetrics) {
+    return createPool(connectionPoolMetrics);
+  }
+
+  /**
+   * Creates the data source routing read-only transactions to the replica. Without a replica
+   * every connection comes from the primary.
+   *
+   * @param primaryDataSource pool of the primary database.
+   * @param replicaDataSource pool of the read replica, if configured.
+   * @param bulkDataSource    pool of bulk imports.
+   * @param maxLag            how long reads stay on the primary after a write.
+   * @return routing data source.
+   */
+  @Bean
+  public ReplicaRoutingDataSource routingDataSource(
+      @Qualifier("primaryDataSource") DataSource primaryDataSource,
+      @Qualifier("replicaDataSource") ObjectProvider<DataSource> replicaDataSource,
+      @Qualifier("bulkDataSource") DataSource bulkDataSource,
+      @Value("${datasource.routing.replica-max-lag:2s}") Duration maxLag) {
+    return new ReplicaRoutingDataSource(primaryDataSource,
+        replicaDataSource.getIfAvailable(() -> primaryDataSource), bulkDataSource, maxLag);
+  }
+
+  /**
+   * Creates the data source used by the application. Connections are opened on their first
+   * statement, once the transaction has decided whether it is read-only.
+   *
+   * @param routingDataSource data source routing between primary and replica.
+   * @return data source of the application.
+   */
+  @Bean
+  @Primary
+  public DataSource dataSource(ReplicaRoutingDataSource routingDataSource) {
+    return new LazyConnectionDataSourceProxy(routingDataSource);
+  }
+
+  /**
+   * Creates the executor repeating updates of versioned entities that lost a race against a
+   * concurrent update.
+   *
+   * @param maxAttempts    number of attempts before a conflict is reported.
+   * @param initialBackoff longest pause before the first retry.
+   * @param maxBackoff     longest pause before any retry.
+   * @return executor of conflicting updates.
+   */
+  @Bean
+  public OptimisticRetryExecutor optimisticRetryExecutor(
+      @Value("${datasource.retry.max-attempts:5}") int maxAttempts,
+      @Value("${datasource.retry.initial-backoff:10ms}") Duration initialBackoff,
+      @Value("${datasource.retry.max-backoff:200ms}") Duration maxBackoff) {
+    return new OptimisticRetryExecutor(maxAttempts, initialBackoff, maxBackoff);
+  }
+
+  private static HikariDataSource createPool(ConnectionPoolMetrics connectionPoolMetrics) {
+    HikariDataSource pool = DataSourceBuilder.create().type(HikariDataSource.class).build();
+    pool.setMetricsTrackerFactory(connectionPoolMetrics.trackerFactory(pool));
+    return pool;
+  }
+}
@@ -1,25 +1,39 @@
 package com.example.cars.controller;
 
+import com.example.cars.component.CarFeedReader;
+import com.example.cars.dto.CacheStatsDto;
 import com.example.cars.dto.CarDto;
+import com.example.cars.dto.CarImportChunkDto;
+import com.example.cars.dto.CarPageDto;
 import com.example.cars.entity.Car;
 import com.example.cars.exceptions.CarAlreadyExistException;
 import com.example.cars.exceptions.CarNotFoundException;
+import com.example.cars.exceptions.ConcurrentUpdateException;
 import com.example.cars.exceptions.DealerNotFoundException;
 import com.example.cars.exceptions.ExceptionHandler;
 import com.example.cars.service.CarService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
 
 import com.example.cars.service.RequestCounterService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
@@ -37,12 +51,19 @@ public class CarController {
   private final RequestCounterService requestCounterService;
   private static final Logger log = LoggerFactory.getLogger(CarController.class);
   final ExceptionHandler exceptionHandler;
+  private final ObjectMapper objectMapper;
+  private static final String NDJSON_VALUE = "application/x-ndjson";
+  private static final String CSV_VALUE = "text/csv";
+  private static final int MAX_IMPORT_CHUNK_SIZE = 10_000;
+  private static final int MAX_PAGE_SIZE = 500;
 
   @Autowired
-  public CarController(CarService carService, ExceptionHandler exceptionHandler, RequestCounterService requestCounterService) {
+  public CarController(CarService carService, ExceptionHandler exceptionHandler,
+                       RequestCounterService requestCounterService, ObjectMapper objectMapper) {
     this.carService = carService;
     this.exceptionHandler = exceptionHandler;
     this.requestCounterService = requestCounterService;
+    this.objectMapper = objectMapper;
   }
 
   /**
@@ -91,6 +112,44 @@ public class CarController {
     }
   }
 
+  /**
+   * Handles a POST request for importing a feed of cars in NDJSON or CSV format.
+   * The feed is parsed while it is being received and stored in chunks, so its size is not
+   * limited by memory.
+   *
+   * @param dealerId    the ID of the dealer the cars belong to
+   * @param contentType {@code application/x-ndjson} or {@code text/csv}
+   * @param chunkSize   the number of records stored together
+   * @param body        the feed
+   * @return ResponseEntity with the outcome of every chunk
+   */
+  @PostMapping(value = "/import", consumes = {NDJSON_VALUE, CSV_VALUE})
+  public ResponseEntity<List<CarImportChunkDto>> importCars(
+      @RequestParam Long dealerId,
+      @RequestHeader(HttpHeaders.CONTENT_TYPE) String contentType,
+      @RequestParam(defaultValue = "1000") int chunkSize,
+      InputStream body) {
+    log.info("post endpoint. Importing cars for dealer with ID: {}", dealerId);
+    requestCounterService.increment();
+    if (chunkSize < 1 || chunkSize > MAX_IMPORT_CHUNK_SIZE) {
+      throw new HttpClientErrorException(HttpStatus.BAD_REQUEST,
+          "chunkSize must be between 1 and " + MAX_IMPORT_CHUNK_SIZE);
+    }
+    CarFeedReader.Format format = MediaType.parseMediaType(contentType)
+        .isCompatibleWith(MediaType.parseMediaType(CSV_VALUE))
+        ? CarFeedReader.Format.CSV : CarFeedReader.Format.NDJSON;
+    try (CarFeedReader feed = new CarFeedReader(
+        new InputStreamReader(body, StandardCharsets.UTF_8), format, objectMapper)) {
+      List<CarImportChunkDto> results = carService.importCars(dealerId, feed, chunkSize);
+      log.info("Cars were imported in {} chunks", results.size());
+      return ResponseEntity.ok(results);
+    } catch (DealerNotFoundException | IOException e) {
+      throw new HttpClientErrorException(HttpStatus.BAD_REQUEST, e.getMessage());
+    } catch (Exception e) {
+      throw new HttpClientErrorException(HttpStatus.INTERNAL_SERVER_ERROR, e.getMessage());
+    }
+  }
+
   /**
      * Endpoint to retrieve a car by its ID.
      *
@@ -150,6 +209,8 @@ public class CarController {
       return ResponseEntity.ok("Car updated");
     } catch (CarNotFoundException e) {
       throw new HttpClientErrorException(HttpStatus.BAD_REQUEST, e.getMessage());
+    } catch (OptimisticLockingFailureException e) {
+      throw new ConcurrentUpdateException(e.getMessage());
     } catch (Exception e) {
       throw new HttpClientErrorException(HttpStatus.INTERNAL_SERVER_ERROR, e.getMessage());
     }
@@ -173,6 +234,58 @@ public class CarController {
       return ResponseEntity.ok("Car transferred to another dealer");
     } catch (CarNotFoundException | DealerNotFoundException e) {
       throw new HttpClientErrorException(HttpStatus.BAD_REQUEST, e.getMessage());
+    } catch (OptimisticLockingFailureException e) {
+      throw new ConcurrentUpdateException(e.getMessage());
+    } catch (Exception e) {
+      throw new HttpClientErrorException(HttpStatus.INTERNAL_SERVER_ERROR, e.getMessage());
+    }
+  }
+
+  /**
+   * Endpoint for transferring a list of cars to another dealer in one transaction.
+   *
+   * @param dealerId the ID of the dealer receiving the cars
+   * @param carIds   the IDs of the cars to transfer
+   * @return ResponseEntity with the number of transferred cars, or an error response
+   */
+  @PutMapping("/transfer/bulk")
+  public ResponseEntity<String> transferCarsToDealer(@RequestParam Long dealerId,
+                                                     @RequestBody List<Long> carIds) {
+    log.info("put endpoint. Transferring {} cars to dealer with ID {}", carIds.size(), dealerId);
+    requestCounterService.increment();
+    try {
+      int count = carService.transferCarsToDealer(carIds, dealerId);
+      log.info("{} cars transferred successfully", count);
+      return ResponseEntity.ok(count + " cars transferred to another dealer");
+    } catch (DealerNotFoundException e) {
+      throw new HttpClientErrorException(HttpStatus.BAD_REQUEST, e.getMessage());
+    } catch (Exception e) {
+      throw new HttpClientErrorException(HttpStatus.INTERNAL_SERVER_ERROR, e.getMessage());
+    }
+  }
+
+  /**
+   * Endpoint for transferring the cars of one dealer, optionally only those of one year, to
+   * another dealer in one transaction.
+   *
+   * @param fromDealerId the ID of the dealer giving the cars away
+   * @param year         the production year of the cars to transfer, omitted for all cars
+   * @param dealerId     the ID of the dealer receiving the cars
+   * @return ResponseEntity with the number of transferred cars, or an error response
+   */
+  @PutMapping("/transfer/byDealer")
+  public ResponseEntity<String> transferDealerCars(@RequestParam Long fromDealerId,
+                                                   @RequestParam(required = false) Long year,
+                                                   @RequestParam Long dealerId) {
+    log.info("put endpoint. Transferring cars of dealer with ID {} to dealer with ID {}",
+        fromDealerId, dealerId);
+    requestCounterService.increment();
+    try {
+      int count = carService.transferDealerCars(fromDealerId, year, dealerId);
+      log.info("{} cars transferred successfully", count);
+      return ResponseEntity.ok(count + " cars transferred to another dealer");
+    } catch (DealerNotFoundException e) {
+      throw new HttpClientErrorException(HttpStatus.BAD_REQUEST, e.getMessage());
     } catch (Exception e) {
       throw new HttpClientErrorException(HttpStatus.INTERNAL_SERVER_ERROR, e.getMessage());
     }
@@ -200,6 +313,48 @@ public class CarController {
     }
   }
 
+  /**
+   * Endpoint for deleting a list of cars.
+   *
+   * @param carIds the IDs of the cars to delete
+   * @return ResponseEntity with the number of deleted cars, or an error response
+   */
+  @DeleteMapping("/bulk")
+  public ResponseEntity<String> deleteCars(@RequestBody List<Long> carIds) {
+    log.info("delete endpoint. Deleting {} cars", carIds.size());
+    requestCounterService.increment();
+    try {
+      int count = carService.deleteCars(carIds);
+      log.info("{} cars deleted successfully", count);
+      return ResponseEntity.ok(count + " cars deleted");
+    } catch (Exception e) {
+      throw new HttpClientErrorException(HttpStatus.INTERNAL_SERVER_ERROR, e.getMessage());
+    }
+  }
+
+  /**
+   * Endpoint for deleting the cars of a dealer, optionally only those of one year.
+   *
+   * @param dealerId the ID of the dealer
+   * @param year     the production year of the cars to delete, omitted for all cars
+   * @return ResponseEntity with the number of deleted cars, or an error response
+   */
+  @DeleteMapping("/byDealer")
+  public ResponseEntity<String> deleteDealerCars(@RequestParam Long dealerId,
+                                                 @RequestParam(required = false) Long year) {
+    log.info("delete endpoint. Deleting cars of dealer with ID: {}", dealerId);
+    requestCounterService.increment();
+    try {
+      int count = carService.deleteDealerCars(dealerId, year);
+      log.info("{} cars deleted successfully", count);
+      return ResponseEntity.ok(count + " cars deleted");
+    } catch (DealerNotFoundException e) {
+      throw new HttpClientErrorException(HttpStatus.BAD_REQUEST, e.getMessage());
+    } catch (Exception e) {
+      throw new HttpClientErrorException(HttpStatus.INTERNAL_SERVER_ERROR, e.getMessage());
+    }
+  }
+
   /**
      * Endpoint for retrieving car information by dealerID and year.
      *
@@ -223,10 +378,73 @@ public class CarController {
     }
   }
 
+  /**
+   * Endpoint for paging through all cars in id order.
+   *
+   * @param pageToken the token returned with the previous page, omitted for the first page
+   * @param size      the maximum number of cars on the page
+   * @return ResponseEntity containing the cars of the page and the token of the next one
+   */
+  @GetMapping("/page")
+  public ResponseEntity<CarPageDto> getCarsPage(@RequestParam(required = false) String pageToken,
+                                                @RequestParam(defaultValue = "50") int size) {
+    log.info("get endpoint. Getting page of cars");
+    requestCounterService.increment();
+    checkPageSize(size);
+    try {
+      return ResponseEntity.ok(carService.getCarsPage(pageToken, size));
+    } catch (IllegalArgumentException e) {
+      throw new HttpClientErrorException(HttpStatus.BAD_REQUEST, e.getMessage());
+    } catch (Exception e) {
+      throw new HttpClientErrorException(HttpStatus.INTERNAL_SERVER_ERROR, e.getMessage());
+    }
+  }
+
+  /**
+   * Endpoint for paging through the cars of a dealer in id order.
+   *
+   * @param dealerId  the ID of the dealer
+   * @param pageToken the token returned with the previous page, omitted for the first page
+   * @param size      the maximum number of cars on the page
+   * @return ResponseEntity containing the cars of the page and the token of the next one
+   */
+  @GetMapping("/byDealer")
+  public ResponseEntity<CarPageDto> getDealerCarsPage(@RequestParam Long dealerId,
+                                                      @RequestParam(required = false) String pageToken,
+                                                      @RequestParam(defaultValue = "50") int size) {
+    log.info("get endpoint. Getting page of cars for dealer with ID: {}", dealerId);
+    requestCounterService.increment();
+    checkPageSize(size);
+    try {
+      return ResponseEntity.ok(carService.getDealerCarsPage(dealerId, pageToken, size));
+    } catch (DealerNotFoundException | IllegalArgumentException e) {
+      throw new HttpClientErrorException(HttpStatus.BAD_REQUEST, e.getMessage());
+    } catch (Exception e) {
+      throw new HttpClientErrorException(HttpStatus.INTERNAL_SERVER_ERROR, e.getMessage());
+    }
+  }
+
   @GetMapping("/counter")
   public ResponseEntity<Integer> getCounter()
   {
     int count = requestCounterService.getCount();
     return ResponseEntity.ok(count);
   }
+
+  /**
+   * Endpoint for retrieving the statistics of the car cache.
+   *
+   * @return ResponseEntity containing hit, miss, load and eviction counters and the cache size.
+   */
+  @GetMapping("/cache/stats")
+  public ResponseEntity<CacheStatsDto> getCacheStats() {
+    return ResponseEntity.ok(carService.getCacheStats());
+  }
+
+  private static void checkPageSize(int size) {
+    if (size < 1 || size > MAX_PAGE_SIZE) {
+      throw new HttpClientErrorException(HttpStatus.BAD_REQUEST,
+          "size must be between 1 and " + MAX_PAGE_SIZE);
+    }
+  }
 }
@@ -1,14 +1,20 @@
 package com.example.cars.controller;
 
+import com.example.cars.dto.CacheStatsDto;
 import com.example.cars.dto.DealerDto;
+import com.example.cars.dto.DealerInventoryDto;
 import com.example.cars.entity.Dealer;
+import com.example.cars.exceptions.ConcurrentUpdateException;
 import com.example.cars.exceptions.DealerAlreadyExistException;
 import com.example.cars.exceptions.DealerNotFoundException;
 import com.example.cars.exceptions.ExceptionHandler;
 import com.example.cars.service.DealerService;
+import com.example.cars.service.InventoryService;
+import java.util.List;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
@@ -28,13 +34,16 @@ import org.springframework.web.client.HttpClientErrorException;
 @RequestMapping("/dealers")
 public class DealerController {
   private final DealerService dealerService;
+  private final InventoryService inventoryService;
   private static final Logger log = LoggerFactory.getLogger(DealerController.class);
 
   final ExceptionHandler exceptionHandler;
 
   @Autowired
-    public DealerController(DealerService dealerService, ExceptionHandler exceptionHandler) {
+    public DealerController(DealerService dealerService, InventoryService inventoryService,
+                            ExceptionHandler exceptionHandler) {
     this.dealerService = dealerService;
+    this.inventoryService = inventoryService;
     this.exceptionHandler = exceptionHandler;
   }
 
@@ -114,6 +123,8 @@ public class DealerController {
       return ResponseEntity.ok("Dealer updated");
     } catch (DealerNotFoundException e) {
       throw new HttpClientErrorException(HttpStatus.BAD_REQUEST, e.getMessage());
+    } catch (OptimisticLockingFailureException e) {
+      throw new ConcurrentUpdateException(e.getMessage());
     } catch (Exception e) {
       throw new HttpClientErrorException(HttpStatus.INTERNAL_SERVER_ERROR, e.getMessage());
     }
@@ -138,4 +149,35 @@ public class DealerController {
       throw new HttpClientErrorException(HttpStatus.INTERNAL_SERVER_ERROR, e.getMessage());
     }
   }
-}
\ No newline at end of file
+
+  /**
+  * REST endpoint to retrieve the statistics of the dealer cache.
+  *
+  * @return ResponseEntity containing hit, miss, load and eviction counters and the cache size.
+  */
+  @GetMapping("/cache/stats")
+  public ResponseEntity<CacheStatsDto> getCacheStats() {
+    return ResponseEntity.ok(dealerService.getCacheStats());
+  }
+
+  /**
+  * REST endpoint to retrieve the inventory counts of a dealer.
+  *
+  * @param id The ID of the dealer.
+  * @return ResponseEntity with the number of cars of the dealer in total, by make and by year.
+  */
+  @GetMapping("/inventory")
+  public ResponseEntity<DealerInventoryDto> getDealerInventory(@RequestParam Long id) {
+    return ResponseEntity.ok(inventoryService.getDealerInventory(id));
+  }
+
+  /**
+  * REST endpoint to retrieve the inventory counts of every dealer with cars.
+  *
+  * @return ResponseEntity with the number of cars of every dealer in total, by make and by year.
+  */
+  @GetMapping("/inventory/all")
+  public ResponseEntity<List<DealerInventoryDto>> getInventories() {
+    return ResponseEntity.ok(inventoryService.getInventories());
+  }
+}
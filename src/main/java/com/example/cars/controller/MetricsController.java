@@ -0,0 +1,35 @@
+package com.example.cars.controller;
+
+import com.example.cars.component.ConnectionPoolMetrics;
+import com.example.cars.dto.PoolStatsDto;
+import java.util.List;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * Controller class exposing the operational metrics of the application.
+ */
+@RestController
+@RequestMapping("/metrics")
+public class MetricsController {
+
+  private final ConnectionPoolMetrics connectionPoolMetrics;
+
+  @Autowired
+  public MetricsController(ConnectionPoolMetrics connectionPoolMetrics) {
+    this.connectionPoolMetrics = connectionPoolMetrics;
+  }
+
+  /**
+   * Endpoint for retrieving the statistics of the database connection pools.
+   *
+   * @return ResponseEntity containing the gauges, acquisition times and leaks of every pool.
+   */
+  @GetMapping("/pools")
+  public ResponseEntity<List<PoolStatsDto>> getPoolStats() {
+    return ResponseEntity.ok(connectionPoolMetrics.snapshot());
+  }
+}
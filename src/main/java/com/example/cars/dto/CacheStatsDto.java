@@ -0,0 +1,134 @@
+package com.example.cars.dto;
+
+/**
+ * Data Transfer Object (DTO) representing a snapshot of cache statistics.
+ * Used to expose how a cache behaves so that it can be sized and monitored.
+ */
+public class CacheStatsDto {
+
+  private final long hitCount;
+  private final long missCount;
+  private final long loadSuccessCount;
+  private final long loadFailureCount;
+  private final long totalLoadTimeNanos;
+  private final long evictionCount;
+  private final long refreshCount;
+  private final long size;
+  private final long weight;
+  private final long estimatedBytes;
+  private final long offHeapHitCount;
+  private final long offHeapSize;
+  private final long offHeapBytes;
+  private final long offHeapDroppedWriteCount;
+
+  /**
+   * Creates a statistics snapshot.
+   *
+   * @param hitCount                 number of lookups that found a cached value
+   * @param missCount                number of lookups that found nothing
+   * @param loadSuccessCount         number of values loaded after a miss
+   * @param loadFailureCount         number of loads that failed
+   * @param totalLoadTimeNanos       total time spent loading values, in nanoseconds
+   * @param evictionCount            number of entries evicted, expired or rejected by admission
+   * @param refreshCount             number of background reloads started ahead of expiry
+   * @param size                     current number of entries
+   * @param weight                   current total weight of the entries
+   * @param estimatedBytes           estimated heap retained by the entries, in bytes
+   * @param offHeapHitCount          number of heap misses served from the off-heap tier
+   * @param offHeapSize              current number of entries in the off-heap tier
+   * @param offHeapBytes             memory allocated outside the heap, in bytes
+   * @param offHeapDroppedWriteCount number of writes the off-heap tier could not store
+   */
+  public CacheStatsDto(long hitCount, long missCount, long loadSuccessCount,
+                       long loadFailureCount, long totalLoadTimeNanos, long evictionCount,
+                       long refreshCount, long size, long weight, long estimatedBytes,
+                       long offHeapHitCount, long offHeapSize, long offHeapBytes,
+                       long offHeapDroppedWriteCount) {
+    this.hitCount = hitCount;
+    this.missCount = missCount;
+    this.loadSuccessCount = loadSuccessCount;
+    this.loadFailureCount = loadFailureCount;
+    this.totalLoadTimeNanos = totalLoadTimeNanos;
+    this.evictionCount = evictionCount;
+    this.refreshCount = refreshCount;
+    this.size = size;
+    this.weight = weight;
+    this.estimatedBytes = estimatedBytes;
+    this.offHeapHitCount = offHeapHitCount;
+    this.offHeapSize = offHeapSize;
+    this.offHeapBytes = offHeapBytes;
+    this.offHeapDroppedWriteCount = offHeapDroppedWriteCount;
+  }
+
+  public long getHitCount() {
+    return hitCount;
+  }
+
+  public long getMissCount() {
+    return missCount;
+  }
+
+  /**
+   * Returns the share of lookups that found a cached value, or 1 if there were no lookups.
+   */
+  public double getHitRate() {
+    long requests = hitCount + missCount;
+    return requests == 0 ? 1.0 : (double) hitCount / requests;
+  }
+
+  public long getLoadSuccessCount() {
+    return loadSuccessCount;
+  }
+
+  public long getLoadFailureCount() {
+    return loadFailureCount;
+  }
+
+  public long getTotalLoadTimeNanos() {
+    return totalLoadTimeNanos;
+  }
+
+  /**
+   * Returns the average time spent per load, in nanoseconds.
+   */
+  public double getAverageLoadPenaltyNanos() {
+    long loads = loadSuccessCount + loadFailureCount;
+    return loads == 0 ? 0.0 : (double) totalLoadTimeNanos / loads;
+  }
+
+  public long getEvictionCount() {
+    return evictionCount;
+  }
+
+  public long getRefreshCount() {
+    return refreshCount;
+  }
+
+  public long getSize() {
+    return size;
+  }
+
+  public long getWeight() {
+    return weight;
+  }
+
+  public long getEstimatedBytes() {
+    return estimatedBytes;
+  }
+
+  public long getOffHeapHitCount() {
+    return offHeapHitCount;
+  }
+
+  public long getOffHeapSize() {
+    return offHeapSize;
+  }
+
+  public long getOffHeapBytes() {
+    return offHeapBytes;
+  }
+
+  public long getOffHeapDroppedWriteCount() {
+    return offHeapDroppedWriteCount;
+  }
+}
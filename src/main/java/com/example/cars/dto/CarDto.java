@@ -7,13 +7,15 @@ import java.util.Objects;
 /**
  * Data Transfer Object (DTO) representing information about a car.
  * Used to transfer simplified car data between layers of the application.
+ * Instances are immutable, so a single instance can be cached under several keys and handed
+ * out to any number of callers without defensive copies.
  */
-public class CarDto {
-  private Long id;
-  private Long year;
-  private String make;
-  private String model;
-  private String vin;
+public final class CarDto {
+  private final Long id;
+  private final Long year;
+  private final String make;
+  private final String model;
+  private final String vin;
 
   /**
      * Converts a Car entity to a CarDto model.
@@ -22,13 +24,29 @@ public class CarDto {
      * @return CarDto model with simplified car information.
      */
   public static CarDto toCar(Car entity) {
-    CarDto carModel = new CarDto();
-    carModel.setId(entity.getId());
-    carModel.setModel(entity.getModel());
-    carModel.setMake(entity.getMake());
-    carModel.setYear(entity.getYear());
-    carModel.setVin(entity.getVin());
-    return carModel;
+    return new CarDto(entity.getId(), entity.getYear(), entity.getMake(), entity.getModel(),
+        entity.getVin());
+  }
+
+  /**
+     * Creates a car DTO.
+     *
+     * @param id    the ID of the car
+     * @param year  the production year of the car
+     * @param make  the make of the car
+     * @param model the model of the car
+     * @param vin   the VIN of the car
+     */
+  public CarDto(Long id, Long year, String make, String model, String vin) {
+    this.id = id;
+    this.year = year;
+    this.make = make;
+    this.model = model;
+    this.vin = vin;
+  }
+
+  public CarDto(Long id, String vin) {
+    this(id, null, null, null, vin);
   }
 
   @Override
@@ -51,23 +69,10 @@ public class CarDto {
     return Objects.hash(make, model, year, vin);
   }
 
-  public void setId(Long id) {
-    this.id = id;
-  }
-
   public Long getId() {
     return id;
   }
 
-  public CarDto() {
-        //the default constructor is provided to ensure Java Bean compatibility.
-  }
-
-  public CarDto(Long id, String vin) {
-    this.id = id;
-    this.vin = vin;
-  }
-
   public Long getYear() {
     return year;
   }
@@ -76,10 +81,6 @@ public class CarDto {
     return make;
   }
 
-  public void setVin(String vin) {
-    this.vin = vin;
-  }
-
   public String getVin() {
     return vin;
   }
@@ -87,16 +88,4 @@ public class CarDto {
   public String getModel() {
     return model;
   }
-
-  public void setYear(Long year) {
-    this.year = year;
-  }
-
-  public void setMake(String make) {
-    this.make = make;
-  }
-
-  public void setModel(String model) {
-    this.model = model;
-  }
 }
@@ -0,0 +1,75 @@
+package com.example.cars.dto;
+
+import java.util.List;
+
+/**
+ * Data Transfer Object (DTO) representing the outcome of one chunk of a streaming car import.
+ */
+public class CarImportChunkDto {
+
+  private final int chunk;
+  private final long firstLine;
+  private final long lastLine;
+  private final int insertedCount;
+  private final int duplicateCount;
+  private final int rejectedCount;
+  private final int failedCount;
+  private final List<String> errors;
+
+  /**
+   * Creates the outcome of an import chunk.
+   *
+   * @param chunk          the number of the chunk, starting at 1
+   * @param firstLine      the first feed line of the chunk
+   * @param lastLine       the last feed line of the chunk
+   * @param insertedCount  number of cars added to the database
+   * @param duplicateCount number of cars skipped because their VIN already exists
+   * @param rejectedCount  number of records that were malformed or failed validation
+   * @param failedCount    number of valid cars the database did not accept
+   * @param errors         the first reasons records of the chunk were rejected
+   */
+  public CarImportChunkDto(int chunk, long firstLine, long lastLine, int insertedCount,
+                           int duplicateCount, int rejectedCount, int failedCount,
+                           List<String> errors) {
+    this.chunk = chunk;
+    this.firstLine = firstLine;
+    this.lastLine = lastLine;
+    this.insertedCount = insertedCount;
+    this.duplicateCount = duplicateCount;
+    this.rejectedCount = rejectedCount;
+    this.failedCount = failedCount;
+    this.errors = List.copyOf(errors);
+  }
+
+  public int getChunk() {
+    return chunk;
+  }
+
+  public long getFirstLine() {
+    return firstLine;
+  }
+
+  public long getLastLine() {
+    return lastLine;
+  }
+
+  public int getInsertedCount() {
+    return insertedCount;
+  }
+
+  public int getDuplicateCount() {
+    return duplicateCount;
+  }
+
+  public int getRejectedCount() {
+    return rejectedCount;
+  }
+
+  public int getFailedCount() {
+    return failedCount;
+  }
+
+  public List<String> getErrors() {
+    return errors;
+  }
+}
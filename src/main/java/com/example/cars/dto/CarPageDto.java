@@ -0,0 +1,31 @@
+package com.example.cars.dto;
+
+import java.util.List;
+
+/**
+ * Data Transfer Object (DTO) representing one page of a car listing ordered by id.
+ */
+public class CarPageDto {
+
+  private final List<CarDto> cars;
+  private final String nextPageToken;
+
+  /**
+   * Creates a page of cars.
+   *
+   * @param cars          the cars of the page
+   * @param nextPageToken the token of the next page, or {@code null} if this is the last page
+   */
+  public CarPageDto(List<CarDto> cars, String nextPageToken) {
+    this.cars = List.copyOf(cars);
+    this.nextPageToken = nextPageToken;
+  }
+
+  public List<CarDto> getCars() {
+    return cars;
+  }
+
+  public String getNextPageToken() {
+    return nextPageToken;
+  }
+}
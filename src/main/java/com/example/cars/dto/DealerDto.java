@@ -1,19 +1,20 @@
 package com.example.cars.dto;
 
 import com.example.cars.entity.Dealer;
-import java.util.ArrayList;
 import java.util.List;
+import java.util.function.UnaryOperator;
 
 /**
  * Data Transfer Object (DTO) representing information about a dealer.
  * Used to transfer simplified dealer data between layers of the application.
+ * Instances and their car lists are immutable, so they can be cached and shared safely.
  */
-public class DealerDto {
+public final class DealerDto {
 
-  private Long id;
-  private String name;
-  private String address;
-  private List<CarDto> carsList = new ArrayList<>();
+  private final Long id;
+  private final String name;
+  private final String address;
+  private final List<CarDto> carsList;
 
   /**
      * Converts a Dealer entity to a DealerDto model.
@@ -22,21 +23,36 @@ public class DealerDto {
      * @return DealerDto model with simplified dealer information.
      */
   public static DealerDto toDealer(Dealer entity) {
-    DealerDto dealerModel = new DealerDto();
-    dealerModel.setName(entity.getName());
-    dealerModel.setAddress(entity.getAddress());
-    if (entity.getCarList() != null) {
-      dealerModel.setCarsList(entity.getCarList().stream().map(CarDto::toCar).toList());
-    }
-    return dealerModel;
+    return toDealer(entity, UnaryOperator.identity());
   }
 
-  public DealerDto() {
-        //Default constructor that doesn't require any specific actions when creating an object.
+  /**
+     * Converts a Dealer entity to a DealerDto model, passing every car DTO through the given
+     * operator so that shared instances can be used in place of fresh copies.
+     *
+     * @param entity    The Dealer entity to convert.
+     * @param canonical Returns the instance to use for a freshly converted car DTO.
+     * @return DealerDto model with simplified dealer information.
+     */
+  public static DealerDto toDealer(Dealer entity, UnaryOperator<CarDto> canonical) {
+    List<CarDto> cars = entity.getCarList() == null ? List.of()
+        : entity.getCarList().stream().map(CarDto::toCar).map(canonical).toList();
+    return new DealerDto(entity.getId(), entity.getName(), entity.getAddress(), cars);
   }
 
-  public void setId(Long id) {
+  /**
+     * Creates a dealer DTO.
+     *
+     * @param id       the ID of the dealer
+     * @param name     the name of the dealer
+     * @param address  the address of the dealer
+     * @param carsList the cars of the dealer, copied into an immutable list
+     */
+  public DealerDto(Long id, String name, String address, List<CarDto> carsList) {
     this.id = id;
+    this.name = name;
+    this.address = address;
+    this.carsList = carsList == null ? List.of() : List.copyOf(carsList);
   }
 
   public Long getId() {
@@ -51,19 +67,7 @@ public class DealerDto {
     return address;
   }
 
-  public void setName(String name) {
-    this.name = name;
-  }
-
-  public void setAddress(String address) {
-    this.address = address;
-  }
-
   public List<CarDto> getCarsList() {
     return carsList;
   }
-
-  public void setCarsList(List<CarDto> carsList) {
-    this.carsList = carsList;
-  }
-}
\ No newline at end of file
+}
@@ -0,0 +1,49 @@
+package com.example.cars.dto;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Data Transfer Object (DTO) representing the inventory counts of a dealer.
+ * Used by dashboards instead of fetching and counting the whole car list of the dealer.
+ */
+public class DealerInventoryDto {
+
+  private final Long dealerId;
+  private final long carCount;
+  private final Map<String, Long> countsByMake;
+  private final Map<Long, Long> countsByYear;
+
+  /**
+   * Creates an inventory snapshot.
+   *
+   * @param dealerId     the ID of the dealer
+   * @param carCount     the number of cars of the dealer
+   * @param countsByMake the number of cars per make
+   * @param countsByYear the number of cars per production year
+   */
+  public DealerInventoryDto(Long dealerId, long carCount, Map<String, Long> countsByMake,
+                            Map<Long, Long> countsByYear) {
+    this.dealerId = dealerId;
+    this.carCount = carCount;
+    this.countsByMake = Collections.unmodifiableMap(new TreeMap<>(countsByMake));
+    this.countsByYear = Collections.unmodifiableMap(new TreeMap<>(countsByYear));
+  }
+
+  public Long getDealerId() {
+    return dealerId;
+  }
+
+  public long getCarCount() {
+    return carCount;
+  }
+
+  public Map<String, Long> getCountsByMake() {
+    return countsByMake;
+  }
+
+  public Map<Long, Long> getCountsByYear() {
+    return countsByYear;
+  }
+}
@@ -0,0 +1,110 @@
+package com.example.cars.dto;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Data Transfer Object (DTO) representing a snapshot of a database connection pool.
+ * Used to correlate request latency with pool saturation.
+ */
+public class PoolStatsDto {
+
+  private final String poolName;
+  private final int activeConnections;
+  private final int idleConnections;
+  private final int pendingThreads;
+  private final int maxConnections;
+  private final long acquisitionCount;
+  private final long totalAcquisitionNanos;
+  private final long maxAcquisitionNanos;
+  private final long acquisitionTimeoutCount;
+  private final Map<String, Long> acquisitionHistogram;
+  private final long leakCount;
+
+  /**
+   * Creates a pool snapshot.
+   *
+   * @param poolName                the name of the pool
+   * @param activeConnections       connections currently borrowed
+   * @param idleConnections         connections ready to be borrowed
+   * @param pendingThreads          threads waiting for a connection
+   * @param maxConnections          the maximum size of the pool
+   * @param acquisitionCount        number of connections borrowed
+   * @param totalAcquisitionNanos   total time spent waiting for connections, in nanoseconds
+   * @param maxAcquisitionNanos     longest wait for a connection, in nanoseconds
+   * @param acquisitionTimeoutCount number of waits that gave up without a connection
+   * @param acquisitionHistogram    number of borrows per wait-time bucket, by bucket label
+   * @param leakCount               number of connections currently held longer than the leak
+   *                                detection threshold
+   */
+  public PoolStatsDto(String poolName, int activeConnections, int idleConnections,
+                      int pendingThreads, int maxConnections, long acquisitionCount,
+                      long totalAcquisitionNanos, long maxAcquisitionNanos,
+                      long acquisitionTimeoutCount, Map<String, Long> acquisitionHistogram,
+                      long leakCount) {
+    this.poolName = poolName;
+    this.activeConnections = activeConnections;
+    this.idleConnections = idleConnections;
+    this.pendingThreads = pendingThreads;
+    this.maxConnections = maxConnections;
+    this.acquisitionCount = acquisitionCount;
+    this.totalAcquisitionNanos = totalAcquisitionNanos;
+    this.maxAcquisitionNanos = maxAcquisitionNanos;
+    this.acquisitionTimeoutCount = acquisitionTimeoutCount;
+    this.acquisitionHistogram =
+        Collections.unmodifiableMap(new LinkedHashMap<>(acquisitionHistogram));
+    this.leakCount = leakCount;
+  }
+
+  public String getPoolName() {
+    return poolName;
+  }
+
+  public int getActiveConnections() {
+    return activeConnections;
+  }
+
+  public int getIdleConnections() {
+    return idleConnections;
+  }
+
+  public int getPendingThreads() {
+    return pendingThreads;
+  }
+
+  public int getMaxConnections() {
+    return maxConnections;
+  }
+
+  public long getAcquisitionCount() {
+    return acquisitionCount;
+  }
+
+  public long getTotalAcquisitionNanos() {
+    return totalAcquisitionNanos;
+  }
+
+  /**
+   * Returns the average wait for a connection, in nanoseconds.
+   */
+  public double getAverageAcquisitionNanos() {
+    return acquisitionCount == 0 ? 0.0 : (double) totalAcquisitionNanos / acquisitionCount;
+  }
+
+  public long getMaxAcquisitionNanos() {
+    return maxAcquisitionNanos;
+  }
+
+  public long getAcquisitionTimeoutCount() {
+    return acquisitionTimeoutCount;
+  }
+
+  public Map<String, Long> getAcquisitionHistogram() {
+    return acquisitionHistogram;
+  }
+
+  public long getLeakCount() {
+    return leakCount;
+  }
+}
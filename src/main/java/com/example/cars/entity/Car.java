@@ -1,11 +1,15 @@
 package com.example.cars.entity;
 
+import com.fasterxml.jackson.annotation.JsonProperty;
+import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
+import jakarta.persistence.FetchType;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
+import jakarta.persistence.Version;
 
 /**
  * Represents a car entity with associated dealer information.
@@ -20,7 +24,12 @@ public class Car {
   private String model;
   private String vin;
 
-  @ManyToOne
+  @Version
+  @Column(columnDefinition = "bigint default 0 not null")
+  @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+  private Long version;
+
+  @ManyToOne(fetch = FetchType.LAZY)
   @JoinColumn(name = "dealer_id")
   private Dealer dealer;
 
@@ -73,6 +82,14 @@ public class Car {
     return vin;
   }
 
+  public Long getVersion() {
+    return version;
+  }
+
+  public void setVersion(Long version) {
+    this.version = version;
+  }
+
   public Dealer getDealer() {
     return dealer;
   }
@@ -1,12 +1,14 @@
 package com.example.cars.entity;
 
+import com.fasterxml.jackson.annotation.JsonProperty;
 import jakarta.persistence.CascadeType;
+import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
-import jakarta.persistence.FetchType;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
 import jakarta.persistence.OneToMany;
+import jakarta.persistence.Version;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -21,8 +23,12 @@ public class Dealer {
   private String name;
   private String address;
 
-  @OneToMany(fetch = FetchType.EAGER, mappedBy = "dealer",
-          cascade = CascadeType.ALL, orphanRemoval = true)
+  @Version
+  @Column(columnDefinition = "bigint default 0 not null")
+  @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+  private Long version;
+
+  @OneToMany(mappedBy = "dealer", cascade = CascadeType.ALL, orphanRemoval = true)
   private List<Car> carList = new ArrayList<>();
 
   public Dealer() {
@@ -54,6 +60,14 @@ public class Dealer {
     this.address = address;
   }
 
+  public Long getVersion() {
+    return version;
+  }
+
+  public void setVersion(Long version) {
+    this.version = version;
+  }
+
   public List<Car> getCarList() {
     return carList;
   }
@@ -0,0 +1,11 @@
+package com.example.cars.exceptions;
+
+/**
+ * Exception indicating that an update lost the race against a concurrent update of the same
+ * data, even after being retried. The client may repeat the request.
+ */
+public class ConcurrentUpdateException extends RuntimeException {
+  public ConcurrentUpdateException(String message) {
+    super(message);
+  }
+}
@@ -0,0 +1,7 @@
+package com.example.cars.exceptions;
+
+public class DealerDeletionException extends Exception {
+    public DealerDeletionException(String message) {
+        super(message);
+    }
+}
@@ -42,6 +42,19 @@ public class ExceptionHandler {
     return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("400: Bad Request");
   }
 
+  /**
+     * Handles exceptions of type ConcurrentUpdateException.
+     *
+     * @param ex The ConcurrentUpdateException instance.
+     * @return ResponseEntity with a status of CONFLICT, so that the client may repeat the request.
+     */
+  @org.springframework.web.bind.annotation.ExceptionHandler({ConcurrentUpdateException.class})
+  public ResponseEntity<Object> handleConcurrentUpdateException(ConcurrentUpdateException ex,
+                                                                WebRequest request) {
+    log.warn("409 Conflict - {}", ex.getMessage());
+    return ResponseEntity.status(HttpStatus.CONFLICT).body("409: Conflict");
+  }
+
   @org.springframework.web.bind.annotation.ExceptionHandler({NoResourceFoundException.class})
   public ResponseEntity<Object> handleNoResourceFoundException(NoResourceFoundException ex,
                                                                  WebRequest request) {
@@ -0,0 +1,382 @@
+package com.example.cars.repository;
+
+import com.example.cars.component.ReplicaRoutingDataSource;
+import com.example.cars.entity.Car;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Repository changing large numbers of cars with JDBC batches and set-based statements.
+ * {@code Car} ids are generated by the database, which keeps Hibernate from batching its
+ * inserts; this repository bypasses the persistence context and sends each chunk of cars as a
+ * single JDBC batch committed in its own transaction. Transfers update the dealer of all
+ * matching cars with one statement per chunk instead of loading and saving every entity, and
+ * deletes remove cars chunk by chunk without loading them.
+ * The transactions are named {@link ReplicaRoutingDataSource#BULK_TRANSACTION}, so they run on
+ * the bulk connection pool.
+ */
+@Repository
+public class CarBatchRepository {
+
+  private static final Logger log = LoggerFactory.getLogger(CarBatchRepository.class);
+  private static final String INSERT_CAR =
+      "INSERT INTO car (year, make, model, vin, dealer_id, version) VALUES (?, ?, ?, ?, ?, 0)";
+  private static final String NOT_AT_DEALER = " AND (dealer_id IS NULL OR dealer_id <> ?)";
+  private static final String LOCK_CARS_BY_IDS =
+      "SELECT dealer_id, make, year FROM car WHERE id IN (%s)" + NOT_AT_DEALER + " FOR UPDATE";
+  private static final String TRANSFER_CARS_BY_IDS =
+      "UPDATE car SET dealer_id = ?, version = version + 1 WHERE id IN (%s)" + NOT_AT_DEALER;
+  private static final String LOCK_DEALER_CARS =
+      "SELECT dealer_id, make, year FROM car WHERE dealer_id = ?";
+  private static final String TRANSFER_DEALER_CARS =
+      "UPDATE car SET dealer_id = ?, version = version + 1 WHERE dealer_id = ?";
+  private static final String LOCK_CARS_FOR_DELETE_BY_IDS =
+      "SELECT id, dealer_id, make, year FROM car WHERE id IN (%s) FOR UPDATE";
+  private static final String SELECT_DEALER_CARS =
+      "SELECT id, dealer_id, make, year FROM car WHERE dealer_id = ?";
+  private static final String LOCK_DEALER_CARS_FOR_DELETE = SELECT_DEALER_CARS;
+  private static final String DELETE_CARS_BY_IDS = "DELETE FROM car WHERE id IN (%s)";
+  private static final String ORDER_BY_ID_LIMIT = " ORDER BY id LIMIT ?";
+  private static final String COUNT_CARS_BY_GROUP =
+      "SELECT dealer_id, make, year, COUNT(*) AS cars FROM car GROUP BY dealer_id, make, year";
+  private static final String AND_YEAR = " AND year = ?";
+  private static final String FOR_UPDATE = " FOR UPDATE";
+
+  /**
+   * The dealer, make and year shared by a group of cars; the dealer and the year identify the
+   * cached car list the cars appear in.
+   *
+   * @param dealerId the ID of the dealer, or null for cars without a dealer
+   * @param make     the make of the cars
+   * @param year     the production year of the cars
+   */
+  public record CarGroup(Long dealerId, String make, Long year) {
+  }
+
+  private final JdbcTemplate jdbcTemplate;
+  private final TransactionTemplate transactionTemplate;
+  private final TransactionTemplate readOnlyTransactionTemplate;
+  private final int batchSize;
+
+  /**
+   * Repository inserting cars with JDBC batches.
+   *
+   * @param batchSize the number of cars inserted and committed together
+   */
+  @Autowired
+  public CarBatchRepository(JdbcTemplate jdbcTemplate,
+                            PlatformTransactionManager transactionManager,
+                            @Value("${cars.bulk.batch-size:1000}") int batchSize) {
+    if (batchSize < 1) {
+      throw new IllegalArgumentException("batchSize must be positive");
+    }
+    this.jdbcTemplate = jdbcTemplate;
+    this.transactionTemplate = new TransactionTemplate(transactionManager);
+    this.transactionTemplate.setName(ReplicaRoutingDataSource.BULK_TRANSACTION);
+    this.readOnlyTransactionTemplate = new TransactionTemplate(transactionManager);
+    this.readOnlyTransactionTemplate.setReadOnly(true);
+    this.batchSize = batchSize;
+  }
+
+  /**
+   * The cars removed by a bulk delete.
+   *
+   * @param ids      the IDs of the deleted cars
+   * @param groups   the number of deleted cars per group
+   * @param complete false if a failing chunk stopped the delete before every car was deleted
+   */
+  public record DeletedCars(List<Long> ids, Map<CarGroup, Integer> groups, boolean complete) {
+
+    /**
+     * The cars removed by a delete that ran to completion.
+     */
+    public DeletedCars(List<Long> ids, Map<CarGroup, Integer> groups) {
+      this(ids, groups, true);
+    }
+
+    /**
+     * Returns the number of deleted cars.
+     */
+    public int count() {
+      return ids.size();
+    }
+  }
+
+  /**
+   * Inserts the cars chunk by chunk and sets their generated ids.
+   * Every chunk is committed on its own, so a failing chunk stops the import but keeps the
+   * chunks committed before it.
+   *
+   * @param cars the cars to insert, each referencing its dealer
+   * @return the cars that were inserted, in their original order
+   */
+  public List<Car> insertAll(List<Car> cars) {
+    List<Car> inserted = new ArrayList<>(cars.size());
+    for (int from = 0; from < cars.size(); from += batchSize) {
+      List<Car> chunk = cars.subList(from, Math.min(cars.size(), from + batchSize));
+      try {
+        transactionTemplate.executeWithoutResult(status -> insertChunk(chunk));
+      } catch (DataAccessException e) {
+        log.error("Не удалось добавить пакет из {} автомобилей: {}", chunk.size(), e.getMessage());
+        break;
+      }
+      inserted.addAll(chunk);
+    }
+    return inserted;
+  }
+
+  /**
+   * Moves the given cars to a dealer in a single transaction.
+   * The cars are locked and their current dealers read before they are updated, so the result
+   * tells exactly which groups the cars left. Unknown ids and cars already at the dealer are
+   * skipped.
+   *
+   * @param ids      the IDs of the cars to move
+   * @param dealerId the ID of the dealer receiving the cars
+   * @return the number of moved cars per group they were in before the transfer
+   */
+  public Map<CarGroup, Integer> transferAll(Collection<Long> ids, Long dealerId) {
+    List<Long> idList = List.copyOf(ids);
+    if (idList.isEmpty()) {
+      return Collections.emptyMap();
+    }
+    return transactionTemplate.execute(status -> {
+      Map<CarGroup, Integer> moved = new HashMap<>();
+      for (int from = 0; from < idList.size(); from += batchSize) {
+        List<Long> chunk = idList.subList(from, Math.min(idList.size(), from + batchSize));
+        String placeholders = placeholders(chunk.size());
+        List<Object> lockArgs = new ArrayList<>(chunk);
+        lockArgs.add(dealerId);
+        countGroups(String.format(LOCK_CARS_BY_IDS, placeholders), lockArgs, moved);
+        List<Object> updateArgs = new ArrayList<>(chunk.size() + 2);
+        updateArgs.add(dealerId);
+        updateArgs.addAll(chunk);
+        updateArgs.add(dealerId);
+        jdbcTemplate.update(String.format(TRANSFER_CARS_BY_IDS, placeholders),
+            updateArgs.toArray());
+      }
+      return moved;
+    });
+  }
+
+  /**
+   * Moves the cars of one dealer, optionally only those of one year, to another dealer with a
+   * single UPDATE statement.
+   *
+   * @param sourceDealerId the ID of the dealer giving the cars away
+   * @param year           the production year of the cars to move, or null to move every car
+   * @param dealerId       the ID of the dealer receiving the cars
+   * @return the number of moved cars per group they were in before the transfer
+   */
+  public Map<CarGroup, Integer> transferAll(Long sourceDealerId, Long year, Long dealerId) {
+    if (sourceDealerId.equals(dealerId)) {
+      return Collections.emptyMap();
+    }
+    String filter = year != null ? AND_YEAR : "";
+    List<Object> filterArgs = year != null
+        ? List.of(sourceDealerId, year) : List.of(sourceDealerId);
+    return transactionTemplate.execute(status -> {
+      Map<CarGroup, Integer> moved = new HashMap<>();
+      countGroups(LOCK_DEALER_CARS + filter + FOR_UPDATE, filterArgs, moved);
+      List<Object> updateArgs = new ArrayList<>(filterArgs.size() + 1);
+      updateArgs.add(dealerId);
+      updateArgs.addAll(filterArgs);
+      jdbcTemplate.update(TRANSFER_DEALER_CARS + filter, updateArgs.toArray());
+      return moved;
+    });
+  }
+
+  /**
+   * Deletes the given cars chunk by chunk.
+   * Every chunk is committed on its own, so row locks are only held for one chunk; a failing
+   * chunk stops the delete but keeps the chunks committed before it, and the result is marked
+   * incomplete. Unknown ids are skipped.
+   *
+   * @param ids the IDs of the cars to delete
+   * @return the cars that were deleted
+   */
+  public DeletedCars deleteAll(Collection<Long> ids) {
+    List<Long> idList = List.copyOf(ids);
+    List<Long> deletedIds = new ArrayList<>();
+    Map<CarGroup, Integer> deletedGroups = new HashMap<>();
+    boolean complete = true;
+    for (int from = 0; from < idList.size(); from += batchSize) {
+      List<Long> chunk = idList.subList(from, Math.min(idList.size(), from + batchSize));
+      String sql = String.format(LOCK_CARS_FOR_DELETE_BY_IDS, placeholders(chunk.size()));
+      try {
+        DeletedCars deleted = transactionTemplate.execute(
+            status -> deleteChunk(sql, List.copyOf(chunk)));
+        deletedIds.addAll(deleted.ids());
+        deleted.groups().forEach((group, count) -> deletedGroups.merge(group, count, Integer::sum));
+      } catch (DataAccessException e) {
+        log.error("Не удалось удалить пакет из {} автомобилей: {}", chunk.size(), e.getMessage());
+        complete = false;
+        break;
+      }
+    }
+    return new DeletedCars(deletedIds, deletedGroups, complete);
+  }
+
+  /**
+   * Deletes the cars of a dealer, optionally only those of one year, chunk by chunk.
+   * Every chunk is committed on its own, so row locks are only held for one chunk; a failing
+   * chunk stops the delete but keeps the chunks committed before it, and the result is marked
+   * incomplete.
+   *
+   * @param dealerId the ID of the dealer
+   * @param year     the production year of the cars to delete, or null to delete every car
+   * @return the cars that were deleted
+   */
+  public DeletedCars deleteAll(Long dealerId, Long year) {
+    String sql = LOCK_DEALER_CARS_FOR_DELETE + (year != null ? AND_YEAR : "")
+        + ORDER_BY_ID_LIMIT + FOR_UPDATE;
+    List<Object> args = new ArrayList<>();
+    args.add(dealerId);
+    if (year != null) {
+      args.add(year);
+    }
+    args.add(batchSize);
+    List<Long> deletedIds = new ArrayList<>();
+    Map<CarGroup, Integer> deletedGroups = new HashMap<>();
+    boolean complete = true;
+    while (true) {
+      DeletedCars deleted;
+      try {
+        deleted = transactionTemplate.execute(status -> deleteChunk(sql, args));
+      } catch (DataAccessException e) {
+        log.error("Не удалось удалить пакет автомобилей дилера {}: {}", dealerId, e.getMessage());
+        complete = false;
+        break;
+      }
+      deletedIds.addAll(deleted.ids());
+      deleted.groups().forEach((group, count) -> deletedGroups.merge(group, count, Integer::sum));
+      if (deleted.count() < batchSize) {
+        break;
+      }
+    }
+    return new DeletedCars(deletedIds, deletedGroups, complete);
+  }
+
+  /**
+   * The cars of one dealer at the time they were read.
+   *
+   * @param ids    the IDs of the cars
+   * @param groups the number of cars per group
+   */
+  public record DealerCars(List<Long> ids, Map<CarGroup, Integer> groups) {
+  }
+
+  /**
+   * Reads the IDs and groups of the cars of a dealer from the primary.
+   *
+   * @param dealerId the ID of the dealer
+   * @return the cars of the dealer
+   */
+  public DealerCars findDealerCars(Long dealerId) {
+    List<Long> ids = new ArrayList<>();
+    Map<CarGroup, Integer> groups = new HashMap<>();
+    jdbcTemplate.query(SELECT_DEALER_CARS, (ResultSet row) -> {
+      ids.add(row.getLong("id"));
+      groups.merge(groupOf(row), 1, Integer::sum);
+    }, dealerId);
+    return new DealerCars(ids, groups);
+  }
+
+  /**
+   * Counts all cars by dealer, make and year with a single grouped query.
+   * The query runs in a read-only transaction, so it is served by a replica.
+   *
+   * @return the number of cars per group
+   */
+  public Map<CarGroup, Integer> countByGroup() {
+    Map<CarGroup, Integer> counts = new HashMap<>();
+    readOnlyTransactionTemplate.executeWithoutResult(status -> jdbcTemplate.query(
+        COUNT_CARS_BY_GROUP, (ResultSet row) -> counts.put(groupOf(row), row.getInt("cars"))));
+    return counts;
+  }
+
+  /**
+   * Locks the cars selected by the query, which has to select their id, dealer, make and year,
+   * and deletes them by id.
+   */
+  private DeletedCars deleteChunk(String lockSql, List<Object> args) {
+    List<Long> ids = new ArrayList<>();
+    Map<CarGroup, Integer> groups = new HashMap<>();
+    jdbcTemplate.query(lockSql, (ResultSet row) -> {
+      ids.add(row.getLong("id"));
+      groups.merge(groupOf(row), 1, Integer::sum);
+    }, args.toArray());
+    if (!ids.isEmpty()) {
+      jdbcTemplate.update(String.format(DELETE_CARS_BY_IDS, placeholders(ids.size())),
+          ids.toArray());
+    }
+    return new DeletedCars(ids, groups);
+  }
+
+  /**
+   * Runs a query selecting the dealer, make and year of cars and adds its rows to the counts.
+   */
+  private void countGroups(String sql, List<Object> args, Map<CarGroup, Integer> counts) {
+    jdbcTemplate.query(sql, (ResultSet row) -> {
+      counts.merge(groupOf(row), 1, Integer::sum);
+    }, args.toArray());
+  }
+
+  private static CarGroup groupOf(ResultSet row) throws SQLException {
+    return new CarGroup(row.getObject("dealer_id", Long.class), row.getString("make"),
+        row.getObject("year", Long.class));
+  }
+
+  private static String placeholders(int count) {
+    return String.join(", ", Collections.nCopies(count, "?"));
+  }
+
+  private void insertChunk(List<Car> chunk) {
+    jdbcTemplate.execute((Connection connection) -> {
+      try (PreparedStatement statement =
+               connection.prepareStatement(INSERT_CAR, Statement.RETURN_GENERATED_KEYS)) {
+        for (Car car : chunk) {
+          statement.setObject(1, car.getYear(), Types.BIGINT);
+          statement.setString(2, car.getMake());
+          statement.setString(3, car.getModel());
+          statement.setString(4, car.getVin());
+          statement.setObject(5, car.getDealer() != null ? car.getDealer().getId() : null,
+              Types.BIGINT);
+          statement.addBatch();
+        }
+        statement.executeBatch();
+        assignGeneratedIds(statement, chunk);
+      }
+      return null;
+    });
+  }
+
+  private static void assignGeneratedIds(PreparedStatement statement, List<Car> chunk)
+      throws SQLException {
+    try (ResultSet keys = statement.getGeneratedKeys()) {
+      for (int i = 0; i < chunk.size() && keys.next(); i++) {
+        chunk.get(i).setId(keys.getLong(1));
+        chunk.get(i).setVersion(0L);
+      }
+    }
+  }
+}
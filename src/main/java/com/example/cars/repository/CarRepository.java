@@ -1,20 +1,56 @@
 package com.example.cars.repository;
 
+import com.example.cars.dto.CarDto;
 import com.example.cars.entity.Car;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.CrudRepository;
+import org.springframework.transaction.annotation.Transactional;
 
 /**
  * Repository interface for managing Car entities.
  * Extends CrudRepository for basic CRUD operations on Car entities.
+ * Read paths use the {@code Dto} queries, which build {@link CarDto} instances straight from
+ * the selected columns in read-only transactions, without managed entities.
  */
 public interface CarRepository extends CrudRepository<Car, Long> {
-  Car findByMake(String make);
+  String SELECT_CAR_DTO =
+      "SELECT new com.example.cars.dto.CarDto(c.id, c.year, c.make, c.model, c.vin) FROM Car c";
 
   Car findByVin(String vin);
 
-  @Query(value = "SELECT c FROM Car c WHERE c.dealer.id = :dealerId AND c.year = :year")
-  List<Car> findAllByDealerIdAndYear(Long dealerId, Long year);
+  @EntityGraph(attributePaths = "dealer")
+  Optional<Car> findWithDealerById(Long id);
+
+  @Query(value = "SELECT c.vin FROM Car c WHERE c.vin IN :vins")
+  List<String> findExistingVins(Collection<String> vins);
+
+  @Transactional(readOnly = true)
+  @Query(value = SELECT_CAR_DTO + " WHERE c.id = :id")
+  Optional<CarDto> findDtoById(Long id);
+
+  @Transactional(readOnly = true)
+  @Query(value = SELECT_CAR_DTO + " WHERE c.make = :make")
+  CarDto findDtoByMake(String make);
+
+  @Transactional(readOnly = true)
+  @Query(value = SELECT_CAR_DTO + " WHERE c.dealer.id = :dealerId AND c.year = :year")
+  List<CarDto> findDtosByDealerIdAndYear(Long dealerId, Long year);
+
+  @Transactional(readOnly = true)
+  @Query(value = SELECT_CAR_DTO + " WHERE c.id IN :ids")
+  List<CarDto> findDtosByIdIn(Collection<Long> ids);
+
+  @Transactional(readOnly = true)
+  @Query(value = SELECT_CAR_DTO + " WHERE c.id > :afterId ORDER BY c.id")
+  List<CarDto> findDtoPageAfter(Long afterId, Pageable page);
+
+  @Transactional(readOnly = true)
+  @Query(value = SELECT_CAR_DTO + " WHERE c.dealer.id = :dealerId AND c.id > :afterId"
+      + " ORDER BY c.id")
+  List<CarDto> findDtoPageByDealerIdAfter(Long dealerId, Long afterId, Pageable page);
 }
- 
\ No newline at end of file
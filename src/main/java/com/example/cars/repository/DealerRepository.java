@@ -1,7 +1,10 @@
 package com.example.cars.repository;
 
 import com.example.cars.entity.Dealer;
+import java.util.Optional;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.repository.CrudRepository;
+import org.springframework.transaction.annotation.Transactional;
 
 /**
  * Repository interface for managing Dealer entities.
@@ -9,4 +12,12 @@ import org.springframework.data.repository.CrudRepository;
  */
 public interface DealerRepository extends CrudRepository<Dealer, Long> {
   Dealer findByName(String name);
+
+  @Transactional(readOnly = true)
+  @EntityGraph(attributePaths = "carList")
+  Optional<Dealer> findWithCarsById(Long id);
+
+  @Transactional(readOnly = true)
+  @EntityGraph(attributePaths = "carList")
+  Dealer findWithCarsByName(String name);
 }
@@ -0,0 +1,91 @@
+package com.example.cars.service;
+
+import com.example.cars.component.CarCacheKey;
+import com.example.cars.component.CarCacheSnapshot;
+import jakarta.annotation.PreDestroy;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.stereotype.Service;
+
+/**
+ * Service class for warming up the car cache after a restart.
+ * On shutdown the keys of the hottest cache entries are written to a snapshot file; on startup
+ * they are read back and reloaded from the database. The warm-up runs before the application
+ * reports itself ready, so readiness only flips to accepting traffic once it has completed.
+ */
+@Service
+public class CacheWarmUpService implements ApplicationRunner {
+
+  private static final Logger log = LoggerFactory.getLogger(CacheWarmUpService.class);
+  private final CarService carService;
+  private final Path snapshotFile;
+  private final int warmUpSize;
+
+  /**
+     * Service class for warming up the car cache.
+     *
+     * @param snapshotFile the file keeping the hottest keys between restarts, or empty to disable
+     * @param warmUpSize   the maximum number of entries saved and preloaded, or zero to disable
+     */
+  @Autowired
+
+  public CacheWarmUpService(CarService carService,
+                            @Value("${cache.cars.snapshot-file:}") String snapshotFile,
+                            @Value("${cache.cars.warm-up-size:0}") int warmUpSize) {
+    this.carService = carService;
+    this.snapshotFile = snapshotFile.isBlank() ? null : Path.of(snapshotFile);
+    this.warmUpSize = warmUpSize;
+  }
+
+  /**
+   * Preloads the entries recorded in the snapshot file, if there is one.
+   * A missing or unreadable snapshot only skips the warm-up.
+   */
+  @Override
+  public void run(ApplicationArguments args) {
+    if (!isEnabled() || !Files.exists(snapshotFile)) {
+      return;
+    }
+    List<CarCacheKey> keys;
+    try {
+      keys = CarCacheSnapshot.read(snapshotFile);
+    } catch (IOException e) {
+      log.error("Не удалось прочитать снимок кэша {}: {}", snapshotFile, e.getMessage());
+      return;
+    }
+    if (keys.size() > warmUpSize) {
+      keys = keys.subList(0, warmUpSize);
+    }
+    long start = System.nanoTime();
+    int warmed = carService.warmUpCache(keys);
+    log.info("Кэш прогрет: загружено {} из {} записей за {} мс.", warmed, keys.size(),
+        (System.nanoTime() - start) / 1_000_000);
+  }
+
+  /**
+   * Writes the keys of the hottest cache entries to the snapshot file.
+   */
+  @PreDestroy
+  public void saveSnapshot() {
+    if (!isEnabled()) {
+      return;
+    }
+    try {
+      CarCacheSnapshot.write(carService.getHottestCacheKeys(warmUpSize), snapshotFile);
+    } catch (IOException e) {
+      log.error("Не удалось сохранить снимок кэша {}: {}", snapshotFile, e.getMessage());
+    }
+  }
+
+  private boolean isEnabled() {
+    return snapshotFile != null && warmUpSize > 0;
+  }
+}
@@ -1,23 +1,42 @@
 package com.example.cars.service;
 
+import static com.example.cars.component.ReplicaRoutingDataSource.readFromPrimary;
+
 import com.example.cars.component.Cache;
+import com.example.cars.component.CarCacheKey;
+import com.example.cars.component.CarFeedReader;
+import com.example.cars.component.OptimisticRetryExecutor;
+import com.example.cars.component.PageToken;
+import com.example.cars.component.WeakInterner;
+import com.example.cars.dto.CacheStatsDto;
 import com.example.cars.dto.CarDto;
+import com.example.cars.dto.CarImportChunkDto;
+import com.example.cars.dto.CarPageDto;
 import com.example.cars.entity.Car;
 import com.example.cars.entity.Dealer;
 import com.example.cars.exceptions.CarAdditionException;
 import com.example.cars.exceptions.CarAlreadyExistException;
 import com.example.cars.exceptions.CarNotFoundException;
 import com.example.cars.exceptions.DealerNotFoundException;
+import com.example.cars.repository.CarBatchRepository;
+import com.example.cars.repository.CarBatchRepository.CarGroup;
+import com.example.cars.repository.CarBatchRepository.DeletedCars;
 import com.example.cars.repository.CarRepository;
 import com.example.cars.repository.DealerRepository;
+import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
 import java.util.stream.Collectors;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 
 /**
@@ -27,24 +46,40 @@ import org.springframework.stereotype.Service;
 @Service
 public class CarService {
 
-  private final Cache<Object, CarDto> carCache;
+  private final Cache<CarCacheKey, CarDto> carCache;
   private final CarRepository carRepository;
+  private final CarBatchRepository carBatchRepository;
 
   private static final Logger log = LoggerFactory.getLogger(CarService.class);
   private final DealerRepository dealerRepository;
+  private final DealerService dealerService;
+  private final WeakInterner<Long, CarDto> carDtoInterner;
+  private final OptimisticRetryExecutor conflictRetry;
+  private final InventoryService inventoryService;
   private static final String CAR_NOT_FOUND_STRING = "Автомобиль не найден";
   private static final String CAR_ALREADY_EXIST = "Такой автомобиль уже существует";
+  private static final int IN_LIST_CHUNK_SIZE = 500;
+  private static final int MAX_IMPORT_ERRORS = 20;
 
   /**
      * Service class for managing Car entities.
      */
   @Autowired
 
-  public CarService(CarRepository carRepository, DealerRepository dealerRepository,
-                     Cache<Object, CarDto> carCache) {
+  public CarService(CarRepository carRepository, CarBatchRepository carBatchRepository,
+                     DealerRepository dealerRepository, DealerService dealerService,
+                     Cache<CarCacheKey, CarDto> carCache,
+                     WeakInterner<Long, CarDto> carDtoInterner,
+                     OptimisticRetryExecutor conflictRetry,
+                     InventoryService inventoryService) {
     this.carRepository = carRepository;
+    this.carBatchRepository = carBatchRepository;
     this.dealerRepository = dealerRepository;
+    this.dealerService = dealerService;
     this.carCache = carCache;
+    this.carDtoInterner = carDtoInterner;
+    this.conflictRetry = conflictRetry;
+    this.inventoryService = inventoryService;
   }
 
   /**
@@ -55,14 +90,16 @@ public class CarService {
      * @throws CarAlreadyExistException    if a car with the same name already exists.
      */
   public void addCar(Long id, Car car) throws CarAlreadyExistException, DealerNotFoundException {
-    Dealer dealer = dealerRepository.findById(id).orElse(null);
+    Dealer dealer = readFromPrimary(() -> dealerRepository.findById(id)).orElse(null);
     if (dealer != null) {
       car.setDealer(dealer);
-      if (carRepository.findByVin(car.getVin()) != null) {
+      if (readFromPrimary(() -> carRepository.findByVin(car.getVin())) != null) {
         throw new CarAlreadyExistException(CAR_ALREADY_EXIST);
       }
       carRepository.save(car);
-      carCache.clear();
+      evictCar(car.getId(), car.getMake(), id, car.getYear());
+      dealerService.evictDealer(dealer);
+      inventoryService.record(id, car.getMake(), car.getYear(), 1);
 
     } else {
       throw new DealerNotFoundException("Не удалось добавить машину. Дилер не найден");
@@ -78,30 +115,18 @@ public class CarService {
    */
 
   public void addCarsBulk(Long dealerId, List<Car> cars) throws CarAlreadyExistException, DealerNotFoundException, CarAdditionException {
-    Set<String> existingCarMakes = new HashSet<>();
-    for (Car car : carRepository.findAll()) {
-      existingCarMakes.add(car.getVin());
-    }
-
-    List<Car> newCars = new ArrayList<>(cars.stream()
-            .filter(car -> !existingCarMakes.contains(car.getVin()))
-            .collect(Collectors.toMap(Car::getVin, car -> car,
-                    (car1, car2) -> car1))
-            .values());
+    Dealer dealer = readFromPrimary(() -> dealerRepository.findById(dealerId)).orElseThrow(() -> new DealerNotFoundException("Дилер не найден"));
 
-    Dealer dealer = dealerRepository.findById(dealerId).orElseThrow(() -> new DealerNotFoundException("Дилер не найден"));
-
-    for (Car car : newCars) {
-      car.setDealer(dealer);
+    List<Car> newCars = selectNewCars(cars);
+    if (newCars.isEmpty()) {
+      throw new CarAlreadyExistException("Все автомобили из списка уже есть в базе.");
     }
 
-    List<Car> savedCars = new ArrayList<>();
-    carRepository.saveAll(newCars).forEach(savedCars::add);
+    List<Car> savedCars = insertCars(dealer, newCars);
+    dealerService.evictDealer(dealer);
     int countSavedCars = savedCars.size();
 
-    if (countSavedCars == 0) {
-      throw new CarAlreadyExistException("Все автомобили из списка уже есть в базе.");
-    } else if (newCars.size() == countSavedCars) {
+    if (newCars.size() == countSavedCars) {
       log.info("Успешно добавлено {} новых автомобилей.", countSavedCars);
     } else {
       log.error("Ошибка при добавлении новых автомобилей."
@@ -110,26 +135,68 @@ public class CarService {
     }
   }
 
+  /**
+   * Imports the cars of a feed chunk by chunk, skipping the ones whose VIN already exists.
+   * Each chunk is validated and committed before the next one is read, so the feed is never
+   * held in memory as a whole and a failing chunk keeps the chunks imported before it.
+   *
+   * @param dealerId  the ID of the dealer the cars belong to
+   * @param feed      the feed to read the cars from
+   * @param chunkSize the number of feed records imported together
+   * @return the outcome of every chunk, in feed order
+   * @throws DealerNotFoundException if the dealer with the specified ID is not found
+   * @throws IOException             if the feed cannot be read
+   */
+  public List<CarImportChunkDto> importCars(Long dealerId, CarFeedReader feed, int chunkSize)
+      throws DealerNotFoundException, IOException {
+    Dealer dealer = readFromPrimary(() -> dealerRepository.findById(dealerId)).orElseThrow(() -> new DealerNotFoundException("Дилер не найден"));
+
+    List<CarImportChunkDto> results = new ArrayList<>();
+    List<CarFeedReader.Entry> chunk = new ArrayList<>(chunkSize);
+    CarFeedReader.Entry entry;
+    while ((entry = feed.next()) != null) {
+      chunk.add(entry);
+      if (chunk.size() == chunkSize) {
+        results.add(importChunk(dealer, results.size() + 1, chunk));
+        chunk.clear();
+      }
+    }
+    if (!chunk.isEmpty()) {
+      results.add(importChunk(dealer, results.size() + 1, chunk));
+    }
+    log.info("Импорт завершён: добавлено {} автомобилей в {} пакетах.",
+            results.stream().mapToInt(CarImportChunkDto::getInsertedCount).sum(), results.size());
+    return results;
+  }
+
   /**
      * Updates an existing car.
+     * A concurrent change of the car is detected through its version; the update is then
+     * re-applied to the latest state of the car, a bounded number of times.
      *
      * @param id   the ID of the car to update
      * @param updatedCar the updated city data
      * @throws CarNotFoundException if the city with the specified ID is not found
      */
   public void updateCar(Long id, Car updatedCar) throws CarNotFoundException {
-    Car carEntity = carRepository.findById(id).orElse(null);
-    if (carEntity != null) {
+    conflictRetry.execute(attempt -> {
+      Car carEntity = readFromPrimary(() -> carRepository.findWithDealerById(id))
+          .orElseThrow(() -> new CarNotFoundException(CAR_NOT_FOUND_STRING));
+      Long dealerId = dealerIdOf(carEntity);
+      String previousMake = carEntity.getMake();
+      Long previousYear = carEntity.getYear();
+      evictCar(id, previousMake, dealerId, previousYear);
       carEntity.setMake(updatedCar.getMake());
       carEntity.setModel(updatedCar.getModel());
       carEntity.setYear(updatedCar.getYear());
       carEntity.setVin(updatedCar.getVin());
       carRepository.save(carEntity);
-
-      carCache.clear();
-    } else {
-      throw new CarNotFoundException(CAR_NOT_FOUND_STRING);
-    }
+      evictCar(id, carEntity.getMake(), dealerId, carEntity.getYear());
+      dealerService.evictDealer(carEntity.getDealer());
+      inventoryService.record(dealerId, previousMake, previousYear, -1);
+      inventoryService.record(dealerId, carEntity.getMake(), carEntity.getYear(), 1);
+      return null;
+    });
   }
 
   /**
@@ -140,17 +207,12 @@ public class CarService {
      * @throws CarNotFoundException if the car with the specified ID is not found
      */
   public CarDto getCarById(Long id) throws CarNotFoundException {
-    if (carCache.containsKey(id)) {
-      return carCache.get(id);
-    } else {
-      Car car = carRepository.findById(id).orElse(null);
-      if (car == null) {
-        throw new CarNotFoundException(CAR_NOT_FOUND_STRING);
-      }
-      CarDto carDto = CarDto.toCar(car);
-      carCache.put(id, carDto);
-      return carDto;
+    CarDto carDto = carCache.getOrLoad(CarCacheKey.byId(id),
+        () -> carRepository.findDtoById(id).map(this::toCanonicalDto).orElse(null));
+    if (carDto == null) {
+      throw new CarNotFoundException(CAR_NOT_FOUND_STRING);
     }
+    return carDto;
   }
 
   /**
@@ -161,17 +223,14 @@ public class CarService {
      * @throws CarNotFoundException if the car with the specified ID is not found
      */
   public CarDto getCarByMake(String make) throws CarNotFoundException {
-    if (carCache.containsKey(make)) {
-      return carCache.get(make);
-    } else {
-      Car car = carRepository.findByMake(make);
-      if (car == null) {
-        throw new CarNotFoundException(CAR_NOT_FOUND_STRING);
-      }
-      CarDto carDto = CarDto.toCar(car);
-      carCache.put(make, carDto);
-      return carDto;
+    CarDto carDto = carCache.getOrLoad(CarCacheKey.byMake(make), () -> {
+      CarDto car = carRepository.findDtoByMake(make);
+      return car != null ? toCanonicalDto(car) : null;
+    });
+    if (carDto == null) {
+      throw new CarNotFoundException(CAR_NOT_FOUND_STRING);
     }
+    return carDto;
   }
 
   /**
@@ -181,15 +240,20 @@ public class CarService {
      * @throws CarNotFoundException if the city with the specified ID is not found
      */
   public void deleteCar(Long id) throws CarNotFoundException {
-    if (!carRepository.existsById(id)) {
+    Car car = readFromPrimary(() -> carRepository.findWithDealerById(id)).orElse(null);
+    if (car == null) {
       throw new CarNotFoundException(CAR_NOT_FOUND_STRING);
     }
     carRepository.deleteById(id);
-    carCache.clear();
+    evictCar(id, car.getMake(), dealerIdOf(car), car.getYear());
+    dealerService.evictDealer(car.getDealer());
+    inventoryService.record(dealerIdOf(car), car.getMake(), car.getYear(), -1);
   }
 
   /**
-     * Updates an existing car.
+     * Transfers a car to another dealer.
+     * A concurrent change of the car is detected through its version; the transfer is then
+     * re-applied to the latest state of the car, a bounded number of times.
      *
      * @param carId   the ID of the car to update
      * @param dealerId the updated dealer data
@@ -198,16 +262,96 @@ public class CarService {
      */
   public void transferCarToDealer(Long carId, Long dealerId)
             throws CarNotFoundException, DealerNotFoundException {
-    Car car = carRepository.findById(carId).orElse(null);
+    Car car = readFromPrimary(() -> carRepository.findWithDealerById(carId)).orElse(null);
     if (car == null) {
       throw new CarNotFoundException(CAR_NOT_FOUND_STRING);
     }
-    Dealer dealer = dealerRepository.findById(dealerId).orElse(null);
+    Dealer dealer = readFromPrimary(() -> dealerRepository.findById(dealerId)).orElse(null);
     if (dealer == null) {
       throw new DealerNotFoundException("Дилер не найден");
     }
-    car.setDealer(dealer);
-    carRepository.save(car);
+    conflictRetry.execute(attempt -> {
+      Car current = attempt == 0 ? car
+          : readFromPrimary(() -> carRepository.findWithDealerById(carId))
+          .orElseThrow(() -> new CarNotFoundException(CAR_NOT_FOUND_STRING));
+      Dealer previousDealer = current.getDealer();
+      Long previousDealerId = dealerIdOf(current);
+      current.setDealer(dealer);
+      carRepository.save(current);
+      dealerService.evictDealer(previousDealer);
+      dealerService.evictDealer(dealer);
+      carCache.remove(CarCacheKey.byDealerAndYear(previousDealerId, current.getYear()));
+      carCache.remove(CarCacheKey.byDealerAndYear(dealerId, current.getYear()));
+      inventoryService.record(previousDealerId, current.getMake(), current.getYear(), -1);
+      inventoryService.record(dealerId, current.getMake(), current.getYear(), 1);
+      return null;
+    });
+  }
+
+  /**
+   * Deletes the given cars with set-based deletes, chunk by chunk, without loading them.
+   *
+   * @param carIds the IDs of the cars to delete; unknown IDs are ignored
+   * @return the number of deleted cars
+   */
+  public int deleteCars(List<Long> carIds) {
+    List<Long> ids = carIds.stream().filter(Objects::nonNull).distinct().toList();
+    return afterCarsDeleted(carBatchRepository.deleteAll(ids));
+  }
+
+  /**
+   * Deletes the cars of a dealer, optionally only those of one year, with set-based deletes,
+   * chunk by chunk, without loading them.
+   *
+   * @param dealerId the ID of the dealer
+   * @param year     the production year of the cars to delete, or null for all cars
+   * @return the number of deleted cars
+   * @throws DealerNotFoundException if the dealer with the specified ID is not found
+   */
+  public int deleteDealerCars(Long dealerId, Long year) throws DealerNotFoundException {
+    if (!readFromPrimary(() -> dealerRepository.existsById(dealerId))) {
+      throw new DealerNotFoundException("Дилер не найден");
+    }
+    return afterCarsDeleted(carBatchRepository.deleteAll(dealerId, year));
+  }
+
+  /**
+   * Transfers the given cars to another dealer with set-based updates in one transaction.
+   * Car DTOs do not contain the dealer, so only the dealer/year lists and the dealers the cars
+   * left or joined are evicted from the caches.
+   *
+   * @param carIds   the IDs of the cars to transfer; unknown IDs are ignored
+   * @param dealerId the ID of the dealer receiving the cars
+   * @return the number of cars that changed dealer
+   * @throws DealerNotFoundException if the dealer with the specified ID is not found
+   */
+  public int transferCarsToDealer(List<Long> carIds, Long dealerId)
+          throws DealerNotFoundException {
+    Dealer dealer = readFromPrimary(() -> dealerRepository.findById(dealerId))
+        .orElseThrow(() -> new DealerNotFoundException("Дилер не найден"));
+    List<Long> ids = carIds.stream().filter(Objects::nonNull).distinct().toList();
+    return afterCarsTransferred(dealer, carBatchRepository.transferAll(ids, dealerId));
+  }
+
+  /**
+   * Transfers the cars of one dealer, optionally only those of one year, to another dealer
+   * with a single set-based update.
+   *
+   * @param sourceDealerId the ID of the dealer giving the cars away
+   * @param year           the production year of the cars to transfer, or null for all cars
+   * @param dealerId       the ID of the dealer receiving the cars
+   * @return the number of cars that changed dealer
+   * @throws DealerNotFoundException if either dealer is not found
+   */
+  public int transferDealerCars(Long sourceDealerId, Long year, Long dealerId)
+          throws DealerNotFoundException {
+    Dealer dealer = readFromPrimary(() -> dealerRepository.findById(dealerId))
+        .orElseThrow(() -> new DealerNotFoundException("Дилер не найден"));
+    if (!readFromPrimary(() -> dealerRepository.existsById(sourceDealerId))) {
+      throw new DealerNotFoundException("Дилер не найден");
+    }
+    return afterCarsTransferred(dealer,
+        carBatchRepository.transferAll(sourceDealerId, year, dealerId));
   }
 
   /**
@@ -220,21 +364,265 @@ public class CarService {
      */
   public List<CarDto> getCarsByDealerIdAndYear(Long dealerId, Long year)
           throws CarNotFoundException {
-    String cacheKey = "dealer_" + dealerId + "_year_" + year;
-    if (carCache.containsKey(cacheKey)) {
-      return carCache.getList(cacheKey);
-    } else {
-      List<Car> cars = carRepository.findAllByDealerIdAndYear(dealerId, year);
-      if (cars.isEmpty()) {
-        throw new CarNotFoundException(CAR_NOT_FOUND_STRING);
+    CarCacheKey key = CarCacheKey.byDealerAndYear(dealerId, year);
+    List<CarDto> carDtos = carCache.getListOrLoad(key, () -> {
+      List<CarDto> cars = carRepository.findDtosByDealerIdAndYear(dealerId, year);
+      return cars.isEmpty() ? null : cars.stream().map(this::toCanonicalDto).toList();
+    });
+    if (carDtos == null) {
+      throw new CarNotFoundException(CAR_NOT_FOUND_STRING);
+    }
+    return carDtos;
+  }
+
+  /**
+   * Returns a page of all cars ordered by id.
+   *
+   * @param pageToken the token returned with the previous page, or null for the first page
+   * @param size      the maximum number of cars on the page
+   * @return the cars of the page and the token of the next one
+   * @throws IllegalArgumentException if the page token is invalid
+   */
+  public CarPageDto getCarsPage(String pageToken, int size) {
+    long afterId = PageToken.decode(pageToken);
+    return toPage(carRepository.findDtoPageAfter(afterId, PageRequest.of(0, size + 1)), size);
+  }
+
+  /**
+   * Returns a page of the cars of a dealer ordered by id.
+   *
+   * @param dealerId  the ID of the dealer
+   * @param pageToken the token returned with the previous page, or null for the first page
+   * @param size      the maximum number of cars on the page
+   * @return the cars of the page and the token of the next one
+   * @throws DealerNotFoundException  if the dealer with the specified ID is not found
+   * @throws IllegalArgumentException if the page token is invalid
+   */
+  public CarPageDto getDealerCarsPage(Long dealerId, String pageToken, int size)
+          throws DealerNotFoundException {
+    long afterId = PageToken.decode(pageToken);
+    List<CarDto> cars = carRepository.findDtoPageByDealerIdAfter(dealerId, afterId,
+        PageRequest.of(0, size + 1));
+    if (cars.isEmpty() && !dealerRepository.existsById(dealerId)) {
+      throw new DealerNotFoundException("Дилер не найден");
+    }
+    return toPage(cars, size);
+  }
+
+  /**
+   * Returns the statistics of the car cache.
+   *
+   * @return hit, miss, load and eviction counters with the current cache footprint
+   */
+  public CacheStatsDto getCacheStats() {
+    return carCache.stats();
+  }
+
+  /**
+   * Returns the keys of the most popular entries of the car cache, most popular first.
+   *
+   * @param limit the maximum number of keys to return
+   * @return keys worth preloading after a restart
+   */
+  public List<CarCacheKey> getHottestCacheKeys(int limit) {
+    return carCache.hottestKeys(limit);
+  }
+
+  /**
+   * Loads the given entries into the car cache ahead of the first requests.
+   * Cars cached by id are fetched together in chunks; makes and dealer/year lists go through
+   * the regular cached lookups, so keys that no longer match anything are cached as absent.
+   *
+   * @param keys the keys to preload
+   * @return the number of keys that were found and cached
+   */
+  public int warmUpCache(List<CarCacheKey> keys) {
+    int warmed = 0;
+    List<Long> ids = new ArrayList<>();
+    for (CarCacheKey key : keys) {
+      try {
+        if (key instanceof CarCacheKey.ById byId) {
+          ids.add(byId.id());
+        } else if (key instanceof CarCacheKey.ByMake byMake) {
+          getCarByMake(byMake.make());
+          warmed++;
+        } else if (key instanceof CarCacheKey.ByDealerAndYear byDealerAndYear) {
+          getCarsByDealerIdAndYear(byDealerAndYear.dealerId(), byDealerAndYear.year());
+          warmed++;
+        }
+      } catch (CarNotFoundException e) {
+        log.info("Ключ кэша {} больше не соответствует ни одному автомобилю.", key);
+      }
+    }
+    for (int from = 0; from < ids.size(); from += IN_LIST_CHUNK_SIZE) {
+      List<Long> chunk = ids.subList(from, Math.min(ids.size(), from + IN_LIST_CHUNK_SIZE));
+      for (CarDto car : carRepository.findDtosByIdIn(chunk)) {
+        carCache.put(CarCacheKey.byId(car.getId()), toCanonicalDto(car));
+        warmed++;
+      }
+    }
+    return warmed;
+  }
+
+  /**
+   * Validates and stores one chunk of an import, collecting the reasons records were rejected.
+   */
+  private CarImportChunkDto importChunk(Dealer dealer, int number,
+                                        List<CarFeedReader.Entry> entries) {
+    List<Car> validCars = new ArrayList<>(entries.size());
+    List<String> errors = new ArrayList<>();
+    int rejected = 0;
+    for (CarFeedReader.Entry entry : entries) {
+      String error = entry.error();
+      if (error == null && (entry.car().getVin() == null || entry.car().getVin().isBlank())) {
+        error = "не указан VIN";
+      }
+      if (error == null) {
+        validCars.add(entry.car());
+      } else {
+        rejected++;
+        if (errors.size() < MAX_IMPORT_ERRORS) {
+          errors.add("Строка " + entry.line() + ": " + error);
+        }
       }
-      List<CarDto> carDtos = cars.stream().map(CarDto::toCar).toList();
-      carCache.putList(cacheKey, carDtos);
-      return carDtos;
     }
+
+    List<Car> newCars = selectNewCars(validCars);
+    List<Car> savedCars = newCars.isEmpty() ? List.of() : insertCars(dealer, newCars);
+    if (!savedCars.isEmpty()) {
+      dealerService.evictDealer(dealer);
+    }
+    return new CarImportChunkDto(number, entries.get(0).line(),
+        entries.get(entries.size() - 1).line(), savedCars.size(),
+        validCars.size() - newCars.size(), rejected, newCars.size() - savedCars.size(), errors);
   }
 
+  /**
+   * Returns the cars whose VIN is not in the database yet, keeping the first car of every VIN.
+   */
+  private List<Car> selectNewCars(List<Car> cars) {
+    Set<String> existingVins = findExistingVins(cars.stream().map(Car::getVin).toList());
 
-}
+    return new ArrayList<>(cars.stream()
+            .filter(car -> !existingVins.contains(car.getVin()))
+            .collect(Collectors.toMap(Car::getVin, car -> car,
+                    (car1, car2) -> car1, LinkedHashMap::new))
+            .values());
+  }
+
+  /**
+   * Inserts the cars for the dealer and evicts the cache entries they appear in.
+   *
+   * @return the cars that were inserted
+   */
+  private List<Car> insertCars(Dealer dealer, List<Car> cars) {
+    for (Car car : cars) {
+      car.setDealer(dealer);
+    }
+    List<Car> savedCars = carBatchRepository.insertAll(cars);
+    for (Car car : savedCars) {
+      evictCar(car.getId(), car.getMake(), dealer.getId(), car.getYear());
+      inventoryService.record(dealer.getId(), car.getMake(), car.getYear(), 1);
+    }
+    return savedCars;
+  }
+
+  /**
+   * Returns which of the given VINs are already taken. Only the VINs themselves are queried,
+   * in chunks, so the cost depends on the number of VINs rather than on the size of the table.
+   * The primary is queried, since a lagging replica would let duplicate VINs through.
+   */
+  private Set<String> findExistingVins(Collection<String> vins) {
+    List<String> distinctVins = vins.stream().filter(Objects::nonNull).distinct().toList();
+    Set<String> existingVins = new HashSet<>();
+    for (int from = 0; from < distinctVins.size(); from += IN_LIST_CHUNK_SIZE) {
+      List<String> chunk =
+          distinctVins.subList(from, Math.min(distinctVins.size(), from + IN_LIST_CHUNK_SIZE));
+      existingVins.addAll(readFromPrimary(() -> carRepository.findExistingVins(chunk)));
+    }
+    return existingVins;
+  }
+
+  /**
+   * Builds a page from the rows of a keyset query that asked for one row more than the page
+   * size; the extra row only tells that a next page exists.
+   */
+  private CarPageDto toPage(List<CarDto> cars, int size) {
+    if (cars.size() <= size) {
+      return new CarPageDto(cars.stream().map(this::toCanonicalDto).toList(), null);
+    }
+    List<CarDto> page = cars.subList(0, size);
+    return new CarPageDto(page.stream().map(this::toCanonicalDto).toList(),
+        PageToken.encode(page.get(size - 1).getId()));
+  }
+
+  /**
+   * Returns the instance already shared by other cache entries of the same car if its data
+   * has not changed, or the given DTO otherwise.
+   */
+  private CarDto toCanonicalDto(CarDto car) {
+    return carDtoInterner.intern(car.getId(), car);
+  }
+
+  /**
+   * Evicts every cache entry a car can appear in: its id entry, its make entry and the
+   * dealer/year list it belongs to, including cached not-found results for those keys.
+   */
+  private void evictCar(Long id, String make, Long dealerId, Long year) {
+    carCache.remove(CarCacheKey.byId(id));
+    carCache.remove(CarCacheKey.byMake(make));
+    carCache.remove(CarCacheKey.byDealerAndYear(dealerId, year));
+  }
 
+  /**
+   * Evicts the cache entries of the deleted cars and updates the inventory counts through the
+   * dealer service, which does the same when a dealer is deleted.
+   *
+   * @return the number of deleted cars
+   */
+  private int afterCarsDeleted(DeletedCars deleted) {
+    dealerService.afterCarsDeleted(deleted);
+    if (deleted.count() > 0) {
+      log.info("Удалено автомобилей: {}", deleted.count());
+    }
+    if (!deleted.complete()) {
+      log.warn("Удаление автомобилей прервано после {} автомобилей.", deleted.count());
+    }
+    return deleted.count();
+  }
+
+  /**
+   * Evicts the dealer/year lists and the dealers touched by a bulk transfer, and updates the
+   * inventory counts.
+   *
+   * @return the number of transferred cars
+   */
+  private int afterCarsTransferred(Dealer dealer, Map<CarGroup, Integer> moved) {
+    Set<Long> sourceDealerIds = new HashSet<>();
+    Set<Long> years = new HashSet<>();
+    int count = 0;
+    for (Map.Entry<CarGroup, Integer> entry : moved.entrySet()) {
+      CarGroup group = entry.getKey();
+      carCache.remove(CarCacheKey.byDealerAndYear(group.dealerId(), group.year()));
+      if (group.dealerId() != null) {
+        sourceDealerIds.add(group.dealerId());
+      }
+      years.add(group.year());
+      count += entry.getValue();
+    }
+    for (Long year : years) {
+      carCache.remove(CarCacheKey.byDealerAndYear(dealer.getId(), year));
+    }
+    if (count > 0) {
+      dealerRepository.findAllById(sourceDealerIds).forEach(dealerService::evictDealer);
+      dealerService.evictDealer(dealer);
+      inventoryService.recordMoved(moved, dealer.getId());
+      log.info("К дилеру {} переведено автомобилей: {}", dealer.getId(), count);
+    }
+    return count;
+  }
 
+  private static Long dealerIdOf(Car car) {
+    return car.getDealer() != null ? car.getDealer().getId() : null;
+  }
+}
@@ -1,11 +1,27 @@
 package com.example.cars.service;
 
+import static com.example.cars.component.ReplicaRoutingDataSource.readFromPrimary;
+
+import com.example.cars.component.Cache;
+import com.example.cars.component.CarCacheKey;
+import com.example.cars.component.DealerCacheKey;
+import com.example.cars.component.OptimisticRetryExecutor;
+import com.example.cars.component.WeakInterner;
+import com.example.cars.dto.CacheStatsDto;
+import com.example.cars.dto.CarDto;
 import com.example.cars.dto.DealerDto;
 import com.example.cars.entity.Dealer;
 import com.example.cars.exceptions.DealerAlreadyExistException;
+import com.example.cars.exceptions.DealerDeletionException;
 import com.example.cars.exceptions.DealerNotFoundException;
+import com.example.cars.repository.CarBatchRepository;
+import com.example.cars.repository.CarBatchRepository.CarGroup;
+import com.example.cars.repository.CarBatchRepository.DealerCars;
+import com.example.cars.repository.CarBatchRepository.DeletedCars;
 import com.example.cars.repository.DealerRepository;
-import java.util.Optional;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
@@ -15,13 +31,31 @@ import org.springframework.stereotype.Service;
 @Service
 public class DealerService {
   private final DealerRepository dealerRepository;
+  private final CarBatchRepository carBatchRepository;
+  private final Cache<DealerCacheKey, DealerDto> dealerCache;
+  private final Cache<CarCacheKey, CarDto> carCache;
+  private final WeakInterner<Long, CarDto> carDtoInterner;
+  private final OptimisticRetryExecutor conflictRetry;
+  private final InventoryService inventoryService;
   private static final String DEALER_NOT_FOUND_STRING = "Дилер не найден";
   private static final String DEALER_ALREADY_EXIST = "Такой дилер уже существует";
 
   @Autowired
 
-  public DealerService(DealerRepository dealerRepository) {
+  public DealerService(DealerRepository dealerRepository,
+                       CarBatchRepository carBatchRepository,
+                       Cache<DealerCacheKey, DealerDto> dealerCache,
+                       Cache<CarCacheKey, CarDto> carCache,
+                       WeakInterner<Long, CarDto> carDtoInterner,
+                       OptimisticRetryExecutor conflictRetry,
+                       InventoryService inventoryService) {
     this.dealerRepository = dealerRepository;
+    this.carBatchRepository = carBatchRepository;
+    this.dealerCache = dealerCache;
+    this.carCache = carCache;
+    this.carDtoInterner = carDtoInterner;
+    this.conflictRetry = conflictRetry;
+    this.inventoryService = inventoryService;
   }
 
   /**
@@ -31,29 +65,44 @@ public class DealerService {
      * @throws DealerAlreadyExistException    if a dealer with the same name already exists
      */
   public void addDealer(Dealer dealer) throws DealerAlreadyExistException {
-    if (dealerRepository.findByName(dealer.getName()) != null) {
+    if (readFromPrimary(() -> dealerRepository.findByName(dealer.getName())) != null) {
       throw new DealerAlreadyExistException(DEALER_ALREADY_EXIST);
     }
     dealerRepository.save(dealer);
+    evictDealer(dealer.getId(), dealer.getName());
   }
 
   /**
-     * Updates an existing dealer.
+     * Updates an existing dealer, replacing its car list.
+     * The cars of the dealer are read before and after the update, so the cached cars and the
+     * inventory counts of the dealer follow the new list. A concurrent change of the dealer is
+     * detected through its version; the update is then re-applied to the latest state of the
+     * dealer, a bounded number of times.
      *
      * @param name   the name of the dealer to update
      * @param updatedDealer the updated city data
      * @throws DealerNotFoundException if the city with the specified ID is not found
      */
   public void updateDealer(String name, Dealer updatedDealer) throws DealerNotFoundException {
-    Dealer dealerEntity = dealerRepository.findByName(name);
-    if (dealerEntity != null) {
+    conflictRetry.execute(attempt -> {
+      Dealer dealerEntity = readFromPrimary(() -> dealerRepository.findByName(name));
+      if (dealerEntity == null) {
+        throw new DealerNotFoundException(DEALER_NOT_FOUND_STRING);
+      }
+      evictDealer(dealerEntity.getId(), name);
       dealerEntity.setName(updatedDealer.getName());
       dealerEntity.setAddress(updatedDealer.getAddress());
       dealerEntity.setCarList(updatedDealer.getCarList());
+      DealerCars before = carBatchRepository.findDealerCars(dealerEntity.getId());
       dealerRepository.save(dealerEntity);
-    } else {
-      throw new DealerNotFoundException(DEALER_NOT_FOUND_STRING);
-    }
+      DealerCars after = carBatchRepository.findDealerCars(dealerEntity.getId());
+      evictCars(before.ids(), before.groups().keySet());
+      evictCars(after.ids(), after.groups().keySet());
+      inventoryService.recordRemoved(before.groups());
+      inventoryService.recordAdded(after.groups());
+      evictDealer(dealerEntity.getId(), dealerEntity.getName());
+      return null;
+    });
   }
 
   /**
@@ -64,14 +113,12 @@ public class DealerService {
      * @throws DealerNotFoundException if the dealer with the specified ID is not found
      */
   public DealerDto getDealerById(Long id) throws DealerNotFoundException {
-    Optional<Dealer> optionalDealer = dealerRepository.findById(id);
-    if (optionalDealer.isPresent()) {
-      Dealer dealer = optionalDealer.get();
-
-      return DealerDto.toDealer(dealer);
-    } else {
+    DealerDto dealerDto = dealerCache.getOrLoad(DealerCacheKey.byId(id),
+        () -> dealerRepository.findWithCarsById(id).map(this::toDealerDto).orElse(null));
+    if (dealerDto == null) {
       throw new DealerNotFoundException(DEALER_NOT_FOUND_STRING);
     }
+    return dealerDto;
   }
 
   /**
@@ -82,23 +129,106 @@ public class DealerService {
      * @throws DealerNotFoundException if the dealer with the specified ID is not found
      */
   public DealerDto getDealerByName(String name) throws DealerNotFoundException {
-    Dealer dealer = dealerRepository.findByName(name);
-    if (dealer == null) {
+    DealerDto dealerDto = dealerCache.getOrLoad(DealerCacheKey.byName(name), () -> {
+      Dealer dealer = dealerRepository.findWithCarsByName(name);
+      return dealer != null ? toDealerDto(dealer) : null;
+    });
+    if (dealerDto == null) {
       throw new DealerNotFoundException(DEALER_NOT_FOUND_STRING);
     }
-    return DealerDto.toDealer(dealer);
+    return dealerDto;
   }
 
   /**
      * Deletes a dealer by its ID.
+     * The cars of the dealer are deleted first with set-based deletes, chunk by chunk, so the
+     * cascade on the car list has nothing left to load. If a chunk fails the dealer is kept,
+     * with the cars that were not deleted yet.
      *
      * @param id the ID of the dealer to delete
      * @throws DealerNotFoundException if the dealer with the specified ID is not found
+     * @throws DealerDeletionException if not every car of the dealer could be deleted
      */
-  public void deleteDealer(Long id) throws DealerNotFoundException {
-    if (!dealerRepository.existsById(id)) {
+  public void deleteDealer(Long id) throws DealerNotFoundException, DealerDeletionException {
+    Dealer dealer = readFromPrimary(() -> dealerRepository.findById(id)).orElse(null);
+    if (dealer == null) {
       throw new DealerNotFoundException(DEALER_NOT_FOUND_STRING);
     }
+    DeletedCars deletedCars = carBatchRepository.deleteAll(id, null);
+    afterCarsDeleted(deletedCars);
+    if (!deletedCars.complete()) {
+      throw new DealerDeletionException("Не удалось удалить все автомобили дилера.");
+    }
     dealerRepository.deleteById(id);
+    inventoryService.removeDealer(id);
+    evictDealer(id, dealer.getName());
+  }
+
+  /**
+   * Returns the statistics of the dealer cache.
+   *
+   * @return hit, miss, load and eviction counters with the current cache footprint
+   */
+  public CacheStatsDto getCacheStats() {
+    return dealerCache.stats();
+  }
+
+  /**
+   * Evicts the cached views of a dealer after its data or its inventory has changed.
+   *
+   * @param dealer the dealer whose entries are to be evicted, or null to do nothing
+   */
+  public void evictDealer(Dealer dealer) {
+    if (dealer != null) {
+      evictDealer(dealer.getId(), dealer.getName());
+    }
+  }
+
+  /**
+   * Evicts every cache entry deleted cars appeared in and the views of their dealers, and
+   * updates the inventory counts.
+   *
+   * @param deleted the cars removed by a bulk delete
+   */
+  public void afterCarsDeleted(DeletedCars deleted) {
+    evictCars(deleted.ids(), deleted.groups().keySet());
+    Set<Long> dealerIds = new HashSet<>();
+    for (CarGroup group : deleted.groups().keySet()) {
+      if (group.dealerId() != null) {
+        dealerIds.add(group.dealerId());
+      }
+    }
+    if (deleted.count() > 0) {
+      dealerRepository.findAllById(dealerIds).forEach(this::evictDealer);
+      inventoryService.recordRemoved(deleted.groups());
+    }
+  }
+
+  /**
+   * Evicts the given cars and every car list of their groups from the car cache.
+   */
+  private void evictCars(Collection<Long> carIds, Collection<CarGroup> groups) {
+    for (Long carId : carIds) {
+      carCache.remove(CarCacheKey.byId(carId));
+    }
+    for (CarGroup group : groups) {
+      carCache.remove(CarCacheKey.byMake(group.make()));
+      carCache.remove(CarCacheKey.byDealerAndYear(group.dealerId(), group.year()));
+    }
+  }
+
+  /**
+   * Converts a dealer to its DTO, sharing the car DTOs already held by the car cache.
+   */
+  private DealerDto toDealerDto(Dealer dealer) {
+    return DealerDto.toDealer(dealer, car -> carDtoInterner.intern(car.getId(), car));
+  }
+
+  /**
+   * Evicts the dealer's id and name entries, including cached not-found results for them.
+   */
+  private void evictDealer(Long id, String name) {
+    dealerCache.remove(DealerCacheKey.byId(id));
+    dealerCache.remove(DealerCacheKey.byName(name));
   }
 }
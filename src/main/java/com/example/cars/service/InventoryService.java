@@ -0,0 +1,286 @@
+package com.example.cars.service;
+
+import com.example.cars.dto.DealerInventoryDto;
+import com.example.cars.repository.CarBatchRepository;
+import com.example.cars.repository.CarBatchRepository.CarGroup;
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Service;
+
+/**
+ * Service class keeping the number of cars of every dealer by make and by year.
+ * The counts are rebuilt from the database on startup, before the application reports itself
+ * ready, and then adjusted by every write of the car and dealer services, so reading them never
+ * touches the database. Every count is exact on its own; a snapshot taken while cars are being
+ * written may mix counts from before and after a write. Cars without a dealer are not counted,
+ * and cars without a make or a year are only counted in the dealer total.
+ * Only the writes of this node adjust its counts, so the counts are also rebuilt periodically
+ * from a replica to pick up the writes of the other nodes. Writes recorded while a rebuild runs
+ * are replayed onto the rebuilt counts; one committed just before the rebuild's query may end up
+ * counted twice until the next rebuild.
+ */
+@Service
+public class InventoryService implements ApplicationRunner, AutoCloseable {
+
+  private static final Logger log = LoggerFactory.getLogger(InventoryService.class);
+  private final CarBatchRepository carBatchRepository;
+  private final long rebuildIntervalMillis;
+  private final ReentrantLock rebuildLock = new ReentrantLock();
+  private final ReadWriteLock swapLock = new ReentrantReadWriteLock();
+  private volatile Map<Long, DealerInventory> dealers = new ConcurrentHashMap<>();
+  private Queue<Consumer<Map<Long, DealerInventory>>> pending;
+  private ScheduledExecutorService rebuilder;
+
+  /**
+   * Service keeping the inventory counts.
+   *
+   * @param rebuildInterval how often the counts are rebuilt after startup, or zero to rebuild
+   *                        them on startup only
+   */
+  @Autowired
+
+  public InventoryService(CarBatchRepository carBatchRepository,
+                          @Value("${inventory.rebuild-interval:1h}") Duration rebuildInterval) {
+    this.carBatchRepository = carBatchRepository;
+    this.rebuildIntervalMillis = rebuildInterval == null ? 0 : rebuildInterval.toMillis();
+  }
+
+  /**
+   * Rebuilds the counts from the database and schedules the periodic rebuild.
+   */
+  @Override
+  public synchronized void run(ApplicationArguments args) {
+    rebuild();
+    if (rebuildIntervalMillis > 0 && rebuilder == null) {
+      rebuilder = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "inventory-rebuilder");
+        thread.setDaemon(true);
+        return thread;
+      });
+      rebuilder.scheduleWithFixedDelay(this::rebuildQuietly, rebuildIntervalMillis,
+          rebuildIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+  }
+
+  /**
+   * Stops the periodic rebuild.
+   */
+  @Override
+  public synchronized void close() {
+    if (rebuilder != null) {
+      rebuilder.shutdownNow();
+      rebuilder = null;
+    }
+  }
+
+  /**
+   * Replaces the counts with those computed by the database, then replays the writes recorded
+   * while the query ran. Concurrent rebuilds are run one after the other.
+   */
+  public void rebuild() {
+    rebuildLock.lock();
+    try {
+      long start = System.nanoTime();
+      Map<Long, DealerInventory> rebuilt = new ConcurrentHashMap<>();
+      Queue<Consumer<Map<Long, DealerInventory>>> recorded = new ConcurrentLinkedQueue<>();
+      updateExclusively(() -> pending = recorded);
+      Map<CarGroup, Integer> groups;
+      try {
+        groups = carBatchRepository.countByGroup();
+      } catch (RuntimeException e) {
+        updateExclusively(() -> pending = null);
+        throw e;
+      }
+      groups.forEach((group, count) -> add(rebuilt, group.dealerId(), group.make(),
+          group.year(), count));
+      updateExclusively(() -> {
+        recorded.forEach(update -> update.accept(rebuilt));
+        dealers = rebuilt;
+        pending = null;
+      });
+      log.info("Счётчики наличия пересчитаны: {} дилеров, {} групп за {} мс.", rebuilt.size(),
+          groups.size(), (System.nanoTime() - start) / 1_000_000);
+    } finally {
+      rebuildLock.unlock();
+    }
+  }
+
+  /**
+   * Records cars added to a dealer, or removed from it if the number is negative.
+   *
+   * @param dealerId the ID of the dealer
+   * @param make     the make of the cars
+   * @param year     the production year of the cars
+   * @param delta    the number of added cars
+   */
+  public void record(Long dealerId, String make, Long year, long delta) {
+    update(inventories -> add(inventories, dealerId, make, year, delta));
+  }
+
+  /**
+   * Records the addition of groups of cars.
+   *
+   * @param groups the number of added cars per group
+   */
+  public void recordAdded(Map<CarGroup, Integer> groups) {
+    groups.forEach((group, count) -> record(group.dealerId(), group.make(), group.year(),
+        count));
+  }
+
+  /**
+   * Records the removal of groups of cars, as returned by a bulk delete.
+   *
+   * @param groups the number of removed cars per group
+   */
+  public void recordRemoved(Map<CarGroup, Integer> groups) {
+    groups.forEach((group, count) -> record(group.dealerId(), group.make(), group.year(),
+        -count));
+  }
+
+  /**
+   * Records groups of cars moving to a dealer, as returned by a bulk transfer.
+   *
+   * @param groups   the number of moved cars per group they were in before the transfer
+   * @param dealerId the ID of the dealer receiving the cars
+   */
+  public void recordMoved(Map<CarGroup, Integer> groups, Long dealerId) {
+    groups.forEach((group, count) -> {
+      record(group.dealerId(), group.make(), group.year(), -count);
+      record(dealerId, group.make(), group.year(), count);
+    });
+  }
+
+  /**
+   * Forgets the counts of a deleted dealer.
+   *
+   * @param dealerId the ID of the dealer
+   */
+  public void removeDealer(Long dealerId) {
+    update(inventories -> inventories.remove(dealerId));
+  }
+
+  /**
+   * Returns the counts of a dealer; a dealer without cars has empty counts.
+   *
+   * @param dealerId the ID of the dealer
+   * @return the number of cars of the dealer in total, by make and by year
+   */
+  public DealerInventoryDto getDealerInventory(Long dealerId) {
+    DealerInventory inventory = dealers.get(dealerId);
+    return inventory != null ? inventory.snapshot(dealerId)
+        : new DealerInventoryDto(dealerId, 0, Map.of(), Map.of());
+  }
+
+  /**
+   * Returns the counts of every dealer with cars, ordered by dealer ID.
+   *
+   * @return the number of cars of every dealer in total, by make and by year
+   */
+  public List<DealerInventoryDto> getInventories() {
+    return dealers.entrySet().stream()
+        .sorted(Map.Entry.comparingByKey(Comparator.naturalOrder()))
+        .map(entry -> entry.getValue().snapshot(entry.getKey()))
+        .toList();
+  }
+
+  /**
+   * Rebuilds the counts on the schedule; a failing rebuild keeps the current counts.
+   */
+  private void rebuildQuietly() {
+    try {
+      rebuild();
+    } catch (DataAccessException e) {
+      log.error("Не удалось пересчитать счётчики наличия: {}", e.getMessage());
+    }
+  }
+
+  /**
+   * Applies an update to the current counts and, while a rebuild is running, remembers it for
+   * the rebuilt counts. Updates run concurrently with each other, but never while a rebuild
+   * swaps the counts.
+   */
+  private void update(Consumer<Map<Long, DealerInventory>> update) {
+    swapLock.readLock().lock();
+    try {
+      update.accept(dealers);
+      if (pending != null) {
+        pending.add(update);
+      }
+    } finally {
+      swapLock.readLock().unlock();
+    }
+  }
+
+  private void updateExclusively(Runnable update) {
+    swapLock.writeLock().lock();
+    try {
+      update.run();
+    } finally {
+      swapLock.writeLock().unlock();
+    }
+  }
+
+  /**
+   * Adds cars to the counts of a dealer, removing the dealer once it has no cars left.
+   */
+  private static void add(Map<Long, DealerInventory> dealers, Long dealerId, String make,
+                          Long year, long delta) {
+    if (dealerId == null || delta == 0) {
+      return;
+    }
+    dealers.compute(dealerId, (id, inventory) -> {
+      DealerInventory updated = inventory != null ? inventory : new DealerInventory();
+      updated.add(make, year, delta);
+      return updated.carCount.get() == 0 ? null : updated;
+    });
+  }
+
+  /**
+   * The counts of one dealer. Makes and years whose count drops to zero are removed.
+   */
+  private static final class DealerInventory {
+
+    private final AtomicLong carCount = new AtomicLong();
+    private final Map<String, Long> countsByMake = new ConcurrentHashMap<>();
+    private final Map<Long, Long> countsByYear = new ConcurrentHashMap<>();
+
+    void add(String make, Long year, long delta) {
+      carCount.addAndGet(delta);
+      if (make != null) {
+        countsByMake.merge(make, delta, InventoryService::sumOrRemove);
+      }
+      if (year != null) {
+        countsByYear.merge(year, delta, InventoryService::sumOrRemove);
+      }
+    }
+
+    DealerInventoryDto snapshot(Long dealerId) {
+      return new DealerInventoryDto(dealerId, carCount.get(), countsByMake, countsByYear);
+    }
+  }
+
+  private static Long sumOrRemove(Long count, Long delta) {
+    long sum = count + delta;
+    return sum == 0 ? null : sum;
+  }
+}
@@ -1,10 +1,22 @@
 package com.example.cars.component;
 
+import com.example.cars.dto.CacheStatsDto;
+import com.example.cars.dto.CarDto;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.springframework.util.unit.DataSize;
 
+import java.time.Duration;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -44,4 +56,356 @@ class CacheTest {
         cache.putList("key1", valueList);
         assertEquals(valueList, cache.getList("key1"));
     }
+
+    @Test
+    void testEvictsLeastRecentlyUsedEntry() {
+        Cache<Integer, String> small = new Cache<>(settings(1));
+        small.put(1, "one");
+        small.put(2, "two");
+        assertFalse(small.containsKey(1));
+        assertEquals("two", small.get(2));
+        assertEquals(1, small.size());
+    }
+
+    @Test
+    void testSizeNeverExceedsCapacity() {
+        Cache<Integer, Integer> bounded = new Cache<>(settings(10));
+        for (int i = 0; i < 1000; i++) {
+            bounded.put(i, i);
+        }
+        assertTrue(bounded.weight() <= 10);
+    }
+
+    @Test
+    void testConcurrentReadsAndWrites() throws Exception {
+        Cache<Integer, Integer> shared = new Cache<>(settings(64));
+        int threads = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            int offset = t;
+            futures.add(executor.submit(() -> {
+                start.await();
+                for (int i = 0; i < 10_000; i++) {
+                    int key = (i + offset) % 128;
+                    shared.put(key, key);
+                    Integer value = shared.get(key);
+                    if (value != null && value != key) {
+                        throw new AssertionError("Unexpected value " + value + " for key " + key);
+                    }
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get(30, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+        assertTrue(shared.size() <= 64);
+    }
+
+    @Test
+    void testListWeighsNumberOfValues() {
+        Cache<String, String> weighted = new Cache<>(settings(4));
+        weighted.putList("list", List.of("a", "b", "c"));
+        weighted.put("single", "d");
+        assertEquals(4, weighted.weight());
+        weighted.putList("tooHeavy", List.of("a", "b", "c", "d", "e"));
+        assertNull(weighted.getList("tooHeavy"));
+    }
+
+    @Test
+    void testWeigherBoundsValuesEmbeddingCollections() {
+        Cache<String, List<String>> weighted = new Cache<>(settings(4), value -> 0, value -> value.size());
+        weighted.put("two", List.of("a", "b"));
+        weighted.put("empty", List.of());
+        assertEquals(3, weighted.weight());
+        weighted.put("tooHeavy", List.of("a", "b", "c", "d", "e"));
+        assertNull(weighted.get("tooHeavy"));
+        assertEquals(List.of("a", "b"), weighted.get("two"));
+    }
+
+    @Test
+    void testListHeavierThanSegmentBudgetIsCachedInOverflowSegment() {
+        Cache<Long, List<String>> dealers = new Cache<>(settings(50_000), value -> 0,
+                value -> 1 + value.size());
+        List<String> cars = Collections.nCopies(5_000, "car");
+        dealers.put(1L, cars);
+        assertEquals(cars, dealers.get(1L));
+        assertTrue(dealers.containsKey(1L));
+        assertEquals(5_001, dealers.weight());
+
+        dealers.put(1L, List.of("car"));
+        assertEquals(List.of("car"), dealers.get(1L));
+        assertEquals(2, dealers.weight());
+
+        for (long id = 2; id < 100; id++) {
+            dealers.put(id, cars);
+        }
+        assertTrue(dealers.weight() <= 50_000);
+        dealers.remove(99L);
+        assertNull(dealers.get(99L));
+        dealers.clear();
+        assertEquals(0, dealers.size());
+    }
+
+    @Test
+    void testExpireAfterWrite() {
+        AtomicLong now = new AtomicLong();
+        CacheSettings settings = settings(10);
+        settings.setExpireAfterWrite(Duration.ofSeconds(5));
+        Cache<String, String> expiring = new Cache<>(settings, value -> 0, now::get);
+        expiring.put("key1", "value1");
+        now.addAndGet(Duration.ofSeconds(4).toNanos());
+        assertEquals("value1", expiring.get("key1"));
+        now.addAndGet(Duration.ofSeconds(1).toNanos());
+        assertNull(expiring.get("key1"));
+        assertEquals(0, expiring.size());
+    }
+
+    @Test
+    void testExpireAfterAccess() {
+        AtomicLong now = new AtomicLong();
+        CacheSettings settings = settings(10);
+        settings.setExpireAfterAccess(Duration.ofSeconds(5));
+        Cache<String, String> expiring = new Cache<>(settings, value -> 0, now::get);
+        expiring.put("key1", "value1");
+        for (int i = 0; i < 3; i++) {
+            now.addAndGet(Duration.ofSeconds(4).toNanos());
+            assertEquals("value1", expiring.get("key1"));
+        }
+        now.addAndGet(Duration.ofSeconds(5).toNanos());
+        assertFalse(expiring.containsKey("key1"));
+    }
+
+    @Test
+    void testTinyLfuKeepsHotEntriesDuringScan() {
+        CacheSettings settings = settings(100);
+        settings.setAdmission(CacheSettings.AdmissionPolicy.TINY_LFU);
+        Cache<Integer, Integer> admitting = new Cache<>(settings);
+        for (int round = 0; round < 5; round++) {
+            for (int hot = 0; hot < 50; hot++) {
+                admitting.put(hot, hot);
+                admitting.get(hot);
+            }
+        }
+        for (int scan = 1000; scan < 2000; scan++) {
+            admitting.put(scan, scan);
+        }
+        int hotHits = 0;
+        for (int hot = 0; hot < 50; hot++) {
+            if (admitting.get(hot) != null) {
+                hotHits++;
+            }
+        }
+        assertTrue(hotHits >= 45, "hot entries were flushed by the scan: " + hotHits);
+        assertTrue(admitting.weight() <= 100);
+    }
+
+    @Test
+    void testStatsCountHitsMissesLoadsAndEvictions() {
+        Cache<Integer, String> counted = new Cache<>(settings(1), value -> value.length(), System::nanoTime);
+        counted.put(1, "one");
+        counted.get(1);
+        counted.get(2);
+        counted.recordLoadSuccess(100);
+        counted.recordLoadFailure(300);
+        counted.put(2, "two");
+
+        CacheStatsDto stats = counted.stats();
+
+        assertEquals(1, stats.getHitCount());
+        assertEquals(1, stats.getMissCount());
+        assertEquals(0.5, stats.getHitRate());
+        assertEquals(1, stats.getLoadSuccessCount());
+        assertEquals(1, stats.getLoadFailureCount());
+        assertEquals(200.0, stats.getAverageLoadPenaltyNanos());
+        assertEquals(1, stats.getEvictionCount());
+        assertEquals(1, stats.getSize());
+        assertTrue(stats.getEstimatedBytes() > 3);
+    }
+
+    @Test
+    void testConcurrentMissesShareOneLoad() throws Exception {
+        Cache<String, String> loading = new Cache<>(settings(10));
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        List<Future<String>> futures = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            futures.add(executor.submit(() -> loading.getOrLoad("key1", () -> {
+                loads.incrementAndGet();
+                release.await();
+                return "value1";
+            })));
+        }
+        Thread.sleep(100);
+        release.countDown();
+        for (Future<String> future : futures) {
+            assertEquals("value1", future.get(10, TimeUnit.SECONDS));
+        }
+        executor.shutdown();
+        assertEquals(1, loads.get());
+        assertEquals("value1", loading.get("key1"));
+    }
+
+    @Test
+    void testFailedLoadIsPropagatedAndNotCached() {
+        Cache<String, String> loading = new Cache<>(settings(10));
+        assertThrows(IllegalStateException.class, () -> loading.getOrLoad("key1", () -> {
+            throw new IllegalStateException("not found");
+        }));
+        assertFalse(loading.containsKey("key1"));
+        assertEquals(1, loading.stats().getLoadFailureCount());
+    }
+
+    @Test
+    void testNegativeResultIsCachedUntilTtlOrRemoval() {
+        AtomicLong now = new AtomicLong();
+        AtomicInteger loads = new AtomicInteger();
+        CacheSettings settings = settings(10);
+        settings.setNegativeTtl(Duration.ofSeconds(30));
+        Cache<String, String> negative = new Cache<>(settings, value -> 0, now::get);
+
+        assertNull(negative.getOrLoad("missing", () -> { loads.incrementAndGet(); return null; }));
+        assertNull(negative.getOrLoad("missing", () -> { loads.incrementAndGet(); return null; }));
+        assertEquals(1, loads.get());
+        assertFalse(negative.containsKey("missing"));
+
+        negative.remove("missing");
+        assertEquals("found", negative.getOrLoad("missing", () -> { loads.incrementAndGet(); return "found"; }));
+        assertEquals(2, loads.get());
+
+        negative.remove("missing");
+        negative.getOrLoad("missing", () -> { loads.incrementAndGet(); return null; });
+        now.addAndGet(Duration.ofSeconds(30).toNanos());
+        negative.getOrLoad("missing", () -> { loads.incrementAndGet(); return null; });
+        assertEquals(4, loads.get());
+    }
+
+    @Test
+    void testStaleEntryIsServedWhileRefreshRunsInBackground() {
+        AtomicLong now = new AtomicLong();
+        List<Runnable> refreshes = new ArrayList<>();
+        CacheSettings settings = settings(10);
+        settings.setExpireAfterWrite(Duration.ofMinutes(10));
+        settings.setRefreshAfterWrite(Duration.ofMinutes(8));
+        Cache<String, String> refreshing = new Cache<>(settings, value -> 0, null, refreshes::add, now::get);
+
+        assertEquals(List.of("v1"), refreshing.getListOrLoad("key", () -> List.of("v1")));
+        now.addAndGet(Duration.ofMinutes(8).toNanos());
+
+        assertEquals(List.of("v1"), refreshing.getListOrLoad("key", () -> List.of("v2")));
+        assertEquals(List.of("v1"), refreshing.getListOrLoad("key", () -> List.of("v3")));
+        assertEquals(1, refreshes.size());
+
+        refreshes.get(0).run();
+        assertEquals(List.of("v2"), refreshing.getList("key"));
+        assertEquals(1, refreshing.stats().getRefreshCount());
+
+        now.addAndGet(Duration.ofMinutes(5).toNanos());
+        assertEquals(List.of("v2"), refreshing.getListOrLoad("key", () -> List.of("v4")));
+        assertEquals(1, refreshes.size());
+    }
+
+    @Test
+    void testFailedRefreshKeepsCurrentEntry() {
+        AtomicLong now = new AtomicLong();
+        CacheSettings settings = settings(10);
+        settings.setRefreshAfterWrite(Duration.ofMinutes(1));
+        Cache<String, String> refreshing = new Cache<>(settings, value -> 0, null, Runnable::run, now::get);
+
+        refreshing.getListOrLoad("key", () -> List.of("v1"));
+        now.addAndGet(Duration.ofMinutes(1).toNanos());
+        List<String> served = refreshing.getListOrLoad("key", () -> {
+            throw new IllegalStateException("database unavailable");
+        });
+
+        assertEquals(List.of("v1"), served);
+        assertEquals(List.of("v1"), refreshing.getList("key"));
+        assertEquals(1, refreshing.stats().getLoadFailureCount());
+    }
+
+    @Test
+    void testRefreshFindingNothingDropsEntry() {
+        AtomicLong now = new AtomicLong();
+        CacheSettings settings = settings(10);
+        settings.setRefreshAfterWrite(Duration.ofMinutes(1));
+        Cache<String, String> refreshing = new Cache<>(settings, value -> 0, null, Runnable::run, now::get);
+
+        refreshing.getListOrLoad("key", () -> List.of("v1"));
+        now.addAndGet(Duration.ofMinutes(1).toNanos());
+        refreshing.getListOrLoad("key", () -> null);
+
+        assertNull(refreshing.getList("key"));
+    }
+
+    @Test
+    void testHottestKeysAreRankedByFrequency() {
+        CacheSettings settings = settings(100);
+        settings.setAdmission(CacheSettings.AdmissionPolicy.TINY_LFU);
+        Cache<String, String> ranked = new Cache<>(settings);
+        ranked.put("cold", "value");
+        ranked.put("warm", "value");
+        ranked.put("hot", "value");
+        for (int i = 0; i < 5; i++) {
+            ranked.get("hot");
+        }
+        ranked.get("warm");
+
+        assertEquals(List.of("hot", "warm"), ranked.hottestKeys(2));
+        assertEquals(3, ranked.hottestKeys(10).size());
+    }
+
+    @Test
+    void testEvictedEntriesAreServedFromOffHeapTier() {
+        CacheSettings settings = settings(10);
+        settings.setOffHeapCapacity(DataSize.ofKilobytes(64));
+        settings.setOffHeapSlabSize(DataSize.ofKilobytes(8));
+        Cache<Long, CarDto> tiered = new Cache<>(settings, value -> 0, new CarDtoCodec());
+        for (long id = 0; id < 100; id++) {
+            CarDto car = new CarDto(id, 2020L, "Make" + id, null, "VIN" + id);
+            tiered.put(id, car);
+        }
+
+        assertTrue(tiered.size() <= 10);
+        for (long id = 0; id < 100; id++) {
+            CarDto car = tiered.get(id);
+            assertNotNull(car);
+            assertEquals("VIN" + id, car.getVin());
+            assertEquals("Make" + id, car.getMake());
+        }
+        assertTrue(tiered.stats().getOffHeapHitCount() >= 90);
+
+        tiered.remove(5L);
+        assertNull(tiered.get(5L));
+    }
+
+    @Test
+    void testRecordsLargerThanOffHeapSlabAreReportedAsDroppedWrites() {
+        CacheSettings settings = settings(1_000);
+        settings.setOffHeapCapacity(DataSize.ofKilobytes(2));
+        settings.setOffHeapSlabSize(DataSize.ofKilobytes(1));
+        Cache<Long, CarDto> tiered = new Cache<>(settings, value -> 0, new CarDtoCodec());
+        List<CarDto> cars = new ArrayList<>();
+        for (long id = 0; id < 100; id++) {
+            cars.add(new CarDto(id, 2020L, "Make" + id, null, "VIN" + id));
+        }
+
+        tiered.putList(1L, cars);
+        tiered.put(2L, cars.get(0));
+
+        CacheStatsDto stats = tiered.stats();
+        assertEquals(1, stats.getOffHeapDroppedWriteCount());
+        assertEquals(1, stats.getOffHeapSize());
+        assertEquals(cars, tiered.getList(1L));
+    }
+
+    private static CacheSettings settings(long maxWeight) {
+        CacheSettings settings = new CacheSettings();
+        settings.setMaxWeight(maxWeight);
+        return settings;
+    }
 }
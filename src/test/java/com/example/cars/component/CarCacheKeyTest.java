@@ -0,0 +1,40 @@
+package com.example.cars.component;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CarCacheKeyTest {
+
+    @Test
+    void testKeysWithSameValuesAreEqual() {
+        assertEquals(CarCacheKey.byId(1L), CarCacheKey.byId(1L));
+        assertEquals(CarCacheKey.byMake("Toyota"), CarCacheKey.byMake("Toyota"));
+        assertEquals(CarCacheKey.byDealerAndYear(1L, 2020L), CarCacheKey.byDealerAndYear(1L, 2020L));
+        assertEquals(CarCacheKey.byDealerAndYear(1L, 2020L).hashCode(),
+                CarCacheKey.byDealerAndYear(1L, 2020L).hashCode());
+    }
+
+    @Test
+    void testKeysOfDifferentKindsDoNotCollide() {
+        Cache<CarCacheKey, String> cache = new Cache<>();
+        cache.put(CarCacheKey.byMake("dealer_1_year_2020"), "car");
+        cache.putList(CarCacheKey.byDealerAndYear(1L, 2020L), List.of("list"));
+
+        assertEquals("car", cache.get(CarCacheKey.byMake("dealer_1_year_2020")));
+        assertEquals(List.of("list"), cache.getList(CarCacheKey.byDealerAndYear(1L, 2020L)));
+        assertNotEquals(CarCacheKey.byId(1L), CarCacheKey.byDealerAndYear(1L, null));
+    }
+
+    @Test
+    void testRepeatedIdLookupsReuseTheKey() {
+        CarCacheKey key = CarCacheKey.byId(7L);
+
+        assertSame(key, CarCacheKey.byId(7L));
+        assertEquals(CarCacheKey.byId(7L + 1024), CarCacheKey.byId(7L + 1024));
+        assertEquals(key, CarCacheKey.byId(7L));
+        assertNotEquals(key, CarCacheKey.byId(7L + 1024));
+    }
+}
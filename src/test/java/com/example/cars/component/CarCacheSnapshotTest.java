@@ -0,0 +1,36 @@
+package com.example.cars.component;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CarCacheSnapshotTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void testWriteAndReadKeys() throws IOException {
+        Path file = tempDir.resolve("cars.snapshot");
+        List<CarCacheKey> keys = List.of(CarCacheKey.byId(1L), CarCacheKey.byMake("Toyota"),
+                CarCacheKey.byDealerAndYear(2L, 2020L), CarCacheKey.byDealerAndYear(null, 2021L));
+
+        CarCacheSnapshot.write(keys, file);
+
+        assertEquals(keys, CarCacheSnapshot.read(file));
+    }
+
+    @Test
+    void testReadRejectsForeignFile() throws IOException {
+        Path file = tempDir.resolve("cars.snapshot");
+        Files.writeString(file, "not a snapshot");
+
+        assertThrows(IOException.class, () -> CarCacheSnapshot.read(file));
+    }
+}
@@ -0,0 +1,89 @@
+package com.example.cars.component;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CarFeedReaderTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void testReadNdjsonSkipsBlankLinesAndReportsMalformedOnes() throws IOException {
+        String feed = "{\"year\":2020,\"make\":\"Toyota\",\"model\":\"Camry\",\"vin\":\"VIN1\"}\n"
+                + "\n"
+                + "{\"year\":2021,\n"
+                + "{\"make\":\"Honda\",\"vin\":\"VIN2\"}\n";
+        CarFeedReader reader = new CarFeedReader(new StringReader(feed),
+                CarFeedReader.Format.NDJSON, objectMapper);
+
+        CarFeedReader.Entry first = reader.next();
+        CarFeedReader.Entry malformed = reader.next();
+        CarFeedReader.Entry last = reader.next();
+
+        assertEquals(1, first.line());
+        assertEquals("VIN1", first.car().getVin());
+        assertEquals(2020L, first.car().getYear());
+        assertEquals(3, malformed.line());
+        assertNull(malformed.car());
+        assertNotNull(malformed.error());
+        assertEquals(4, last.line());
+        assertEquals("Honda", last.car().getMake());
+        assertNull(reader.next());
+    }
+
+    @Test
+    void testReadNdjsonRejectsLinesThatAreNotCarObjects() throws IOException {
+        String feed = "null\n"
+                + "42\n"
+                + "[{\"vin\":\"VIN1\"}]\n"
+                + "{\"vin\":\"VIN2\"}\n";
+        CarFeedReader reader = new CarFeedReader(new StringReader(feed),
+                CarFeedReader.Format.NDJSON, objectMapper);
+
+        for (int line = 1; line <= 3; line++) {
+            CarFeedReader.Entry rejected = reader.next();
+            assertEquals(line, rejected.line());
+            assertNull(rejected.car());
+            assertTrue(rejected.error().startsWith("Некорректный JSON"));
+        }
+        assertEquals("VIN2", reader.next().car().getVin());
+        assertNull(reader.next());
+    }
+
+    @Test
+    void testReadCsvMapsColumnsByHeader() throws IOException {
+        String feed = "VIN,make,model,year\r\n"
+                + "VIN1,Toyota,\"Camry, \"\"SE\"\"\",2020\r\n"
+                + "VIN2,Honda,,\r\n"
+                + "VIN3,Ford,Focus,unknown\r\n";
+        CarFeedReader reader = new CarFeedReader(new StringReader(feed),
+                CarFeedReader.Format.CSV, objectMapper);
+
+        CarFeedReader.Entry first = reader.next();
+        CarFeedReader.Entry second = reader.next();
+        CarFeedReader.Entry third = reader.next();
+
+        assertEquals(2, first.line());
+        assertEquals("VIN1", first.car().getVin());
+        assertEquals("Camry, \"SE\"", first.car().getModel());
+        assertEquals(2020L, first.car().getYear());
+        assertNull(second.car().getModel());
+        assertNull(second.car().getYear());
+        assertNull(third.car());
+        assertNotNull(third.error());
+        assertNull(reader.next());
+    }
+
+    @Test
+    void testReadCsvWithoutVinColumnFails() {
+        CarFeedReader reader = new CarFeedReader(new StringReader("make,model\nToyota,Camry\n"),
+                CarFeedReader.Format.CSV, objectMapper);
+
+        assertThrows(IOException.class, reader::next);
+    }
+}
@@ -0,0 +1,91 @@
+package com.example.cars.component;
+
+import com.example.cars.dto.PoolStatsDto;
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.metrics.IMetricsTracker;
+import com.zaxxer.hikari.metrics.PoolStats;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConnectionPoolMetricsTest {
+
+    private final ConnectionPoolMetrics metrics = new ConnectionPoolMetrics();
+
+    @Test
+    void testSnapshotReportsGaugesAndAcquisitionHistogram() {
+        HikariConfig config = new HikariConfig();
+        config.setLeakDetectionThreshold(1000);
+        IMetricsTracker tracker = metrics.trackerFactory(config).create("writes", fixedStats());
+
+        tracker.recordConnectionAcquiredNanos(TimeUnit.MICROSECONDS.toNanos(500));
+        tracker.recordConnectionAcquiredNanos(TimeUnit.MILLISECONDS.toNanos(7));
+        tracker.recordConnectionAcquiredNanos(TimeUnit.SECONDS.toNanos(6));
+        tracker.recordConnectionTimeout();
+
+        PoolStatsDto stats = metrics.snapshot().get(0);
+        assertEquals("writes", stats.getPoolName());
+        assertEquals(2, stats.getActiveConnections());
+        assertEquals(1, stats.getIdleConnections());
+        assertEquals(4, stats.getPendingThreads());
+        assertEquals(10, stats.getMaxConnections());
+        assertEquals(3, stats.getAcquisitionCount());
+        assertEquals(TimeUnit.SECONDS.toNanos(6), stats.getMaxAcquisitionNanos());
+        assertEquals(1L, stats.getAcquisitionHistogram().get("le_1ms"));
+        assertEquals(1L, stats.getAcquisitionHistogram().get("le_10ms"));
+        assertEquals(1L, stats.getAcquisitionHistogram().get("gt_5000ms"));
+        assertEquals(1, stats.getAcquisitionTimeoutCount());
+        assertEquals(0, stats.getLeakCount());
+    }
+
+    @Test
+    void testConnectionsHeldLongerThanLeakThresholdAreReportedUntilReturned() {
+        AtomicLong time = new AtomicLong();
+        ConnectionPoolMetrics trackingMetrics = new ConnectionPoolMetrics(time::get);
+        HikariConfig config = new HikariConfig();
+        config.setLeakDetectionThreshold(10_000);
+        IMetricsTracker tracker = trackingMetrics.trackerFactory(config).create("writes", fixedStats());
+
+        tracker.recordConnectionAcquiredNanos(1000);
+        tracker.recordConnectionAcquiredNanos(1000);
+        tracker.recordConnectionUsageMillis(0);
+        time.addAndGet(TimeUnit.SECONDS.toNanos(5));
+        tracker.recordConnectionAcquiredNanos(1000);
+        time.addAndGet(TimeUnit.SECONDS.toNanos(6));
+        assertEquals(1, trackingMetrics.snapshot().get(0).getLeakCount());
+
+        tracker.recordConnectionUsageMillis(6000);
+        assertEquals(1, trackingMetrics.snapshot().get(0).getLeakCount());
+        tracker.recordConnectionUsageMillis(11_000);
+        assertEquals(0, trackingMetrics.snapshot().get(0).getLeakCount());
+    }
+
+    @Test
+    void testClosedPoolIsNoLongerReported() {
+        IMetricsTracker reads = metrics.trackerFactory(new HikariConfig()).create("reads", fixedStats());
+        metrics.trackerFactory(new HikariConfig()).create("bulk", fixedStats());
+
+        assertEquals(List.of("bulk", "reads"),
+                metrics.snapshot().stream().map(PoolStatsDto::getPoolName).toList());
+        reads.close();
+        assertEquals(List.of("bulk"),
+                metrics.snapshot().stream().map(PoolStatsDto::getPoolName).toList());
+    }
+
+    private static PoolStats fixedStats() {
+        return new PoolStats(0) {
+            @Override
+            protected void update() {
+                totalConnections = 3;
+                activeConnections = 2;
+                idleConnections = 1;
+                pendingThreads = 4;
+                maxConnections = 10;
+            }
+        };
+    }
+}
@@ -0,0 +1,125 @@
+package com.example.cars.component;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class InvalidationBusTest {
+
+    @Test
+    void testRemovalIsPropagatedToPeersOnFlush() {
+        LoopbackTransport transport = new LoopbackTransport();
+        Cache<String, String> first = new Cache<>();
+        Cache<String, String> second = new Cache<>();
+        InvalidationBus firstBus = new InvalidationBus(transport, 100, Duration.ZERO);
+        InvalidationBus secondBus = new InvalidationBus(transport, 100, Duration.ZERO);
+        firstBus.register("cars", first);
+        secondBus.register("cars", second);
+        first.put("key", "value");
+        second.put("key", "value");
+
+        first.remove("key");
+        assertEquals("value", second.get("key"));
+
+        firstBus.flush();
+        assertNull(second.get("key"));
+        assertEquals(1, firstBus.publishedCount());
+        assertEquals(1, secondBus.receivedCount());
+        assertEquals(0, secondBus.publishedCount());
+    }
+
+    @Test
+    void testRepeatedInvalidationsAreCoalesced() {
+        RecordingTransport transport = new RecordingTransport();
+        Cache<String, String> cache = new Cache<>();
+        InvalidationBus bus = new InvalidationBus(transport, 100, Duration.ZERO);
+        bus.register("cars", cache);
+
+        cache.remove("a");
+        cache.remove("b");
+        cache.remove("a");
+        bus.flush();
+        bus.flush();
+
+        assertEquals(1, transport.batches.size());
+        assertEquals(Map.of("cars", Set.of("a", "b")), transport.batches.get(0).keysByCache());
+    }
+
+    @Test
+    void testFullBatchIsFlushedImmediately() {
+        RecordingTransport transport = new RecordingTransport();
+        Cache<Integer, String> cache = new Cache<>();
+        InvalidationBus bus = new InvalidationBus(transport, 3, Duration.ZERO);
+        bus.register("cars", cache);
+
+        for (int i = 0; i < 7; i++) {
+            cache.remove(i);
+        }
+
+        assertEquals(2, transport.batches.size());
+        assertEquals(3, transport.batches.get(1).size());
+    }
+
+    @Test
+    void testPeerBatchesOnlyReachCachesWithTheSameName() {
+        LoopbackTransport transport = new LoopbackTransport();
+        Cache<String, String> cars = new Cache<>();
+        Cache<String, String> dealers = new Cache<>();
+        InvalidationBus publisher = new InvalidationBus(transport, 100, Duration.ZERO);
+        InvalidationBus subscriber = new InvalidationBus(transport, 100, Duration.ZERO);
+        subscriber.register("cars", cars);
+        subscriber.register("dealers", dealers);
+        cars.put("key", "car");
+        dealers.put("key", "dealer");
+
+        publisher.publish("dealers", "key");
+        publisher.flush();
+
+        assertEquals("car", cars.get("key"));
+        assertNull(dealers.get("key"));
+    }
+
+    @Test
+    void testPeerBatchesNotifyPeerWriteListenerBeforeKeysAreRemoved() {
+        LoopbackTransport transport = new LoopbackTransport();
+        Cache<String, String> first = new Cache<>();
+        Cache<String, String> second = new Cache<>();
+        InvalidationBus firstBus = new InvalidationBus(transport, 100, Duration.ZERO);
+        InvalidationBus secondBus = new InvalidationBus(transport, 100, Duration.ZERO);
+        firstBus.register("cars", first);
+        secondBus.register("cars", second);
+        AtomicInteger firstWrites = new AtomicInteger();
+        List<String> valuesSeenBySecond = new ArrayList<>();
+        firstBus.setPeerWriteListener(firstWrites::incrementAndGet);
+        secondBus.setPeerWriteListener(() -> valuesSeenBySecond.add(second.get("key")));
+        second.put("key", "value");
+
+        first.remove("key");
+        firstBus.flush();
+
+        assertEquals(0, firstWrites.get());
+        assertEquals(List.of("value"), valuesSeenBySecond);
+        assertNull(second.get("key"));
+    }
+
+    private static final class RecordingTransport implements InvalidationTransport {
+        private final List<InvalidationBatch> batches = new ArrayList<>();
+
+        @Override
+        public void publish(InvalidationBatch batch) {
+            batches.add(batch);
+        }
+
+        @Override
+        public void subscribe(Consumer<InvalidationBatch> subscriber) {
+        }
+    }
+}
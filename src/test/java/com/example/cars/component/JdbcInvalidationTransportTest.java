@@ -0,0 +1,141 @@
+package com.example.cars.component;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+
+import java.io.File;
+import java.io.IOException;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class JdbcInvalidationTransportTest {
+
+    private TableTemplate table;
+    private JdbcInvalidationTransport publisher;
+    private JdbcInvalidationTransport subscriber;
+    private final List<InvalidationBatch> received = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        table = new TableTemplate();
+        publisher = new JdbcInvalidationTransport(table, Duration.ZERO, Duration.ofMinutes(10));
+        subscriber = new JdbcInvalidationTransport(table, Duration.ZERO, Duration.ofMinutes(10));
+        subscriber.subscribe(received::add);
+    }
+
+    @Test
+    void testPublishedBatchReachesSubscribersOfOtherNodes() {
+        InvalidationBatch batch = new InvalidationBatch("node", Map.of(
+                "cars", Set.of(CarCacheKey.byId(1L), CarCacheKey.byDealerAndYear(2L, 2020L)),
+                "dealers", Set.of(DealerCacheKey.byName("name"))));
+
+        publisher.publish(batch);
+        subscriber.poll();
+        subscriber.poll();
+
+        assertEquals(List.of(batch), received);
+    }
+
+    @Test
+    void testRowCommittedAfterLaterRowIsDeliveredByNextPoll() {
+        long uncommitted = table.reserveId();
+        publisher.publish(batchOf("later"));
+        subscriber.poll();
+        assertEquals(List.of(batchOf("later")), received);
+
+        table.commit(uncommitted, batchOf("earlier"));
+        subscriber.poll();
+
+        assertEquals(List.of(batchOf("later"), batchOf("earlier")), received);
+    }
+
+    @Test
+    void testRowWithForeignClassIsSkipped() {
+        publisher.publish(new InvalidationBatch("node", Map.of("cars", Set.of(new File("cars")))));
+        publisher.publish(batchOf("key"));
+
+        subscriber.poll();
+
+        assertEquals(List.of(batchOf("key")), received);
+    }
+
+    private static InvalidationBatch batchOf(String make) {
+        return new InvalidationBatch("node", Map.of("cars", Set.of(CarCacheKey.byMake(make))));
+    }
+
+    /**
+     * Keeps the invalidation table in memory; a reserved id stays invisible until committed.
+     */
+    private static final class TableTemplate extends JdbcTemplate {
+
+        private final TreeMap<Long, byte[]> rows = new TreeMap<>();
+        private long nextId = 1;
+
+        long reserveId() {
+            return nextId++;
+        }
+
+        void commit(long id, InvalidationBatch batch) {
+            try {
+                rows.put(id, JdbcInvalidationTransport.encode(batch));
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        @Override
+        public void execute(String sql) {
+        }
+
+        @Override
+        public <T> T queryForObject(String sql, Class<T> requiredType, Object... args) {
+            return requiredType.cast(rows.isEmpty() ? 0L : rows.lastKey());
+        }
+
+        @Override
+        public int update(String sql, Object... args) {
+            if (sql.startsWith("INSERT")) {
+                rows.put(nextId++, (byte[]) args[0]);
+                return 1;
+            }
+            return 0;
+        }
+
+        @Override
+        public <T> List<T> query(String sql, RowMapper<T> rowMapper, Object... args) {
+            List<Long> ids = new ArrayList<>();
+            if (sql.contains("id > ?")) {
+                rows.tailMap((Long) args[0], false).keySet().stream()
+                        .limit((Integer) args[1])
+                        .forEach(ids::add);
+            } else {
+                Arrays.stream(args).map(Long.class::cast).filter(rows::containsKey).forEach(ids::add);
+            }
+            List<T> result = new ArrayList<>();
+            try {
+                for (long id : ids) {
+                    ResultSet resultSet = mock(ResultSet.class);
+                    when(resultSet.getLong("id")).thenReturn(id);
+                    when(resultSet.getBytes("batch")).thenReturn(rows.get(id));
+                    result.add(rowMapper.mapRow(resultSet, result.size()));
+                }
+            } catch (SQLException e) {
+                throw new IllegalStateException(e);
+            }
+            return result;
+        }
+    }
+}
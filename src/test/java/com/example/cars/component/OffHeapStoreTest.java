@@ -0,0 +1,116 @@
+package com.example.cars.component;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OffHeapStoreTest {
+
+    @Test
+    void testPutAndGet() {
+        OffHeapStore<String> store = new OffHeapStore<>(1024, 256);
+        store.put("key1", bytes("value1"));
+        assertArrayEquals(bytes("value1"), store.get("key1"));
+        assertEquals(1, store.size());
+    }
+
+    @Test
+    void testPutReplacesPreviousRecord() {
+        OffHeapStore<String> store = new OffHeapStore<>(1024, 256);
+        store.put("key1", bytes("value1"));
+        store.put("key1", bytes("value2"));
+        assertArrayEquals(bytes("value2"), store.get("key1"));
+        assertEquals(1, store.size());
+    }
+
+    @Test
+    void testRemoveAndClear() {
+        OffHeapStore<String> store = new OffHeapStore<>(1024, 256);
+        store.put("key1", bytes("value1"));
+        store.put("key2", bytes("value2"));
+        store.remove("key1");
+        assertNull(store.get("key1"));
+        store.clear();
+        assertNull(store.get("key2"));
+        assertEquals(0, store.size());
+    }
+
+    @Test
+    void testRecordLargerThanSlabIsRejected() {
+        OffHeapStore<String> store = new OffHeapStore<>(1024, 16);
+        assertFalse(store.put("key1", new byte[64]));
+        assertNull(store.get("key1"));
+    }
+
+    @Test
+    void testRecyclingSlabEvictsOldestRecords() {
+        OffHeapStore<Integer> store = new OffHeapStore<>(64, 32);
+        for (int i = 0; i < 12; i++) {
+            store.put(i, new byte[] {(byte) i, 0, 0, 0});
+        }
+        assertNull(store.get(0));
+        assertArrayEquals(new byte[] {11, 0, 0, 0}, store.get(11));
+        assertTrue(store.size() <= 8);
+        assertEquals(64, store.allocatedBytes());
+    }
+
+    @Test
+    void testRecyclingSlabOnlyDropsKeysStillStoredInIt() {
+        OffHeapStore<Integer> store = new OffHeapStore<>(64, 32);
+        for (int i = 0; i < 9; i++) {
+            store.put(i, new byte[] {(byte) i, 0, 0, 0});
+        }
+        assertEquals(5, store.size());
+
+        store.put(4, new byte[] {44, 0, 0, 0});
+        store.put(9, new byte[] {9, 0, 0, 0});
+        store.put(10, new byte[] {10, 0, 0, 0});
+        store.put(11, new byte[] {11, 0, 0, 0});
+
+        assertArrayEquals(new byte[] {44, 0, 0, 0}, store.get(4));
+        assertNull(store.get(5));
+        assertEquals(5, store.size());
+    }
+
+    @Test
+    void testConcurrentWritesAreAllStored() throws Exception {
+        OffHeapStore<Integer> store = new OffHeapStore<>(1 << 20, 1 << 16);
+        int threads = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            int offset = t * 1_000;
+            futures.add(executor.submit(() -> {
+                start.await();
+                for (int i = offset; i < offset + 1_000; i++) {
+                    assertTrue(store.put(i, new byte[] {(byte) i, 0, 0, 0}));
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get(30, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+
+        assertEquals(threads * 1_000, store.size());
+        for (int i = 0; i < threads * 1_000; i++) {
+            assertArrayEquals(new byte[] {(byte) i, 0, 0, 0}, store.get(i));
+        }
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,77 @@
+package com.example.cars.component;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.OptimisticLockingFailureException;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OptimisticRetryExecutorTest {
+
+    private final OptimisticRetryExecutor executor =
+            new OptimisticRetryExecutor(3, Duration.ofMillis(1), Duration.ofMillis(2));
+
+    @Test
+    void testReturnsResultOfFirstAttemptWithoutConflict() {
+        List<Integer> attempts = new ArrayList<>();
+
+        String result = executor.execute(attempt -> {
+            attempts.add(attempt);
+            if (attempt < 2) {
+                throw new OptimisticLockingFailureException("conflict");
+            }
+            return "done";
+        });
+
+        assertEquals("done", result);
+        assertEquals(List.of(0, 1, 2), attempts);
+    }
+
+    @Test
+    void testRethrowsConflictAfterLastAttempt() {
+        List<Integer> attempts = new ArrayList<>();
+
+        assertThrows(OptimisticLockingFailureException.class, () -> executor.execute(attempt -> {
+            attempts.add(attempt);
+            throw new OptimisticLockingFailureException("conflict");
+        }));
+        assertEquals(3, attempts.size());
+    }
+
+    @Test
+    void testDoesNotRetryOtherFailures() {
+        List<Integer> attempts = new ArrayList<>();
+
+        assertThrows(IllegalStateException.class, () -> executor.execute(attempt -> {
+            attempts.add(attempt);
+            throw new IllegalStateException("broken");
+        }));
+        assertEquals(List.of(0), attempts);
+    }
+
+    @Test
+    void testStopsRetryingWhenInterrupted() {
+        List<Integer> attempts = new ArrayList<>();
+
+        Thread.currentThread().interrupt();
+        try {
+            assertThrows(OptimisticLockingFailureException.class, () -> executor.execute(attempt -> {
+                attempts.add(attempt);
+                throw new OptimisticLockingFailureException("conflict");
+            }));
+            assertTrue(Thread.currentThread().isInterrupted());
+        } finally {
+            Thread.interrupted();
+        }
+        assertEquals(List.of(0), attempts);
+    }
+
+    @Test
+    void testRejectsNonPositiveAttempts() {
+        assertThrows(IllegalArgumentException.class,
+                () -> new OptimisticRetryExecutor(0, Duration.ZERO, Duration.ZERO));
+    }
+}
@@ -0,0 +1,28 @@
+package com.example.cars.component;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PageTokenTest {
+
+    @Test
+    void testEncodeAndDecodeLastId() {
+        String token = PageToken.encode(123456789L);
+
+        assertEquals(123456789L, PageToken.decode(token));
+        assertFalse(token.contains("123456789"));
+    }
+
+    @Test
+    void testMissingTokenStartsAtFirstPage() {
+        assertEquals(0L, PageToken.decode(null));
+        assertEquals(0L, PageToken.decode(""));
+    }
+
+    @Test
+    void testDecodeRejectsForeignTokens() {
+        assertThrows(IllegalArgumentException.class, () -> PageToken.decode("not a token!"));
+        assertThrows(IllegalArgumentException.class, () -> PageToken.decode("AAAA"));
+    }
+}
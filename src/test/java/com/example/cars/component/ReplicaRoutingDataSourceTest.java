@@ -0,0 +1,148 @@
+package com.example.cars.component;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.AbstractPlatformTransactionManager;
+import org.springframework.transaction.support.DefaultTransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ReplicaRoutingDataSourceTest {
+
+    private final AtomicLong time = new AtomicLong();
+    private Connection primaryConnection;
+    private Connection replicaConnection;
+    private Connection bulkConnection;
+    private ReplicaRoutingDataSource routingDataSource;
+    private TransactionTemplate writeTransaction;
+    private TransactionTemplate readTransaction;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        primaryConnection = mock(Connection.class);
+        replicaConnection = mock(Connection.class);
+        bulkConnection = mock(Connection.class);
+        routingDataSource = new ReplicaRoutingDataSource(dataSourceOf(primaryConnection),
+                dataSourceOf(replicaConnection), dataSourceOf(bulkConnection), Duration.ofSeconds(2),
+                time::get);
+        NoOpTransactionManager transactionManager = new NoOpTransactionManager();
+        writeTransaction = new TransactionTemplate(transactionManager);
+        readTransaction = new TransactionTemplate(transactionManager);
+        readTransaction.setReadOnly(true);
+    }
+
+    @Test
+    void testReadOnlyTransactionsUseReplica() {
+        assertSame(replicaConnection, connectionOf(readTransaction));
+        assertEquals(1, routingDataSource.replicaReadCount());
+        assertEquals(0, routingDataSource.primaryReadCount());
+    }
+
+    @Test
+    void testWritesUsePrimary() {
+        assertSame(primaryConnection, connectionOf(writeTransaction));
+    }
+
+    @Test
+    void testBulkTransactionsUseBulkPoolAndKeepReadsOnPrimary() {
+        writeTransaction.setName(ReplicaRoutingDataSource.BULK_TRANSACTION);
+
+        assertSame(bulkConnection, connectionOf(writeTransaction));
+        assertSame(primaryConnection, connectionOf(readTransaction));
+        assertEquals(1, routingDataSource.primaryReadCount());
+    }
+
+    @Test
+    void testReadsStayOnPrimaryAfterWriteUntilLagHasPassed() {
+        connectionOf(writeTransaction);
+
+        assertSame(primaryConnection, connectionOf(readTransaction));
+        time.addAndGet(Duration.ofSeconds(3).toNanos());
+        assertSame(replicaConnection, connectionOf(readTransaction));
+
+        assertEquals(1, routingDataSource.primaryReadCount());
+        assertEquals(1, routingDataSource.replicaReadCount());
+    }
+
+    @Test
+    void testRecordedWriteOfAnotherNodeKeepsReadsOnPrimary() {
+        routingDataSource.recordWrite();
+
+        assertSame(primaryConnection, connectionOf(readTransaction));
+        time.addAndGet(Duration.ofSeconds(3).toNanos());
+        assertSame(replicaConnection, connectionOf(readTransaction));
+    }
+
+    @Test
+    void testReadsPinnedToPrimaryBypassReplicaAfterLagHasPassed() {
+        Connection pinned = ReplicaRoutingDataSource.readFromPrimary(() -> connectionOf(readTransaction));
+        Connection unpinned = connectionOf(readTransaction);
+
+        assertSame(primaryConnection, pinned);
+        assertSame(replicaConnection, unpinned);
+        assertFalse(ReplicaRoutingDataSource.isReadingFromPrimary());
+        assertEquals(1, routingDataSource.primaryReadCount());
+        assertEquals(1, routingDataSource.replicaReadCount());
+    }
+
+    @Test
+    void testRolledBackWriteDoesNotKeepReadsOnPrimary() {
+        writeTransaction.executeWithoutResult(status -> {
+            openConnection();
+            status.setRollbackOnly();
+        });
+
+        assertSame(replicaConnection, connectionOf(readTransaction));
+    }
+
+    private Connection connectionOf(TransactionTemplate transaction) {
+        return transaction.execute(status -> openConnection());
+    }
+
+    private Connection openConnection() {
+        try {
+            return routingDataSource.getConnection();
+        } catch (SQLException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static DataSource dataSourceOf(Connection connection) throws SQLException {
+        DataSource dataSource = mock(DataSource.class);
+        when(dataSource.getConnection()).thenReturn(connection);
+        return dataSource;
+    }
+
+    /**
+     * Runs the transaction lifecycle, including its synchronizations, without a database.
+     */
+    private static final class NoOpTransactionManager extends AbstractPlatformTransactionManager {
+
+        @Override
+        protected Object doGetTransaction() {
+            return new Object();
+        }
+
+        @Override
+        protected void doBegin(Object transaction, TransactionDefinition definition) {
+        }
+
+        @Override
+        protected void doCommit(DefaultTransactionStatus status) {
+        }
+
+        @Override
+        protected void doRollback(DefaultTransactionStatus status) {
+        }
+    }
+}
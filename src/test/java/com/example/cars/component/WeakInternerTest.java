@@ -0,0 +1,38 @@
+package com.example.cars.component;
+
+import com.example.cars.dto.CarDto;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WeakInternerTest {
+
+    @Test
+    void testEqualValuesShareOneInstance() {
+        WeakInterner<Long, CarDto> interner = new WeakInterner<>();
+        CarDto first = new CarDto(1L, 2020L, "Toyota", "Camry", "VIN1");
+
+        assertSame(first, interner.intern(1L, first));
+        assertSame(first, interner.intern(1L, new CarDto(1L, 2020L, "Toyota", "Camry", "VIN1")));
+        assertEquals(1, interner.size());
+    }
+
+    @Test
+    void testChangedValueBecomesCanonical() {
+        WeakInterner<Long, CarDto> interner = new WeakInterner<>();
+        interner.intern(1L, new CarDto(1L, 2020L, "Toyota", "Camry", "VIN1"));
+        CarDto changed = new CarDto(1L, 2021L, "Toyota", "Camry", "VIN1");
+
+        assertSame(changed, interner.intern(1L, changed));
+        assertSame(changed, interner.intern(1L, new CarDto(1L, 2021L, "Toyota", "Camry", "VIN1")));
+    }
+
+    @Test
+    void testNullKeyIsNotInterned() {
+        WeakInterner<Long, CarDto> interner = new WeakInterner<>();
+        CarDto car = new CarDto(null, "VIN1");
+
+        assertSame(car, interner.intern(null, car));
+        assertEquals(0, interner.size());
+    }
+}
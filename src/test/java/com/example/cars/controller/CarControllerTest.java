@@ -1,12 +1,16 @@
 package com.example.cars.controller;
 
+import com.example.cars.dto.CacheStatsDto;
 import com.example.cars.dto.CarDto;
 import com.example.cars.entity.Car;
 import com.example.cars.exceptions.CarAdditionException;
 import com.example.cars.exceptions.CarAlreadyExistException;
 import com.example.cars.exceptions.CarNotFoundException;
+import com.example.cars.exceptions.ConcurrentUpdateException;
 import com.example.cars.exceptions.DealerNotFoundException;
+import com.example.cars.exceptions.ExceptionHandler;
 import com.example.cars.service.CarService;
+import com.example.cars.service.RequestCounterService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
@@ -14,6 +18,7 @@ import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.web.client.HttpClientErrorException;
 
 import java.util.ArrayList;
@@ -31,6 +36,9 @@ class CarControllerTest {
     @Mock
     private CarService carService;
 
+    @Mock
+    private RequestCounterService requestCounterService;
+
     @InjectMocks
     private CarController carController;
 
@@ -77,7 +85,7 @@ class CarControllerTest {
 
     @Test
     void getCar_ValidId_ReturnsCar() throws CarNotFoundException {
-        CarDto carDto = new CarDto();
+        CarDto carDto = new CarDto(1L, "VIN123");
         when(carService.getCarById(anyLong())).thenReturn(carDto);
 
         ResponseEntity<?> response = carController.getCar(1L);
@@ -126,6 +134,28 @@ class CarControllerTest {
         assertEquals(HttpStatus.BAD_REQUEST, exception.getStatusCode());
     }
 
+    @Test
+    void updateCar_ConcurrentUpdate_ThrowsConflictException() throws CarNotFoundException {
+        Car updatedCar = new Car();
+        doThrow(new ObjectOptimisticLockingFailureException(Car.class, 1L))
+                .when(carService).updateCar(anyLong(), any(Car.class));
+
+        assertThrows(ConcurrentUpdateException.class, () -> carController.updateCar(1L, updatedCar));
+    }
+
+    @Test
+    void transferCarToDealer_ConcurrentUpdate_ThrowsConflictException()
+            throws CarNotFoundException, DealerNotFoundException {
+        doThrow(new ObjectOptimisticLockingFailureException(Car.class, 1L))
+                .when(carService).transferCarToDealer(anyLong(), anyLong());
+
+        ConcurrentUpdateException exception = assertThrows(ConcurrentUpdateException.class,
+                () -> carController.transferCarToDealer(1L, 2L));
+
+        assertEquals(HttpStatus.CONFLICT,
+                new ExceptionHandler().handleConcurrentUpdateException(exception, null).getStatusCode());
+    }
+
     @Test
     void transferCarToDealer_ValidCarAndDealer_ReturnsSuccessResponse()
             throws CarNotFoundException, DealerNotFoundException {
@@ -149,7 +179,7 @@ class CarControllerTest {
 
     @Test
     void getCarByMake_ValidMake_ReturnsCar() throws CarNotFoundException {
-        CarDto carDto = new CarDto();
+        CarDto carDto = new CarDto(1L, "VIN123");
         when(carService.getCarByMake(anyString())).thenReturn(carDto);
 
         ResponseEntity<?> response = carController.getCarByMake("Toyota");
@@ -169,7 +199,7 @@ class CarControllerTest {
 
     @Test
     void getAllCarsByDealerIdAndYear_ValidDealerIdAndYear_ReturnsCarList() throws CarNotFoundException {
-        List<CarDto> carDtoList = Collections.singletonList(new CarDto());
+        List<CarDto> carDtoList = Collections.singletonList(new CarDto(1L, "VIN123"));
         when(carService.getCarsByDealerIdAndYear(anyLong(), anyLong())).thenReturn(carDtoList);
 
         ResponseEntity<?> response = carController.getAllCarsByDealerIdAndYear(1L, 2022L);
@@ -239,10 +269,7 @@ class CarControllerTest {
     @Test
     void testGetCar() throws CarNotFoundException {
         // Create a sample car
-        CarDto carDto = new CarDto();
-        carDto.setId(1L);
-        carDto.setMake("Toyota");
-        carDto.setModel("Camry");
+        CarDto carDto = new CarDto(1L, null, "Toyota", "Camry", null);
 
         // Mock the car service
         when(carService.getCarById(anyLong())).thenReturn(carDto);
@@ -258,10 +285,7 @@ class CarControllerTest {
     @Test
     void testGetCarByMake()throws CarNotFoundException {
         // Create a sample car
-        CarDto carDto = new CarDto();
-        carDto.setId(1L);
-        carDto.setMake("Toyota");
-        carDto.setModel("Camry");
+        CarDto carDto = new CarDto(1L, null, "Toyota", "Camry", null);
 
         // Mock the car service
         when(carService.getCarByMake(anyString())).thenReturn(carDto);
@@ -323,15 +347,9 @@ class CarControllerTest {
     void testGetAllCarsByDealerIdAndYear() throws CarNotFoundException {
         // Create a list of sample cars
         List<CarDto> cars = new ArrayList<>();
-        CarDto car1 = new CarDto();
-        car1.setId(1L);
-        car1.setMake("Toyota");
-        car1.setModel("Camry");
+        CarDto car1 = new CarDto(1L, null, "Toyota", "Camry", null);
         cars.add(car1);
-        CarDto car2 = new CarDto();
-        car2.setId(2L);
-        car2.setMake("Honda");
-        car2.setModel("Accord");
+        CarDto car2 = new CarDto(2L, null, "Honda", "Accord", null);
         cars.add(car2);
 
         // Set the dealer ID and year
@@ -348,4 +366,15 @@ class CarControllerTest {
         assertEquals(HttpStatus.OK, response.getStatusCode());
         assertEquals(cars, response.getBody());
     }
-}
\ No newline at end of file
+
+    @Test
+    void testGetCacheStats() {
+        CacheStatsDto stats = new CacheStatsDto(3, 1, 1, 0, 10, 0, 0, 2, 2, 512, 0, 0, 0, 0);
+        when(carService.getCacheStats()).thenReturn(stats);
+
+        ResponseEntity<CacheStatsDto> response = carController.getCacheStats();
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(0.75, response.getBody().getHitRate());
+    }
+}
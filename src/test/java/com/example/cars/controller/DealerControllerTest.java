@@ -1,8 +1,11 @@
 package com.example.cars.controller;
 
+import com.example.cars.dto.CacheStatsDto;
 import com.example.cars.dto.DealerDto;
 import com.example.cars.entity.Dealer;
+import com.example.cars.exceptions.ConcurrentUpdateException;
 import com.example.cars.exceptions.DealerAlreadyExistException;
+import com.example.cars.exceptions.DealerDeletionException;
 import com.example.cars.exceptions.DealerNotFoundException;
 import com.example.cars.service.DealerService;
 import org.junit.jupiter.api.BeforeEach;
@@ -11,9 +14,12 @@ import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 import org.springframework.http.HttpStatus;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.client.HttpClientErrorException;
 
+import java.util.List;
+
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.any;
@@ -59,7 +65,7 @@ class DealerControllerTest {
 
     @Test
     void getDealer_ValidId_ReturnsDealer() throws DealerNotFoundException {
-        DealerDto dealerDto = new DealerDto();
+        DealerDto dealerDto = new DealerDto(1L, "John's Dealership", "Main Street", List.of());
         when(dealerService.getDealerById(anyLong())).thenReturn(dealerDto);
 
         ResponseEntity<?> response = dealerController.getDealer(1L);
@@ -79,7 +85,7 @@ class DealerControllerTest {
 
     @Test
     void getDealerByName_ValidName_ReturnsDealer() throws DealerNotFoundException {
-        DealerDto dealerDto = new DealerDto();
+        DealerDto dealerDto = new DealerDto(1L, "John's Dealership", "Main Street", List.of());
         when(dealerService.getDealerByName(anyString())).thenReturn(dealerDto);
 
         ResponseEntity<?> response = dealerController.getDealerByName("John's Dealership");
@@ -119,7 +125,17 @@ class DealerControllerTest {
     }
 
     @Test
-    void deleteDealer_ValidId_ReturnsSuccessResponse() throws DealerNotFoundException {
+    void updateDealer_ConcurrentUpdate_ThrowsConflictException() throws DealerNotFoundException {
+        Dealer updatedDealer = new Dealer();
+        doThrow(new ObjectOptimisticLockingFailureException(Dealer.class, 1L))
+                .when(dealerService).updateDealer(anyString(), any(Dealer.class));
+
+        assertThrows(ConcurrentUpdateException.class,
+                () -> dealerController.updateDealer("John's Dealership", updatedDealer));
+    }
+
+    @Test
+    void deleteDealer_ValidId_ReturnsSuccessResponse() throws DealerNotFoundException, DealerDeletionException {
         doNothing().when(dealerService).deleteDealer(anyLong());
 
         ResponseEntity<String> response = dealerController.deleteDealer(1L);
@@ -129,11 +145,31 @@ class DealerControllerTest {
     }
 
     @Test
-    void deleteDealer_DealerNotFound_ThrowsBadRequestException() throws DealerNotFoundException {
+    void deleteDealer_DealerNotFound_ThrowsBadRequestException() throws DealerNotFoundException, DealerDeletionException {
         doThrow(new DealerNotFoundException("Dealer not found")).when(dealerService).deleteDealer(anyLong());
 
         HttpClientErrorException exception = assertThrows(HttpClientErrorException.class, () -> dealerController.deleteDealer(1L));
 
         assertEquals(HttpStatus.BAD_REQUEST, exception.getStatusCode());
     }
-}
\ No newline at end of file
+
+    @Test
+    void deleteDealer_CarsNotAllDeleted_ThrowsInternalServerErrorException() throws DealerNotFoundException, DealerDeletionException {
+        doThrow(new DealerDeletionException("Cars left")).when(dealerService).deleteDealer(anyLong());
+
+        HttpClientErrorException exception = assertThrows(HttpClientErrorException.class, () -> dealerController.deleteDealer(1L));
+
+        assertEquals(HttpStatus.INTERNAL_SERVER_ERROR, exception.getStatusCode());
+    }
+
+    @Test
+    void getCacheStats_ReturnsDealerCacheStats() {
+        CacheStatsDto stats = new CacheStatsDto(1, 1, 0, 0, 4, 0, 0, 1, 12, 2048, 0, 0, 0, 0);
+        when(dealerService.getCacheStats()).thenReturn(stats);
+
+        ResponseEntity<CacheStatsDto> response = dealerController.getCacheStats();
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(stats, response.getBody());
+    }
+}
@@ -3,7 +3,9 @@ package com.example.cars.dto;
 import com.example.cars.entity.Car;
 import org.junit.jupiter.api.Test;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
 
 class CarDtoTest {
 
@@ -25,78 +27,56 @@ class CarDtoTest {
     }
 
     @Test
-    void testGetYear() {
-        CarDto carDto = new CarDto();
-        carDto.setYear(2022L);
+    void testGetId() {
+        CarDto carDto = new CarDto(1L, 2022L, "TestMake", "TestModel", "TestVin");
 
-        Long year = carDto.getYear();
+        Long id = carDto.getId();
 
-        assertEquals(2022L, year);
+        assertEquals(1L, id);
     }
 
     @Test
-    void testSetYear() {
-        CarDto carDto = new CarDto();
+    void testGetYear() {
+        CarDto carDto = new CarDto(1L, 2022L, "TestMake", "TestModel", "TestVin");
 
-        carDto.setYear(2022L);
+        Long year = carDto.getYear();
 
-        assertEquals(2022L, carDto.getYear());
+        assertEquals(2022L, year);
     }
 
     @Test
     void testGetMake() {
-        CarDto carDto = new CarDto();
-        carDto.setMake("TestMake");
+        CarDto carDto = new CarDto(1L, 2022L, "TestMake", "TestModel", "TestVin");
 
         String make = carDto.getMake();
 
         assertEquals("TestMake", make);
     }
 
-    @Test
-    void testSetMake() {
-        CarDto carDto = new CarDto();
-
-        carDto.setMake("TestMake");
-
-        assertEquals("TestMake", carDto.getMake());
-    }
-
     @Test
     void testGetModel() {
-        CarDto carDto = new CarDto();
-        carDto.setModel("TestModel");
+        CarDto carDto = new CarDto(1L, 2022L, "TestMake", "TestModel", "TestVin");
 
         String model = carDto.getModel();
 
         assertEquals("TestModel", model);
     }
 
-    @Test
-    void testSetModel() {
-        CarDto carDto = new CarDto();
-
-        carDto.setModel("TestModel");
-
-        assertEquals("TestModel", carDto.getModel());
-    }
-
     @Test
     void testGetVin() {
-        CarDto carDto = new CarDto();
-        carDto.setVin("TestVin");
+        CarDto carDto = new CarDto(1L, "TestVin");
 
         String vin = carDto.getVin();
 
         assertEquals("TestVin", vin);
+        assertNull(carDto.getMake());
     }
 
     @Test
-    void testSetVin() {
-        CarDto carDto = new CarDto();
+    void testEquals() {
+        CarDto carDto = new CarDto(1L, 2022L, "TestMake", "TestModel", "TestVin");
 
-        carDto.setVin("TestVin");
-
-        assertEquals("TestVin", carDto.getVin());
+        assertEquals(new CarDto(1L, 2022L, "TestMake", "TestModel", "TestVin"), carDto);
+        assertNotEquals(new CarDto(1L, 2023L, "TestMake", "TestModel", "TestVin"), carDto);
     }
 }
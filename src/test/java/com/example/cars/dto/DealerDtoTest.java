@@ -9,6 +9,9 @@ import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 class DealerDtoTest {
 
@@ -46,88 +49,46 @@ class DealerDtoTest {
     }
 
     @Test
-    void testGetName() {
-        DealerDto dealerDto = new DealerDto();
-        dealerDto.setName("TestDealer");
+    void testToModelWithCanonicalCars() {
+        Dealer dealer = new Dealer();
+        Car car = new Car();
+        car.setVin("TestVin1");
+        dealer.getCarList().add(car);
+        CarDto shared = new CarDto(null, "TestVin1");
 
-        String name = dealerDto.getName();
+        DealerDto dealerDto = DealerDto.toDealer(dealer, carDto -> shared);
 
-        assertEquals("TestDealer", name);
+        assertSame(shared, dealerDto.getCarsList().get(0));
     }
 
     @Test
-    void testSetName() {
-        DealerDto dealerDto = new DealerDto();
+    void testGetName() {
+        DealerDto dealerDto = new DealerDto(1L, "TestDealer", "TestAddress", List.of());
 
-        dealerDto.setName("TestDealer");
+        String name = dealerDto.getName();
 
-        assertEquals("TestDealer", dealerDto.getName());
+        assertEquals("TestDealer", name);
     }
 
     @Test
     void testGetAddress() {
-        DealerDto dealerDto = new DealerDto();
-        dealerDto.setAddress("TestAddress");
+        DealerDto dealerDto = new DealerDto(1L, "TestDealer", "TestAddress", List.of());
 
         String address = dealerDto.getAddress();
 
         assertEquals("TestAddress", address);
     }
 
-    @Test
-    void testSetAddress() {
-        DealerDto dealerDto = new DealerDto();
-
-        dealerDto.setAddress("TestAddress");
-
-        assertEquals("TestAddress", dealerDto.getAddress());
-    }
-
     @Test
     void testGetCarsList() {
-        DealerDto dealerDto = new DealerDto();
-        CarDto carDto1 = new CarDto();
-        carDto1.setMake("TestMake1");
-        carDto1.setModel("TestModel1");
-        carDto1.setVin("TestVin1");
-
-        CarDto carDto2 = new CarDto();
-        carDto2.setMake("TestMake2");
-        carDto2.setModel("TestModel2");
-        carDto2.setVin("TestVin2");
-
-        dealerDto.getCarsList().add(carDto1);
-        dealerDto.getCarsList().add(carDto2);
-
-        List<CarDto> carsList = dealerDto.getCarsList();
-
-        assertEquals(2, carsList.size());
-        assertEquals("TestMake1", carsList.get(0).getMake());
-        assertEquals("TestModel1", carsList.get(0).getModel());
-        assertEquals("TestVin1", carsList.get(0).getVin());
-        assertEquals("TestMake2", carsList.get(1).getMake());
-        assertEquals("TestModel2", carsList.get(1).getModel());
-        assertEquals("TestVin2", carsList.get(1).getVin());
-    }
-
-    @Test
-    void testSetCarsList() {
-        DealerDto dealerDto = new DealerDto();
-        CarDto carDto1 = new CarDto();
-        carDto1.setMake("TestMake1");
-        carDto1.setModel("TestModel1");
-        carDto1.setVin("TestVin1");
-
-        CarDto carDto2 = new CarDto();
-        carDto2.setMake("TestMake2");
-        carDto2.setModel("TestModel2");
-        carDto2.setVin("TestVin2");
-
+        CarDto carDto1 = new CarDto(1L, null, "TestMake1", "TestModel1", "TestVin1");
+        CarDto carDto2 = new CarDto(2L, null, "TestMake2", "TestModel2", "TestVin2");
         List<CarDto> carsList = new ArrayList<>();
         carsList.add(carDto1);
         carsList.add(carDto2);
 
-        dealerDto.setCarsList(carsList);
+        DealerDto dealerDto = new DealerDto(1L, "TestDealer", "TestAddress", carsList);
+        carsList.clear();
 
         List<CarDto> resultCarsList = dealerDto.getCarsList();
 
@@ -138,5 +99,13 @@ class DealerDtoTest {
         assertEquals("TestMake2", resultCarsList.get(1).getMake());
         assertEquals("TestModel2", resultCarsList.get(1).getModel());
         assertEquals("TestVin2", resultCarsList.get(1).getVin());
+        assertThrows(UnsupportedOperationException.class, () -> resultCarsList.add(carDto1));
+    }
+
+    @Test
+    void testNullCarsListBecomesEmpty() {
+        DealerDto dealerDto = new DealerDto(1L, "TestDealer", "TestAddress", null);
+
+        assertTrue(dealerDto.getCarsList().isEmpty());
     }
 }
@@ -1,5 +1,6 @@
 package com.example.cars.entity;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 
@@ -46,4 +47,17 @@ class CarTest {
         Assertions.assertEquals(id, car.getId());
         Assertions.assertEquals(vin, car.getVin());
     }
-}
\ No newline at end of file
+
+    @Test
+    void testVersionIsNotBoundFromJson() throws Exception {
+        // Arrange
+        ObjectMapper objectMapper = new ObjectMapper();
+
+        // Act
+        Car car = objectMapper.readValue("{\"vin\":\"ABC123\",\"version\":7}", Car.class);
+
+        // Assert
+        Assertions.assertEquals("ABC123", car.getVin());
+        Assertions.assertNull(car.getVersion());
+    }
+}
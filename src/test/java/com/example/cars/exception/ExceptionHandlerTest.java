@@ -1,5 +1,6 @@
 package com.example.cars.exception;
 
+import com.example.cars.exceptions.ConcurrentUpdateException;
 import com.example.cars.exceptions.ExceptionHandler;
 import org.junit.jupiter.api.Test;
 import org.springframework.http.HttpStatus;
@@ -33,6 +34,15 @@ class ExceptionHandlerTest {
         assertEquals("400: Bad Request", responseEntity.getBody());
     }
 
+    @Test
+    void handleConcurrentUpdateException() {
+        ConcurrentUpdateException exception = new ConcurrentUpdateException("Test Conflict");
+        ResponseEntity<Object> responseEntity = exceptionHandler.handleConcurrentUpdateException(exception, null);
+
+        assertEquals(HttpStatus.CONFLICT, responseEntity.getStatusCode());
+        assertEquals("409: Conflict", responseEntity.getBody());
+    }
+
     @Test
     void handleNoResourceFoundException() {
         NoResourceFoundException exception = mock(NoResourceFoundException.class);
@@ -1,25 +1,45 @@
 package com.example.cars.service;
 
 import com.example.cars.dto.CarDto;
+import com.example.cars.dto.CarImportChunkDto;
+import com.example.cars.dto.CarPageDto;
+import com.example.cars.dto.DealerInventoryDto;
 import com.example.cars.component.Cache;
+import com.example.cars.component.CacheSettings;
+import com.example.cars.component.CarCacheKey;
+import com.example.cars.component.CarFeedReader;
+import com.example.cars.component.OptimisticRetryExecutor;
+import com.example.cars.component.ReplicaRoutingDataSource;
+import com.example.cars.component.WeakInterner;
 import com.example.cars.entity.Car;
 import com.example.cars.entity.Dealer;
+import com.example.cars.exceptions.CarAdditionException;
 import com.example.cars.exceptions.CarAlreadyExistException;
 import com.example.cars.exceptions.CarNotFoundException;
 import com.example.cars.exceptions.DealerNotFoundException;
+import com.example.cars.repository.CarBatchRepository;
+import com.example.cars.repository.CarBatchRepository.CarGroup;
+import com.example.cars.repository.CarBatchRepository.DeletedCars;
 import com.example.cars.repository.CarRepository;
 import com.example.cars.repository.DealerRepository;
 import com.example.cars.service.CarService;
+import com.example.cars.service.InventoryService;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 
+import java.io.StringReader;
+import java.time.Duration;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -30,18 +50,30 @@ class CarServiceTest {
     @Mock
     private CarRepository carRepository;
 
+    @Mock
+    private CarBatchRepository carBatchRepository;
+
     @Mock
     private DealerRepository dealerRepository;
 
     @Mock
-    private Cache<Object, CarDto> carCache;
+    private DealerService dealerService;
+
+    @Spy
+    private Cache<CarCacheKey, CarDto> carCache = new Cache<>();
+
+    private WeakInterner<Long, CarDto> carDtoInterner = new WeakInterner<>();
+
+    private InventoryService inventoryService;
 
-    @InjectMocks
     private CarService carService;
 
     @BeforeEach
     void setup() {
         MockitoAnnotations.openMocks(this);
+        inventoryService = new InventoryService(carBatchRepository, Duration.ZERO);
+        carService = new CarService(carRepository, carBatchRepository, dealerRepository, dealerService, carCache,
+                carDtoInterner, new OptimisticRetryExecutor(3, Duration.ZERO, Duration.ZERO), inventoryService);
     }
 
     @Test
@@ -62,7 +94,33 @@ class CarServiceTest {
 
         // Assert
         verify(carRepository, times(1)).save(car);
-        verify(carCache, times(1)).clear();
+        verify(carCache, never()).clear();
+    }
+
+    @Test
+    void testAddAndUpdateCar_ShouldKeepInventoryCountsUpToDate() throws Exception {
+        // Arrange
+        Dealer dealer = new Dealer();
+        dealer.setId(1L);
+        Car car = new Car(7L, "VIN7");
+        car.setMake("Toyota");
+        car.setYear(2020L);
+        Car updatedCar = new Car(7L, "VIN7");
+        updatedCar.setMake("Honda");
+        updatedCar.setYear(2020L);
+
+        when(dealerRepository.findById(1L)).thenReturn(Optional.of(dealer));
+        when(carRepository.findWithDealerById(7L)).thenReturn(Optional.of(car));
+
+        // Act
+        carService.addCar(1L, car);
+        carService.updateCar(7L, updatedCar);
+
+        // Assert
+        DealerInventoryDto inventory = inventoryService.getDealerInventory(1L);
+        assertEquals(1, inventory.getCarCount());
+        assertEquals(Map.of("Honda", 1L), inventory.getCountsByMake());
+        assertEquals(Map.of(2020L, 1L), inventory.getCountsByYear());
     }
 
     @Test
@@ -81,7 +139,7 @@ class CarServiceTest {
         // Act & Assert
         assertThrows(CarAlreadyExistException.class, () -> carService.addCar(dealerId, car));
         verify(carRepository, never()).save(car);
-        verify(carCache, never()).clear();
+        verify(carCache, never()).remove(any());
     }
 
     @Test
@@ -95,7 +153,46 @@ class CarServiceTest {
         // Act & Assert
         assertThrows(DealerNotFoundException.class, () -> carService.addCar(dealerId, car));
         verify(carRepository, never()).save(car);
-        verify(carCache, never()).clear();
+        verify(carCache, never()).remove(any());
+    }
+
+    @Test
+    void testWriteValidationReadsArePinnedToPrimary() throws Exception {
+        // Arrange
+        Long dealerId = 1L;
+        Dealer dealer = new Dealer();
+        dealer.setId(dealerId);
+        Car car = new Car();
+        car.setVin("VIN123");
+        List<String> unpinnedReads = new ArrayList<>();
+
+        when(dealerRepository.findById(dealerId)).thenAnswer(invocation -> {
+            if (!ReplicaRoutingDataSource.isReadingFromPrimary()) {
+                unpinnedReads.add("findById");
+            }
+            return Optional.of(dealer);
+        });
+        when(carRepository.findByVin("VIN123")).thenAnswer(invocation -> {
+            if (!ReplicaRoutingDataSource.isReadingFromPrimary()) {
+                unpinnedReads.add("findByVin");
+            }
+            return null;
+        });
+        when(carRepository.findExistingVins(anyCollection())).thenAnswer(invocation -> {
+            if (!ReplicaRoutingDataSource.isReadingFromPrimary()) {
+                unpinnedReads.add("findExistingVins");
+            }
+            return List.of();
+        });
+        when(carBatchRepository.insertAll(anyList())).thenAnswer(invocation -> invocation.getArgument(0));
+
+        // Act
+        carService.addCar(dealerId, car);
+        carService.addCarsBulk(dealerId, List.of(car));
+
+        // Assert
+        assertEquals(List.of(), unpinnedReads);
+        assertFalse(ReplicaRoutingDataSource.isReadingFromPrimary());
     }
 
     // Добавьте другие тесты для остальных методов в CarService
@@ -109,7 +206,7 @@ class CarServiceTest {
 
         CarDto expectedCarDto = CarDto.toCar(car); // Используем toCarDto() для создания expectedCarDto
 
-        when(carRepository.findById(carId)).thenReturn(Optional.of(car));
+        when(carRepository.findDtoById(carId)).thenReturn(Optional.of(CarDto.toCar(car)));
 
         // Act
         CarDto result = carService.getCarById(carId);
@@ -123,7 +220,7 @@ class CarServiceTest {
         // Arrange
         Long carId = 1L;
 
-        when(carRepository.findById(carId)).thenReturn(Optional.empty());
+        when(carRepository.findDtoById(carId)).thenReturn(Optional.empty());
 
         // Act & Assert
         assertThrows(CarNotFoundException.class, () -> carService.getCarById(carId));
@@ -147,7 +244,7 @@ class CarServiceTest {
         updatedCar.setYear(2022L);
         updatedCar.setVin("New Vin");
 
-        when(carRepository.findById(carId)).thenReturn(Optional.of(existingCar));
+        when(carRepository.findWithDealerById(carId)).thenReturn(Optional.of(existingCar));
         when(carRepository.save(existingCar)).thenReturn(existingCar);
 
         // Act
@@ -171,12 +268,138 @@ class CarServiceTest {
         updatedCar.setYear(2022L);
         updatedCar.setVin("New Vin");
 
-        when(carRepository.findById(carId)).thenReturn(Optional.empty());
+        when(carRepository.findWithDealerById(carId)).thenReturn(Optional.empty());
 
         // Act & Assert
         assertThrows(CarNotFoundException.class, () -> carService.updateCar(carId, updatedCar));
     }
 
+    @Test
+    void testUpdateCar_WithConcurrentUpdate_ShouldRetryOnFreshCar() throws CarNotFoundException {
+        // Arrange
+        Long carId = 1L;
+        Car staleCar = new Car(carId, "VIN1");
+        Car freshCar = new Car(carId, "VIN1");
+        freshCar.setVersion(1L);
+        Car updatedCar = new Car(carId, "VIN2");
+        updatedCar.setModel("Corolla");
+
+        when(carRepository.findWithDealerById(carId))
+                .thenReturn(Optional.of(staleCar), Optional.of(freshCar));
+        when(carRepository.save(staleCar))
+                .thenThrow(new ObjectOptimisticLockingFailureException(Car.class, carId));
+
+        // Act
+        carService.updateCar(carId, updatedCar);
+
+        // Assert
+        verify(carRepository, times(1)).save(freshCar);
+        assertEquals("Corolla", freshCar.getModel());
+        assertEquals("VIN2", freshCar.getVin());
+    }
+
+    @Test
+    void testUpdateCar_WithPersistentConflict_ShouldGiveUp() {
+        // Arrange
+        Long carId = 1L;
+        when(carRepository.findWithDealerById(carId)).thenAnswer(invocation -> Optional.of(new Car(carId, "VIN1")));
+        when(carRepository.save(any(Car.class)))
+                .thenThrow(new ObjectOptimisticLockingFailureException(Car.class, carId));
+
+        // Act & Assert
+        assertThrows(ObjectOptimisticLockingFailureException.class,
+                () -> carService.updateCar(carId, new Car(carId, "VIN2")));
+        verify(carRepository, times(3)).save(any(Car.class));
+    }
+
+    @Test
+    void testTransferCarsToDealer_ShouldEvictListsAndDealersOfMovedCars() throws DealerNotFoundException {
+        // Arrange
+        Dealer source = new Dealer();
+        source.setId(1L);
+        source.setName("Source");
+        Dealer target = new Dealer();
+        target.setId(2L);
+        target.setName("Target");
+        when(dealerRepository.findById(2L)).thenReturn(Optional.of(target));
+        when(carBatchRepository.transferAll(List.of(10L, 11L, 12L), 2L)).thenReturn(Map.of(
+                new CarGroup(1L, "Toyota", 2020L), 2,
+                new CarGroup(1L, "Honda", 2021L), 1));
+        when(dealerRepository.findAllById(Set.of(1L))).thenReturn(List.of(source));
+
+        // Act
+        int count = carService.transferCarsToDealer(Arrays.asList(10L, 11L, null, 12L, 10L), 2L);
+
+        // Assert
+        assertEquals(3, count);
+        verify(carCache).remove(CarCacheKey.byDealerAndYear(1L, 2020L));
+        verify(carCache).remove(CarCacheKey.byDealerAndYear(1L, 2021L));
+        verify(carCache).remove(CarCacheKey.byDealerAndYear(2L, 2020L));
+        verify(carCache).remove(CarCacheKey.byDealerAndYear(2L, 2021L));
+        verify(carCache, never()).remove(CarCacheKey.byId(10L));
+        verify(dealerService).evictDealer(source);
+        verify(dealerService).evictDealer(target);
+        verify(carRepository, never()).save(any(Car.class));
+        assertEquals(3, inventoryService.getDealerInventory(2L).getCarCount());
+        assertEquals(Map.of(2020L, 2L, 2021L, 1L), inventoryService.getDealerInventory(2L).getCountsByYear());
+    }
+
+    @Test
+    void testTransferDealerCars_WithUnknownSourceDealer_ShouldThrowDealerNotFoundException() {
+        // Arrange
+        Dealer target = new Dealer();
+        target.setId(2L);
+        when(dealerRepository.findById(2L)).thenReturn(Optional.of(target));
+        when(dealerRepository.existsById(1L)).thenReturn(false);
+
+        // Act & Assert
+        assertThrows(DealerNotFoundException.class, () -> carService.transferDealerCars(1L, 2020L, 2L));
+        verify(carBatchRepository, never()).transferAll(anyLong(), any(), anyLong());
+    }
+
+    @Test
+    void testTransferDealerCars_WithNothingToMove_ShouldNotEvictDealers() throws DealerNotFoundException {
+        // Arrange
+        Dealer target = new Dealer();
+        target.setId(2L);
+        when(dealerRepository.findById(2L)).thenReturn(Optional.of(target));
+        when(dealerRepository.existsById(1L)).thenReturn(true);
+        when(carBatchRepository.transferAll(1L, 2020L, 2L)).thenReturn(Map.of());
+
+        // Act
+        int count = carService.transferDealerCars(1L, 2020L, 2L);
+
+        // Assert
+        assertEquals(0, count);
+        verify(dealerService, never()).evictDealer(any(Dealer.class));
+    }
+
+    @Test
+    void testDeleteCars_ShouldEvictEveryEntryOfDeletedCars() {
+        // Arrange
+        DeletedCars deleted = new DeletedCars(
+                List.of(10L, 11L), Map.of(new CarGroup(1L, "Toyota", 2020L), 2));
+        when(carBatchRepository.deleteAll(List.of(10L, 11L))).thenReturn(deleted);
+
+        // Act
+        int count = carService.deleteCars(List.of(10L, 11L, 10L));
+
+        // Assert
+        assertEquals(2, count);
+        verify(dealerService).afterCarsDeleted(deleted);
+        verify(carRepository, never()).deleteById(anyLong());
+    }
+
+    @Test
+    void testDeleteDealerCars_WithUnknownDealer_ShouldThrowDealerNotFoundException() {
+        // Arrange
+        when(dealerRepository.existsById(1L)).thenReturn(false);
+
+        // Act & Assert
+        assertThrows(DealerNotFoundException.class, () -> carService.deleteDealerCars(1L, null));
+        verify(carBatchRepository, never()).deleteAll(anyLong(), any());
+    }
+
     @Test
     void testDeleteCar_WithExistingCarId_ShouldDeleteCar() throws CarNotFoundException {
         // Arrange
@@ -184,17 +407,17 @@ class CarServiceTest {
         Car car = new Car();
         car.setId(carId);
 
-        when(carRepository.existsById(carId)).thenReturn(true);
+        when(carRepository.findWithDealerById(carId)).thenReturn(Optional.of(car));
         doNothing().when(carRepository).deleteById(carId);
-        doNothing().when(carCache).clear();
 
         // Act
         carService.deleteCar(carId);
 
         // Assert
-        verify(carRepository, times(1)).existsById(carId);
+        verify(carRepository, times(1)).findWithDealerById(carId);
         verify(carRepository, times(1)).deleteById(carId);
-        verify(carCache, times(1)).clear();
+        verify(carCache, times(1)).remove(CarCacheKey.byId(carId));
+        verify(carCache, never()).clear();
     }
 
 
@@ -203,12 +426,12 @@ class CarServiceTest {
         // Arrange
         Long carId = 1L;
 
-        when(carRepository.existsById(carId)).thenReturn(false);
+        when(carRepository.findWithDealerById(carId)).thenReturn(Optional.empty());
 
         assertThrows(CarNotFoundException.class, () -> carService.deleteCar(carId));
-        verify(carRepository, times(1)).existsById(carId);
+        verify(carRepository, times(1)).findWithDealerById(carId);
         verify(carRepository, never()).deleteById(carId);
-        verify(carCache, never()).clear();
+        verify(carCache, never()).remove(any());
     }
 
     @Test
@@ -222,7 +445,8 @@ class CarServiceTest {
         cars.add(new Car());
 
         when(dealerRepository.existsById(dealerId)).thenReturn(true);
-        when(carRepository.findAllByDealerIdAndYear(dealerId, year)).thenReturn(cars);
+        when(carRepository.findDtosByDealerIdAndYear(dealerId, year))
+                .thenReturn(cars.stream().map(CarDto::toCar).toList());
 
         List<CarDto> result = carService.getCarsByDealerIdAndYear(dealerId, year);
 
@@ -258,7 +482,7 @@ class CarServiceTest {
         car.setId(carId);
         dealer.setId(dealerId);
 
-        when(carRepository.findById(carId)).thenReturn(Optional.of(car));
+        when(carRepository.findWithDealerById(carId)).thenReturn(Optional.of(car));
         when(dealerRepository.findById(dealerId)).thenReturn(Optional.of(dealer));
         when(carRepository.save(car)).thenReturn(car);
 
@@ -267,22 +491,48 @@ class CarServiceTest {
 
         // Assert
         assertEquals(dealer, car.getDealer());
-        verify(carRepository, times(1)).findById(carId);
+        verify(carRepository, times(1)).findWithDealerById(carId);
         verify(dealerRepository, times(1)).findById(dealerId);
         verify(carRepository, times(1)).save(car);
     }
 
+    @Test
+    void testTransferCarToDealer_ShouldEvictOldAndNewDealerLists() throws CarNotFoundException, DealerNotFoundException {
+        // Arrange
+        Dealer oldDealer = new Dealer();
+        oldDealer.setId(1L);
+        Dealer newDealer = new Dealer();
+        newDealer.setId(2L);
+        Car car = new Car();
+        car.setId(5L);
+        car.setYear(2020L);
+        car.setDealer(oldDealer);
+
+        when(carRepository.findWithDealerById(5L)).thenReturn(Optional.of(car));
+        when(dealerRepository.findById(2L)).thenReturn(Optional.of(newDealer));
+
+        // Act
+        carService.transferCarToDealer(5L, 2L);
+
+        // Assert
+        verify(carCache, times(1)).remove(CarCacheKey.byDealerAndYear(1L, 2020L));
+        verify(carCache, times(1)).remove(CarCacheKey.byDealerAndYear(2L, 2020L));
+        verify(carCache, never()).clear();
+        verify(dealerService, times(1)).evictDealer(oldDealer);
+        verify(dealerService, times(1)).evictDealer(newDealer);
+    }
+
     @Test
     void testTransferCarToDealer_WithNonExistingCar_ShouldThrowCarNotFoundException() {
         // Arrange
         Long carId = 1L;
         Long dealerId = 1L;
 
-        when(carRepository.findById(carId)).thenReturn(Optional.empty());
+        when(carRepository.findWithDealerById(carId)).thenReturn(Optional.empty());
 
         // Act and Assert
         assertThrows(CarNotFoundException.class, () -> carService.transferCarToDealer(carId, dealerId));
-        verify(carRepository, times(1)).findById(carId);
+        verify(carRepository, times(1)).findWithDealerById(carId);
         verify(dealerRepository, never()).findById(dealerId);
         verify(carRepository, never()).save(any());
     }
@@ -295,12 +545,12 @@ class CarServiceTest {
         Car car = new Car();
         car.setId(carId);
 
-        when(carRepository.findById(carId)).thenReturn(Optional.of(car));
+        when(carRepository.findWithDealerById(carId)).thenReturn(Optional.of(car));
         when(dealerRepository.findById(dealerId)).thenReturn(Optional.empty());
 
         // Act and Assert
         assertThrows(DealerNotFoundException.class, () -> carService.transferCarToDealer(carId, dealerId));
-        verify(carRepository, times(1)).findById(carId);
+        verify(carRepository, times(1)).findWithDealerById(carId);
         verify(dealerRepository, times(1)).findById(dealerId);
         verify(carRepository, never()).save(any());
     }
@@ -312,9 +562,7 @@ class CarServiceTest {
         Car car = new Car();
         car.setMake(make);
 
-        when(carCache.containsKey(make)).thenReturn(true);
-        when(carCache.get(make)).thenReturn(new CarDto());
-        when(carRepository.findByMake(make)).thenReturn(car);
+        when(carRepository.findDtoByMake(make)).thenReturn(CarDto.toCar(car));
 
         // Act
         CarDto carDto = carService.getCarByMake(make);
@@ -328,11 +576,37 @@ class CarServiceTest {
         // Arrange
         String make = "Toyota";
 
-        when(carCache.containsKey(make)).thenReturn(false);
-        when(carRepository.findByMake(make)).thenReturn(null);
+        when(carRepository.findDtoByMake(make)).thenReturn(null);
 
         // Act & Assert
         Assertions.assertThrows(CarNotFoundException.class, () -> carService.getCarByMake(make));
+        assertFalse(carCache.containsKey(CarCacheKey.byMake(make)));
+    }
+
+    @Test
+    void testGetCarById_WithNegativeCaching_ShouldQueryOnceUntilCarIsAdded() throws Exception {
+        // Arrange
+        CacheSettings settings = new CacheSettings();
+        settings.setNegativeTtl(Duration.ofSeconds(30));
+        CarService service = new CarService(carRepository, carBatchRepository, dealerRepository, dealerService, new Cache<>(settings),
+                carDtoInterner, new OptimisticRetryExecutor(3, Duration.ZERO, Duration.ZERO), inventoryService);
+        Dealer dealer = new Dealer();
+        dealer.setId(1L);
+        Car car = new Car(7L, "VIN7");
+
+        when(carRepository.findDtoById(7L)).thenReturn(Optional.empty());
+        when(dealerRepository.findById(1L)).thenReturn(Optional.of(dealer));
+
+        // Act & Assert
+        assertThrows(CarNotFoundException.class, () -> service.getCarById(7L));
+        assertThrows(CarNotFoundException.class, () -> service.getCarById(7L));
+        verify(carRepository, times(1)).findDtoById(7L);
+
+        service.addCar(1L, car);
+        when(carRepository.findDtoById(7L)).thenReturn(Optional.of(CarDto.toCar(car)));
+
+        assertEquals(7L, service.getCarById(7L).getId());
+        verify(carRepository, times(2)).findDtoById(7L);
     }
 
     @Test
@@ -356,7 +630,9 @@ class CarServiceTest {
 
         // Assert
         verify(carRepository, times(1)).save(car);
-        verify(carCache, times(1)).clear();
+        verify(carCache, times(1)).remove(CarCacheKey.byMake("Toyota"));
+        verify(carCache, times(1)).remove(CarCacheKey.byDealerAndYear(1L, 2022L));
+        verify(carCache, never()).clear();
     }
 
     @Test
@@ -377,14 +653,15 @@ class CarServiceTest {
         updatedCar.setYear(2022L);
         updatedCar.setVin("123456789");
 
-        when(carRepository.findById(carId)).thenReturn(Optional.of(existingCar));
+        when(carRepository.findWithDealerById(carId)).thenReturn(Optional.of(existingCar));
 
         // Act
         carService.updateCar(carId, updatedCar);
 
         // Assert
         verify(carRepository, times(1)).save(existingCar);
-        verify(carCache, times(1)).clear();
+        verify(carCache, times(2)).remove(CarCacheKey.byId(carId));
+        verify(carCache, never()).clear();
         assertEquals(updatedCar.getModel(), existingCar.getModel());
     }
 
@@ -401,31 +678,42 @@ class CarServiceTest {
 
         CarDto carDto = CarDto.toCar(car);
 
-        when(carCache.containsKey(carId)).thenReturn(false);
-        when(carRepository.findById(carId)).thenReturn(Optional.of(car));
-        when(carCache.get(carId)).thenReturn(carDto);
+        when(carRepository.findDtoById(carId)).thenReturn(Optional.of(carDto));
 
         // Act
         CarDto result = carService.getCarById(carId);
+        CarDto cachedResult = carService.getCarById(carId);
 
         // Assert
-        verify(carCache, times(1)).put(carId, carDto);
         assertEquals(carDto, result);
+        assertSame(result, cachedResult);
+        verify(carRepository, times(1)).findDtoById(carId);
+        verify(carRepository, never()).findById(carId);
     }
 
     @Test
     void testDeleteCar() throws CarNotFoundException {
         // Arrange
         Long carId = 1L;
+        Dealer dealer = new Dealer();
+        dealer.setId(2L);
+        Car car = new Car();
+        car.setId(carId);
+        car.setMake("Toyota");
+        car.setYear(2022L);
+        car.setDealer(dealer);
 
-        when(carRepository.existsById(carId)).thenReturn(true);
+        when(carRepository.findWithDealerById(carId)).thenReturn(Optional.of(car));
 
         // Act
         carService.deleteCar(carId);
 
         // Assert
         verify(carRepository, times(1)).deleteById(carId);
-        verify(carCache, times(1)).clear();
+        verify(carCache, times(1)).remove(CarCacheKey.byId(carId));
+        verify(carCache, times(1)).remove(CarCacheKey.byMake("Toyota"));
+        verify(carCache, times(1)).remove(CarCacheKey.byDealerAndYear(2L, 2022L));
+        verify(carCache, never()).clear();
     }
 
     @Test
@@ -450,12 +738,15 @@ class CarServiceTest {
         dealer.setId(dealerId);
         dealer.setName("Dealer 1");
         when(dealerRepository.findById(dealerId)).thenReturn(Optional.of(dealer));
-        when(carRepository.findAll()).thenReturn(new ArrayList<>());
-        when(carRepository.saveAll(anyList())).thenReturn(cars);
+        when(carRepository.findExistingVins(anyCollection())).thenReturn(new ArrayList<>());
+        when(carBatchRepository.insertAll(anyList())).thenReturn(cars);
 
         carService.addCarsBulk(dealerId, cars);
 
-        verify(carRepository).saveAll(anyList());
+        verify(carBatchRepository).insertAll(anyList());
+        verify(carRepository, never()).saveAll(anyList());
+        verify(carRepository).findExistingVins(List.of("vin1", "vin2"));
+        verify(carRepository, never()).findAll();
         assertEquals(2, cars.size());
     }
 
@@ -490,12 +781,13 @@ class CarServiceTest {
         dealer.setId(dealerId);
         dealer.setName("Dealer 1");
         when(dealerRepository.findById(dealerId)).thenReturn(Optional.of(dealer));
-        when(carRepository.findAll()).thenReturn(existingCars);
-        when(carRepository.saveAll(anyList())).thenReturn(cars.subList(1, 2));
+        when(carRepository.findExistingVins(anyCollection()))
+                .thenReturn(existingCars.stream().map(Car::getVin).toList());
+        when(carBatchRepository.insertAll(anyList())).thenReturn(cars.subList(1, 2));
 
         carService.addCarsBulk(dealerId, cars);
 
-        verify(carRepository).saveAll(anyList());
+        verify(carBatchRepository).insertAll(anyList());
 
         // Обновить список cars после вызова carService.addCarsBulk(dealerId, cars)
         cars = new ArrayList<>(cars.subList(1, 2));
@@ -540,9 +832,56 @@ class CarServiceTest {
         dealer.setId(dealerId);
         dealer.setName("Dealer 1");
         when(dealerRepository.findById(dealerId)).thenReturn(Optional.of(dealer));
-        when(carRepository.findAll()).thenReturn(existingCars);
+        when(carRepository.findExistingVins(anyCollection()))
+                .thenReturn(existingCars.stream().map(Car::getVin).toList());
 
         assertThrows(CarAlreadyExistException.class, () -> carService.addCarsBulk(dealerId, cars));
+        verify(carBatchRepository, never()).insertAll(anyList());
+    }
+
+    @Test
+    void testAddCarsBulk_whenChunkFails_thenThrowCarAdditionException() {
+        Long dealerId = 1L;
+        List<Car> cars = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            Car car = new Car();
+            car.setVin("vin" + i);
+            car.setYear(2020L);
+            cars.add(car);
+        }
+
+        Dealer dealer = new Dealer();
+        dealer.setId(dealerId);
+        when(dealerRepository.findById(dealerId)).thenReturn(Optional.of(dealer));
+        when(carRepository.findExistingVins(anyCollection())).thenReturn(new ArrayList<>());
+        when(carBatchRepository.insertAll(anyList())).thenReturn(cars.subList(0, 2));
+
+        assertThrows(CarAdditionException.class, () -> carService.addCarsBulk(dealerId, cars));
+        verify(dealerService).evictDealer(dealer);
+    }
+
+    @Test
+    void testAddCarsBulk_whenBatchIsLarge_thenLooksUpVinsInChunks() throws Exception {
+        Long dealerId = 1L;
+        List<Car> cars = new ArrayList<>();
+        for (int i = 0; i < 1200; i++) {
+            Car car = new Car();
+            car.setVin("vin" + i);
+            car.setYear(2020L);
+            cars.add(car);
+        }
+        cars.add(cars.get(0));
+
+        Dealer dealer = new Dealer();
+        dealer.setId(dealerId);
+        when(dealerRepository.findById(dealerId)).thenReturn(Optional.of(dealer));
+        when(carRepository.findExistingVins(anyCollection())).thenReturn(List.of("vin0"));
+        when(carBatchRepository.insertAll(anyList())).thenReturn(cars.subList(1, 1200));
+
+        carService.addCarsBulk(dealerId, cars);
+
+        verify(carRepository, times(3)).findExistingVins(anyCollection());
+        verify(carRepository, never()).findAll();
     }
 
     @Test
@@ -568,4 +907,109 @@ class CarServiceTest {
         assertThrows(DealerNotFoundException.class, () -> carService.addCarsBulk(dealerId, cars));
     }
 
+    @Test
+    void testImportCars_ShouldStoreFeedInChunksAndReportEachChunk() throws Exception {
+        Long dealerId = 1L;
+        Dealer dealer = new Dealer();
+        dealer.setId(dealerId);
+        String feed = "vin,make,year\n"
+                + "vin1,Toyota,2020\n"
+                + "vin2,Honda,2021\n"
+                + ",Ford,2022\n"
+                + "vin1,Toyota,2020\n"
+                + "vin3,Mazda,2019\n";
+        CarFeedReader reader = new CarFeedReader(new StringReader(feed), CarFeedReader.Format.CSV, null);
+        when(dealerRepository.findById(dealerId)).thenReturn(Optional.of(dealer));
+        when(carRepository.findExistingVins(anyCollection())).thenReturn(new ArrayList<>(),
+                List.of("vin1"), new ArrayList<>());
+        when(carBatchRepository.insertAll(anyList())).thenAnswer(invocation -> invocation.getArgument(0));
+
+        List<CarImportChunkDto> results = carService.importCars(dealerId, reader, 2);
+
+        assertEquals(3, results.size());
+        assertEquals(2, results.get(0).getInsertedCount());
+        assertEquals(1, results.get(1).getRejectedCount());
+        assertEquals(1, results.get(1).getDuplicateCount());
+        assertEquals(List.of("Строка 4: не указан VIN"), results.get(1).getErrors());
+        assertEquals(1, results.get(2).getInsertedCount());
+        assertEquals(6, results.get(2).getLastLine());
+        verify(carBatchRepository, times(2)).insertAll(anyList());
+        verify(dealerService, times(2)).evictDealer(dealer);
+    }
+
+    @Test
+    void testGetCarsPage_ShouldReturnTokenOfNextPageOnlyIfMoreCarsExist() {
+        List<CarDto> cars = new ArrayList<>();
+        for (long id = 1; id <= 3; id++) {
+            cars.add(new CarDto(id, "vin" + id));
+        }
+        when(carRepository.findDtoPageAfter(eq(0L), any())).thenReturn(cars);
+        when(carRepository.findDtoPageAfter(eq(2L), any())).thenReturn(cars.subList(2, 3));
+
+        CarPageDto first = carService.getCarsPage(null, 2);
+        CarPageDto last = carService.getCarsPage(first.getNextPageToken(), 2);
+
+        assertEquals(List.of("vin1", "vin2"), first.getCars().stream().map(CarDto::getVin).toList());
+        assertNotNull(first.getNextPageToken());
+        assertEquals(List.of("vin3"), last.getCars().stream().map(CarDto::getVin).toList());
+        assertNull(last.getNextPageToken());
+    }
+
+    @Test
+    void testGetDealerCarsPage_WithNonExistingDealer_ShouldThrowDealerNotFoundException() {
+        when(carRepository.findDtoPageByDealerIdAfter(eq(9L), eq(0L), any())).thenReturn(new ArrayList<>());
+        when(dealerRepository.existsById(9L)).thenReturn(false);
+
+        assertThrows(DealerNotFoundException.class, () -> carService.getDealerCarsPage(9L, null, 10));
+    }
+
+    @Test
+    void testGetCarsPage_WithInvalidToken_ShouldThrowIllegalArgumentException() {
+        assertThrows(IllegalArgumentException.class, () -> carService.getCarsPage("garbage", 10));
+        verify(carRepository, never()).findDtoPageAfter(anyLong(), any());
+    }
+
+    @Test
+    void testWarmUpCache_ShouldPreloadCarsAndSkipMissingOnes() throws Exception {
+        // Arrange
+        Dealer dealer = new Dealer();
+        dealer.setId(1L);
+        Car first = new Car(1L, "VIN1");
+        Car second = new Car(2L, "VIN2");
+        second.setYear(2020L);
+        second.setDealer(dealer);
+        List<CarCacheKey> keys = List.of(CarCacheKey.byId(1L), CarCacheKey.byId(3L),
+                CarCacheKey.byDealerAndYear(1L, 2020L), CarCacheKey.byMake("Missing"));
+
+        when(carRepository.findDtosByIdIn(List.of(1L, 3L))).thenReturn(List.of(CarDto.toCar(first)));
+        when(carRepository.findDtosByDealerIdAndYear(1L, 2020L)).thenReturn(List.of(CarDto.toCar(second)));
+        when(carRepository.findDtoByMake("Missing")).thenReturn(null);
+
+        // Act
+        int warmed = carService.warmUpCache(keys);
+
+        // Assert
+        assertEquals(2, warmed);
+        assertEquals("VIN1", carService.getCarById(1L).getVin());
+        assertEquals(1, carService.getCarsByDealerIdAndYear(1L, 2020L).size());
+        verify(carRepository, never()).findDtoById(1L);
+        verify(carRepository, times(1)).findDtosByDealerIdAndYear(1L, 2020L);
+    }
+
+    @Test
+    void testCachedListsShareCarInstancesWithIdEntries() throws CarNotFoundException {
+        // Arrange
+        Car car = new Car(1L, "VIN1");
+        car.setYear(2020L);
+
+        when(carRepository.findDtoById(1L)).thenReturn(Optional.of(CarDto.toCar(car)));
+        when(carRepository.findDtosByDealerIdAndYear(1L, 2020L)).thenReturn(List.of(CarDto.toCar(car)));
+
+        // Act
+        CarDto byId = carService.getCarById(1L);
+        List<CarDto> byDealerAndYear = carService.getCarsByDealerIdAndYear(1L, 2020L);
+
+        // Assert
+        assertSame(byId, byDealerAndYear.get(0));
+    }
 }
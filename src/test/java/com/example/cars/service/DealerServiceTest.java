@@ -2,30 +2,67 @@ package com.example.cars.service;
 
 import static org.mockito.Mockito.when;
 
+import com.example.cars.component.Cache;
+import com.example.cars.component.CacheSettings;
+import com.example.cars.component.CarCacheKey;
+import com.example.cars.component.DealerCacheKey;
+import com.example.cars.component.OptimisticRetryExecutor;
+import com.example.cars.component.WeakInterner;
+import com.example.cars.dto.CarDto;
 import com.example.cars.dto.DealerDto;
+import com.example.cars.entity.Car;
 import com.example.cars.entity.Dealer;
 import com.example.cars.exceptions.DealerAlreadyExistException;
+import com.example.cars.exceptions.DealerDeletionException;
 import com.example.cars.exceptions.DealerNotFoundException;
+import com.example.cars.repository.CarBatchRepository;
+import com.example.cars.repository.CarBatchRepository.CarGroup;
+import com.example.cars.repository.CarBatchRepository.DealerCars;
+import com.example.cars.repository.CarBatchRepository.DeletedCars;
 import com.example.cars.repository.DealerRepository;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
 import org.mockito.Mock;
 import org.mockito.Mockito;
 import org.mockito.MockitoAnnotations;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 
 class DealerServiceTest {
 
   @Mock
   private DealerRepository dealerRepository;
 
+  @Mock
+  private CarBatchRepository carBatchRepository;
+
+  private Cache<DealerCacheKey, DealerDto> dealerCache;
+
+  private Cache<CarCacheKey, CarDto> carCache;
+
+  private InventoryService inventoryService;
+
   private DealerService dealerService;
 
   @BeforeEach
   void setup() {
     MockitoAnnotations.openMocks(this);
-    dealerService = new DealerService(dealerRepository);
+    CacheSettings settings = new CacheSettings();
+    settings.setNegativeTtl(Duration.ofSeconds(30));
+    dealerCache = new Cache<>(settings);
+    carCache = new Cache<>();
+    inventoryService = new InventoryService(carBatchRepository, Duration.ZERO);
+    dealerService = new DealerService(dealerRepository, carBatchRepository, dealerCache, carCache,
+            new WeakInterner<>(), new OptimisticRetryExecutor(3, Duration.ZERO, Duration.ZERO),
+            inventoryService);
+    when(carBatchRepository.findDealerCars(Mockito.any()))
+            .thenReturn(new DealerCars(List.of(), Map.of()));
   }
 
   @Test
@@ -70,6 +107,74 @@ class DealerServiceTest {
     Mockito.verify(dealerRepository, Mockito.times(1)).save(existingDealer);
   }
 
+  @Test
+  void testUpdateDealer_ShouldReplaceCarListAndAdjustCounts() throws DealerNotFoundException {
+
+    Dealer existingDealer = new Dealer();
+    existingDealer.setId(1L);
+    existingDealer.setName("DealerName");
+    existingDealer.setCarList(List.of(new Car(10L, "VIN10")));
+    Dealer updatedDealer = new Dealer();
+    updatedDealer.setName("UpdatedDealerName");
+    List<Car> cars = List.of(new Car(11L, "VIN11"));
+    updatedDealer.setCarList(cars);
+    CarGroup toyotas = new CarGroup(1L, "Toyota", 2020L);
+    CarGroup hondas = new CarGroup(1L, "Honda", 2021L);
+    inventoryService.record(1L, "Toyota", 2020L, 1);
+    carCache.put(CarCacheKey.byId(10L), new CarDto(10L, "VIN10"));
+    carCache.putList(CarCacheKey.byDealerAndYear(1L, 2021L), List.of(new CarDto(12L, "VIN12")));
+
+    when(dealerRepository.findByName("DealerName")).thenReturn(existingDealer);
+    when(carBatchRepository.findDealerCars(1L))
+            .thenReturn(new DealerCars(List.of(10L), Map.of(toyotas, 1)))
+            .thenReturn(new DealerCars(List.of(11L), Map.of(hondas, 1)));
+
+    dealerService.updateDealer("DealerName", updatedDealer);
+
+    Assertions.assertEquals("UpdatedDealerName", existingDealer.getName());
+    Assertions.assertSame(cars, existingDealer.getCarList());
+    Assertions.assertEquals(Map.of("Honda", 1L),
+            inventoryService.getDealerInventory(1L).getCountsByMake());
+    Assertions.assertFalse(carCache.containsKey(CarCacheKey.byId(10L)));
+    Assertions.assertFalse(carCache.containsKey(CarCacheKey.byDealerAndYear(1L, 2021L)));
+  }
+
+  @Test
+  void testUpdateDealer_WithConcurrentUpdate_ShouldRetryOnFreshDealer()
+      throws DealerNotFoundException {
+
+    Dealer staleDealer = new Dealer();
+    staleDealer.setName("DealerName");
+    Dealer freshDealer = new Dealer();
+    freshDealer.setName("DealerName");
+    freshDealer.setVersion(1L);
+    Dealer updatedDealer = new Dealer();
+    updatedDealer.setName("UpdatedDealerName");
+    updatedDealer.setAddress("New address");
+
+    when(dealerRepository.findByName("DealerName")).thenReturn(staleDealer, freshDealer);
+    when(dealerRepository.save(staleDealer))
+            .thenThrow(new ObjectOptimisticLockingFailureException(Dealer.class, 1L));
+
+    dealerService.updateDealer("DealerName", updatedDealer);
+
+    Mockito.verify(dealerRepository, Mockito.times(1)).save(freshDealer);
+    Assertions.assertEquals("UpdatedDealerName", freshDealer.getName());
+    Assertions.assertEquals("New address", freshDealer.getAddress());
+  }
+
+  @Test
+  void testUpdateDealer_WithPersistentConflict_ShouldGiveUp() {
+
+    when(dealerRepository.findByName("DealerName")).thenAnswer(invocation -> new Dealer());
+    when(dealerRepository.save(Mockito.any(Dealer.class)))
+            .thenThrow(new ObjectOptimisticLockingFailureException(Dealer.class, 1L));
+
+    Assertions.assertThrows(ObjectOptimisticLockingFailureException.class,
+            () -> dealerService.updateDealer("DealerName", new Dealer()));
+    Mockito.verify(dealerRepository, Mockito.times(3)).save(Mockito.any(Dealer.class));
+  }
+
   @Test
   void testUpdateDealer_WithNonExistingDealer_ShouldThrowException() {
 
@@ -88,7 +193,7 @@ class DealerServiceTest {
 
     Long dealerId = 1L;
 
-    when(dealerRepository.findById(dealerId)).thenReturn(Optional.empty());
+    when(dealerRepository.findWithCarsById(dealerId)).thenReturn(Optional.empty());
 
     Assertions.assertThrows(DealerNotFoundException.class,
             () -> dealerService.getDealerById(dealerId));
@@ -101,7 +206,7 @@ class DealerServiceTest {
     Dealer dealer = new Dealer();
     dealer.setName(dealerName);
 
-    when(dealerRepository.findByName(dealerName)).thenReturn(dealer);
+    when(dealerRepository.findWithCarsByName(dealerName)).thenReturn(dealer);
 
     DealerDto dealerDto = dealerService.getDealerByName(dealerName);
 
@@ -113,32 +218,161 @@ class DealerServiceTest {
 
     String dealerName = "DealerName";
 
-    when(dealerRepository.findByName(dealerName)).thenReturn(null);
+    when(dealerRepository.findWithCarsByName(dealerName)).thenReturn(null);
 
     Assertions.assertThrows(DealerNotFoundException.class,
             () -> dealerService.getDealerByName(dealerName));
   }
 
   @Test
-  void testDeleteDealer_WithExistingDealer_ShouldDeleteDealer() throws DealerNotFoundException {
+  void testDeleteDealer_WithExistingDealer_ShouldDeleteDealer()
+          throws DealerNotFoundException, DealerDeletionException {
 
     Long dealerId = 1L;
 
-    when(dealerRepository.existsById(dealerId)).thenReturn(true);
+    Dealer dealer = new Dealer();
+    dealer.setId(dealerId);
+
+    when(dealerRepository.findById(dealerId)).thenReturn(Optional.of(dealer));
+    when(carBatchRepository.deleteAll(dealerId, null))
+            .thenReturn(new DeletedCars(List.of(), Map.of()));
 
     dealerService.deleteDealer(dealerId);
 
     Mockito.verify(dealerRepository, Mockito.times(1)).deleteById(dealerId);
   }
 
+  @Test
+  void testDeleteDealer_ShouldDeleteCarsInBulkAndEvictThem()
+          throws DealerNotFoundException, DealerDeletionException {
+
+    Long dealerId = 1L;
+
+    Dealer dealer = new Dealer();
+    dealer.setId(dealerId);
+    CarDto car = new CarDto(7L, 2020L, "Toyota", "Camry", "VIN7");
+    carCache.put(CarCacheKey.byId(7L), car);
+    carCache.put(CarCacheKey.byMake("Toyota"), car);
+    carCache.putList(CarCacheKey.byDealerAndYear(dealerId, 2020L), List.of(car));
+
+    when(dealerRepository.findById(dealerId)).thenReturn(Optional.of(dealer));
+    when(carBatchRepository.deleteAll(dealerId, null)).thenReturn(
+            new DeletedCars(List.of(7L), Map.of(new CarGroup(dealerId, "Toyota", 2020L), 1)));
+
+    dealerService.deleteDealer(dealerId);
+
+    InOrder inOrder = Mockito.inOrder(carBatchRepository, dealerRepository);
+    inOrder.verify(carBatchRepository).deleteAll(dealerId, null);
+    inOrder.verify(dealerRepository).deleteById(dealerId);
+    Assertions.assertFalse(carCache.containsKey(CarCacheKey.byId(7L)));
+    Assertions.assertFalse(carCache.containsKey(CarCacheKey.byMake("Toyota")));
+    Assertions.assertFalse(carCache.containsKey(CarCacheKey.byDealerAndYear(dealerId, 2020L)));
+  }
+
+  @Test
+  void testDeleteDealer_WhenCarsAreNotAllDeleted_ShouldKeepDealer() {
+
+    Long dealerId = 1L;
+
+    Dealer dealer = new Dealer();
+    dealer.setId(dealerId);
+    CarDto car = new CarDto(7L, 2020L, "Toyota", "Camry", "VIN7");
+    carCache.put(CarCacheKey.byId(7L), car);
+
+    when(dealerRepository.findById(dealerId)).thenReturn(Optional.of(dealer));
+    when(carBatchRepository.deleteAll(dealerId, null)).thenReturn(new DeletedCars(
+            List.of(7L), Map.of(new CarGroup(dealerId, "Toyota", 2020L), 1), false));
+
+    Assertions.assertThrows(DealerDeletionException.class,
+            () -> dealerService.deleteDealer(dealerId));
+    Mockito.verify(dealerRepository, Mockito.never()).deleteById(dealerId);
+    Assertions.assertFalse(carCache.containsKey(CarCacheKey.byId(7L)));
+  }
+
   @Test
   void testDeleteDealer_WithNonExistingDealer_ShouldThrowException() {
 
     Long dealerId = 1L;
 
-    when(dealerRepository.existsById(dealerId)).thenReturn(false);
+    when(dealerRepository.findById(dealerId)).thenReturn(Optional.empty());
 
     Assertions.assertThrows(DealerNotFoundException.class,
             () -> dealerService.deleteDealer(dealerId));
   }
-}
\ No newline at end of file
+
+  @Test
+  void testGetDealerById_ShouldBeServedFromCacheUntilDealerIsUpdated()
+          throws DealerNotFoundException {
+
+    Dealer dealer = new Dealer();
+    dealer.setId(1L);
+    dealer.setName("DealerName");
+
+    when(dealerRepository.findWithCarsById(1L)).thenReturn(Optional.of(dealer));
+    when(dealerRepository.findByName("DealerName")).thenReturn(dealer);
+
+    dealerService.getDealerById(1L);
+    dealerService.getDealerById(1L);
+    Mockito.verify(dealerRepository, Mockito.times(1)).findWithCarsById(1L);
+
+    Dealer updatedDealer = new Dealer();
+    updatedDealer.setName("DealerName");
+    dealerService.updateDealer("DealerName", updatedDealer);
+    dealerService.getDealerById(1L);
+
+    Mockito.verify(dealerRepository, Mockito.times(2)).findWithCarsById(1L);
+  }
+
+  @Test
+  void testAddDealer_ShouldEvictCachedNotFoundResult() throws Exception {
+
+    Dealer dealer = new Dealer();
+    dealer.setName("DealerName");
+
+    when(dealerRepository.findWithCarsByName("DealerName")).thenReturn(null);
+
+    Assertions.assertThrows(DealerNotFoundException.class,
+            () -> dealerService.getDealerByName("DealerName"));
+    dealerService.addDealer(dealer);
+    when(dealerRepository.findWithCarsByName("DealerName")).thenReturn(dealer);
+
+    Assertions.assertEquals("DealerName", dealerService.getDealerByName("DealerName").getName());
+  }
+
+  @Test
+  void testEvictDealer_ShouldDropIdAndNameEntries() throws DealerNotFoundException {
+
+    Dealer dealer = new Dealer();
+    dealer.setId(1L);
+    dealer.setName("DealerName");
+
+    when(dealerRepository.findWithCarsByName("DealerName")).thenReturn(dealer);
+
+    dealerService.getDealerByName("DealerName");
+    dealerService.evictDealer(dealer);
+
+    Assertions.assertFalse(dealerCache.containsKey(DealerCacheKey.byName("DealerName")));
+  }
+
+  @Test
+  void testAfterCarsDeleted_ShouldEvictCarEntriesAndTheirDealers() throws DealerNotFoundException {
+
+    Dealer dealer = new Dealer();
+    dealer.setId(1L);
+    dealer.setName("DealerName");
+    CarDto car = new CarDto(10L, 2020L, "Toyota", "Camry", "VIN10");
+    carCache.put(CarCacheKey.byId(10L), car);
+    carCache.put(CarCacheKey.byMake("Toyota"), car);
+
+    when(dealerRepository.findWithCarsByName("DealerName")).thenReturn(dealer);
+    when(dealerRepository.findAllById(Set.of(1L))).thenReturn(List.of(dealer));
+
+    dealerService.getDealerByName("DealerName");
+    dealerService.afterCarsDeleted(new DeletedCars(
+            List.of(10L), Map.of(new CarGroup(1L, "Toyota", 2020L), 1)));
+
+    Assertions.assertFalse(carCache.containsKey(CarCacheKey.byId(10L)));
+    Assertions.assertFalse(carCache.containsKey(CarCacheKey.byMake("Toyota")));
+    Assertions.assertFalse(dealerCache.containsKey(DealerCacheKey.byName("DealerName")));
+  }
+}
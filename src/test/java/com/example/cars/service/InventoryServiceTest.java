@@ -0,0 +1,131 @@
+package com.example.cars.service;
+
+import com.example.cars.dto.DealerInventoryDto;
+import com.example.cars.repository.CarBatchRepository;
+import com.example.cars.repository.CarBatchRepository.CarGroup;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class InventoryServiceTest {
+
+    @Mock
+    private CarBatchRepository carBatchRepository;
+
+    private InventoryService inventoryService;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        inventoryService = new InventoryService(carBatchRepository, Duration.ZERO);
+    }
+
+    @Test
+    void testRebuildReplacesCountsWithDatabaseCounts() {
+        inventoryService.record(9L, "Ford", 2019L, 1);
+        when(carBatchRepository.countByGroup()).thenReturn(Map.of(
+                new CarGroup(1L, "Toyota", 2020L), 3,
+                new CarGroup(1L, "Honda", 2020L), 2,
+                new CarGroup(1L, null, 2021L), 1,
+                new CarGroup(null, "Toyota", 2020L), 4));
+
+        inventoryService.rebuild();
+
+        DealerInventoryDto inventory = inventoryService.getDealerInventory(1L);
+        assertEquals(6, inventory.getCarCount());
+        assertEquals(Map.of("Honda", 2L, "Toyota", 3L), inventory.getCountsByMake());
+        assertEquals(Map.of(2020L, 5L, 2021L, 1L), inventory.getCountsByYear());
+        assertEquals(List.of(1L), inventoryService.getInventories().stream()
+                .map(DealerInventoryDto::getDealerId).toList());
+    }
+
+    @Test
+    void testWritesRecordedDuringRebuildAreReplayedOntoRebuiltCounts() {
+        inventoryService.record(2L, "Honda", 2021L, 1);
+        when(carBatchRepository.countByGroup()).thenAnswer(invocation -> {
+            inventoryService.record(1L, "Toyota", 2020L, 1);
+            inventoryService.removeDealer(2L);
+            return Map.of(new CarGroup(1L, "Toyota", 2020L), 3,
+                    new CarGroup(2L, "Honda", 2021L), 1);
+        });
+
+        inventoryService.rebuild();
+
+        assertEquals(4, inventoryService.getDealerInventory(1L).getCarCount());
+        assertEquals(List.of(1L), inventoryService.getInventories().stream()
+                .map(DealerInventoryDto::getDealerId).toList());
+    }
+
+    @Test
+    void testCountsAreRebuiltPeriodicallyAfterStartup() {
+        when(carBatchRepository.countByGroup())
+                .thenReturn(Map.of(new CarGroup(1L, "Toyota", 2020L), 1))
+                .thenReturn(Map.of(new CarGroup(1L, "Toyota", 2020L), 2));
+        InventoryService rebuilding = new InventoryService(carBatchRepository, Duration.ofMillis(10));
+
+        try {
+            rebuilding.run(null);
+            verify(carBatchRepository, timeout(1000).atLeast(3)).countByGroup();
+        } finally {
+            rebuilding.close();
+        }
+        assertEquals(2, rebuilding.getDealerInventory(1L).getCarCount());
+    }
+
+    @Test
+    void testCountsDroppingToZeroAreRemoved() {
+        inventoryService.record(1L, "Toyota", 2020L, 2);
+        inventoryService.record(1L, "Honda", 2021L, 1);
+
+        inventoryService.recordRemoved(Map.of(new CarGroup(1L, "Toyota", 2020L), 2));
+
+        DealerInventoryDto inventory = inventoryService.getDealerInventory(1L);
+        assertEquals(1, inventory.getCarCount());
+        assertEquals(Map.of("Honda", 1L), inventory.getCountsByMake());
+        assertEquals(Map.of(2021L, 1L), inventory.getCountsByYear());
+    }
+
+    @Test
+    void testDealerWithoutCarsLeftIsRemoved() {
+        inventoryService.record(1L, "Toyota", 2020L, 2);
+        inventoryService.record(2L, "Honda", 2021L, 1);
+
+        inventoryService.recordMoved(Map.of(new CarGroup(1L, "Toyota", 2020L), 2), 2L);
+
+        assertEquals(List.of(2L), inventoryService.getInventories().stream()
+                .map(DealerInventoryDto::getDealerId).toList());
+        assertEquals(3, inventoryService.getDealerInventory(2L).getCarCount());
+    }
+
+    @Test
+    void testRecordMovedShiftsCountsBetweenDealers() {
+        inventoryService.record(1L, "Toyota", 2020L, 3);
+
+        inventoryService.recordMoved(Map.of(new CarGroup(1L, "Toyota", 2020L), 2), 2L);
+
+        assertEquals(1, inventoryService.getDealerInventory(1L).getCarCount());
+        assertEquals(Map.of("Toyota", 2L), inventoryService.getDealerInventory(2L).getCountsByMake());
+    }
+
+    @Test
+    void testUnknownOrRemovedDealerHasEmptyCounts() {
+        inventoryService.record(1L, "Toyota", 2020L, 1);
+
+        inventoryService.removeDealer(1L);
+
+        DealerInventoryDto inventory = inventoryService.getDealerInventory(1L);
+        assertEquals(0, inventory.getCarCount());
+        assertTrue(inventory.getCountsByMake().isEmpty());
+        assertTrue(inventoryService.getInventories().isEmpty());
+    }
+}